@@ -0,0 +1,69 @@
+package com.notification.notification_svc.benchmark;
+
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationPreference;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.web.dto.NotificationPreferenceResponse;
+import com.notification.notification_svc.web.dto.NotificationResponse;
+import com.notification.notification_svc.web.mapper.DtoMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMapperBenchmark {
+
+    private Notification notification;
+    private NotificationPreference preference;
+
+    @Setup
+    public void setUp() {
+        notification = Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .subject("Your order has shipped")
+                .body("Your order 1234 left our warehouse and is on its way.")
+                .contactInfo("user@example.com")
+                .type(NotificationType.EMAIL)
+                .status(NotificationStatus.SUCCEEDED)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build();
+        preference = NotificationPreference.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .contactInfo("user@example.com")
+                .type(NotificationType.EMAIL)
+                .enabled(true)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public NotificationResponse fromNotification() {
+        return DtoMapper.fromNotification(notification);
+    }
+
+    @Benchmark
+    public NotificationPreferenceResponse fromNotificationPreference() {
+        return DtoMapper.fromNotificationPreference(preference);
+    }
+}
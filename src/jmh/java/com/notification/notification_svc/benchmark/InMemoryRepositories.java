@@ -0,0 +1,56 @@
+package com.notification.notification_svc.benchmark;
+
+import com.notification.notification_svc.model.NotificationPreference;
+import com.notification.notification_svc.repository.NotificationOutboxRepository;
+import com.notification.notification_svc.repository.NotificationPreferenceRepository;
+import com.notification.notification_svc.repository.NotificationRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Repository stand-ins for benchmarks. Writes return their argument without retaining it, so a
+ * long run does not grow the heap, and set-based updates find no rows; the preference repository
+ * serves a fixed map. Any other repository method fails loudly rather than silently measuring
+ * nothing.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static NotificationRepository notifications() {
+        return writeOnly(NotificationRepository.class);
+    }
+
+    static NotificationOutboxRepository outbox() {
+        return writeOnly(NotificationOutboxRepository.class);
+    }
+
+    static NotificationPreferenceRepository preferences(Map<UUID, NotificationPreference> preferences) {
+        return (NotificationPreferenceRepository) Proxy.newProxyInstance(InMemoryRepositories.class.getClassLoader(), new Class<?>[]{NotificationPreferenceRepository.class}, (proxy, method, args) -> {
+            if (method.getName().equals("findNotificationPreferenceByUserId")) {
+                return Optional.ofNullable(preferences.get((UUID) args[0]));
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static <T> T writeOnly(Class<T> repository) {
+        return repository.cast(Proxy.newProxyInstance(InMemoryRepositories.class.getClassLoader(), new Class<?>[]{repository}, (proxy, method, args) -> {
+            if (method.getName().startsWith("save")) {
+                return args[0];
+            }
+            if (method.getName().equals("updateOutcome") || method.getName().equals("deleteByNotificationIdIn")) {
+                return 0;
+            }
+            if (method.getName().equals("findDeletedIdsByIdIn")) {
+                return List.of();
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }));
+    }
+}
@@ -0,0 +1,69 @@
+package com.notification.notification_svc.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.web.dto.NotificationResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes history responses the way the controller does, with a mapper configured like Spring
+ * Boot's and a writer resolved once for {@code List<NotificationResponse>}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationResponseSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private List<NotificationResponse> responses;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, NotificationResponse.class));
+
+        responses = new ArrayList<>(size);
+        LocalDateTime createdAt = LocalDateTime.now();
+        for (int i = 0; i < size; i++) {
+            responses.add(NotificationResponse.builder()
+                    .subject("Your order has shipped")
+                    .body("Your order %d left our warehouse and is on its way.".formatted(i))
+                    .status(NotificationStatus.SUCCEEDED)
+                    .type(NotificationType.EMAIL)
+                    .createdAt(createdAt.minusMinutes(i))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws Exception {
+        return writer.writeValueAsBytes(responses);
+    }
+}
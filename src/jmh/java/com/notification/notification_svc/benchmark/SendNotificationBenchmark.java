@@ -0,0 +1,156 @@
+package com.notification.notification_svc.benchmark;
+
+import com.notification.notification_svc.channel.ChannelRouter;
+import com.notification.notification_svc.config.ChannelProperties;
+import com.notification.notification_svc.config.CounterProperties;
+import com.notification.notification_svc.config.DispatchProperties;
+import com.notification.notification_svc.config.HistoryProperties;
+import com.notification.notification_svc.config.IdempotencyProperties;
+import com.notification.notification_svc.config.MailCircuitBreakerProperties;
+import com.notification.notification_svc.config.PreferenceCacheProperties;
+import com.notification.notification_svc.config.PriorityProperties;
+import com.notification.notification_svc.config.RateLimitProperties;
+import com.notification.notification_svc.config.RetryProperties;
+import com.notification.notification_svc.config.TemplateProperties;
+import com.notification.notification_svc.dispatch.PriorityLaneExecutor;
+import com.notification.notification_svc.mail.EmailChannelSender;
+import com.notification.notification_svc.mail.MailCircuitBreaker;
+import com.notification.notification_svc.mail.SendRateLimiter;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationPreference;
+import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.repository.NotificationPreferenceRepository;
+import com.notification.notification_svc.repository.NotificationRepository;
+import com.notification.notification_svc.service.IdempotencyGuard;
+import com.notification.notification_svc.service.NotificationCounters;
+import com.notification.notification_svc.service.NotificationDispatcher;
+import com.notification.notification_svc.service.NotificationMetrics;
+import com.notification.notification_svc.service.NotificationOutboxService;
+import com.notification.notification_svc.service.NotificationRetryService;
+import com.notification.notification_svc.service.NotificationService;
+import com.notification.notification_svc.service.PreferenceCache;
+import com.notification.notification_svc.service.RetryPolicy;
+import com.notification.notification_svc.service.TemplateRegistry;
+import com.notification.notification_svc.web.dto.NotificationRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link NotificationService#sendNotification} without Spring, a database or SMTP: repositories
+ * are in memory, the mail sender does nothing and the rate limiter is off. Synchronous mode covers
+ * preference lookup, building, the (no-op) send and status bookkeeping; asynchronous mode covers
+ * the outbox enqueue instead. Together with {@code -prof gc} this gives the allocation budget of
+ * one send.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SendNotificationBenchmark {
+
+    private static final int USERS = 10_000;
+
+    @Param({"false", "true"})
+    public boolean async;
+
+    private NotificationService notificationService;
+    private PriorityLaneExecutor executor;
+    private ChannelRouter channels;
+    private NotificationRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Map<UUID, NotificationPreference> preferences = new HashMap<>();
+        requests = new NotificationRequest[USERS];
+        for (int i = 0; i < USERS; i++) {
+            UUID userId = UUID.randomUUID();
+            preferences.put(userId, NotificationPreference.builder()
+                    .id(UUID.randomUUID())
+                    .userId(userId)
+                    .contactInfo("user" + i + "@example" + (i % 50) + ".com")
+                    .type(NotificationType.EMAIL)
+                    .enabled(true)
+                    .createdOn(LocalDateTime.now())
+                    .updatedOn(LocalDateTime.now())
+                    .build());
+            requests[i] = NotificationRequest.builder()
+                    .userId(userId)
+                    .subject("Your order has shipped")
+                    .body("Your order left our warehouse and is on its way.")
+                    .build();
+        }
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PriorityProperties priorityProperties = new PriorityProperties();
+        executor = new PriorityLaneExecutor("dispatch", priorityProperties, meterRegistry);
+        executor.initialize();
+
+        NotificationRepository notificationRepository = InMemoryRepositories.notifications();
+        NotificationPreferenceRepository preferenceRepository = InMemoryRepositories.preferences(preferences);
+        DispatchProperties dispatchProperties = new DispatchProperties();
+        dispatchProperties.setAsync(async);
+        RetryProperties retryProperties = new RetryProperties();
+        RateLimitProperties rateLimitProperties = new RateLimitProperties();
+        rateLimitProperties.setEnabled(false);
+
+        PreferenceCache preferenceCache = new PreferenceCache(new PreferenceCacheProperties(), meterRegistry, event -> {});
+        NotificationOutboxService outboxService = new NotificationOutboxService(notificationRepository, InMemoryRepositories.outbox(), dispatchProperties, priorityProperties);
+        NotificationRetryService retryService = new NotificationRetryService(notificationRepository, preferenceRepository, preferenceCache, retryProperties,
+                new NotificationCounters(null, null, new CounterProperties()));
+        NotificationMetrics metrics = new NotificationMetrics(meterRegistry);
+        TemplateRegistry templateRegistry = new TemplateRegistry(null, new TemplateProperties(), meterRegistry);
+        EmailChannelSender emailSender = new EmailChannelSender(templateRegistry, new SendRateLimiter(rateLimitProperties, meterRegistry),
+                new MailCircuitBreaker(new MailCircuitBreakerProperties(), meterRegistry), metrics, new NoOpMailSender());
+        channels = new ChannelRouter(List.of(emailSender), new ChannelProperties(), priorityProperties, new StandardEnvironment(), meterRegistry);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(notificationRepository, outboxService, retryService,
+                new RetryPolicy(retryProperties), channels, metrics, executor, dispatchProperties, retryProperties, meterRegistry);
+
+        notificationService = new NotificationService(notificationRepository, null, preferenceRepository, preferenceCache, templateRegistry,
+                new IdempotencyGuard(notificationRepository, new IdempotencyProperties(), meterRegistry), null, null, null, dispatcher,
+                outboxService, retryService, metrics, dispatchProperties, new HistoryProperties(), null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+        channels.destroy();
+    }
+
+    @Benchmark
+    public Notification sendNotification() {
+        NotificationRequest request = requests[next];
+        next = next + 1 == USERS ? 0 : next + 1;
+        return notificationService.sendNotification(request);
+    }
+
+    private static class NoOpMailSender extends JavaMailSenderImpl {
+        @Override
+        public void send(SimpleMailMessage... simpleMessages) {
+        }
+    }
+}
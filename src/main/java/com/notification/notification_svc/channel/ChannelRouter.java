@@ -0,0 +1,180 @@
+package com.notification.notification_svc.channel;
+
+import com.notification.notification_svc.config.ChannelProperties;
+import com.notification.notification_svc.config.PriorityProperties;
+import com.notification.notification_svc.dispatch.PriorityLaneExecutor;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationPriority;
+import com.notification.notification_svc.model.NotificationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Routes notifications to the {@link ChannelSender} of their {@link NotificationType}. Every channel
+ * sends on its own bounded pool with its own queue, so a slow channel, such as a webhook target that
+ * takes seconds to answer, only fills its own queue and never holds up the others. A batch that
+ * finds its channel's queue full is refused right away rather than waiting for the channel. Each
+ * channel queue has a lane per {@link NotificationPriority}, so HIGH priority batches overtake a
+ * queued campaign.
+ * <p>
+ * How long a notification waited between being accepted and its first send starting is recorded as
+ * {@code notification.queue.time}, per channel and priority.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties({ChannelProperties.class, PriorityProperties.class})
+public class ChannelRouter implements DisposableBean {
+    private final Map<NotificationType, Channel> channels = new EnumMap<>(NotificationType.class);
+
+    @Autowired
+    public ChannelRouter(List<ChannelSender> senders, ChannelProperties properties, PriorityProperties priorityProperties, Environment environment, MeterRegistry meterRegistry) {
+        for (ChannelSender sender : senders) {
+            NotificationType type = sender.getType();
+            ChannelProperties.Bulkhead bulkhead = properties.bulkhead(type);
+            String name = type.name().toLowerCase(Locale.ROOT);
+            PriorityLaneExecutor executor = executor(name, bulkhead, priorityProperties, environment, meterRegistry);
+
+            Timer[] queueTimes = new Timer[NotificationPriority.values().length];
+            for (NotificationPriority priority : NotificationPriority.values()) {
+                queueTimes[priority.ordinal()] = Timer.builder("notification.queue.time")
+                        .description("Time from accepting a notification to the start of its first send")
+                        .tag("channel", name)
+                        .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                        .publishPercentileHistogram()
+                        .serviceLevelObjectives(priorityProperties.getQueueTimeObjective())
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofHours(1))
+                        .register(meterRegistry);
+            }
+
+            Channel channel = new Channel(sender, executor, bulkhead.getTimeout(), meterRegistry.counter("notification.channel.rejected", "channel", name), queueTimes);
+            if (channels.put(type, channel) != null) {
+                throw new IllegalStateException("More than one sender for channel %s.".formatted(type));
+            }
+
+            Gauge.builder("notification.channel.queue.depth", executor, pool -> pool.getThreadPoolExecutor().getQueue().size())
+                    .description("Send batches waiting for a thread of the channel")
+                    .tag("channel", name)
+                    .register(meterRegistry);
+            Gauge.builder("notification.channel.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                    .description("Send batches the channel is currently sending")
+                    .tag("channel", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Sends the batch on its channel's pool, queued in the lane of {@code priority}. The future
+     * completes on that pool once the channel is done, or right away with
+     * {@link SendResult#notAttempted()} when that lane is full.
+     */
+    public CompletableFuture<SendResult> send(NotificationType type, NotificationPriority priority, List<Notification> notifications) {
+
+        Channel channel = channel(type);
+        CompletableFuture<SendResult> result = new CompletableFuture<>();
+        try {
+            channel.executor().execute(priority, () -> result.complete(send(channel, priority, notifications)));
+            return result;
+        } catch (TaskRejectedException e) {
+            channel.rejected().increment();
+            return CompletableFuture.completedFuture(SendResult.notAttempted());
+        }
+    }
+
+    public Duration getTimeout(NotificationType type) {
+
+        return channel(type).timeout();
+    }
+
+    /**
+     * Whether the channel's lane for {@code priority} is filled past {@code threshold}.
+     */
+    public boolean isBackpressured(NotificationType type, NotificationPriority priority, double threshold) {
+
+        return channel(type).executor().getLanes().isFilledPast(priority, threshold);
+    }
+
+    public boolean isAnyBackpressured(NotificationPriority priority, double threshold) {
+
+        return channels.values().stream().anyMatch(channel -> channel.executor().getLanes().isFilledPast(priority, threshold));
+    }
+
+    @Override
+    public void destroy() {
+
+        channels.values().forEach(channel -> channel.executor().shutdown());
+    }
+
+    private Channel channel(NotificationType type) {
+
+        Channel channel = channels.get(type);
+        if (channel == null) {
+            throw new IllegalStateException("No sender is registered for channel %s.".formatted(type));
+        }
+        return channel;
+    }
+
+    private static SendResult send(Channel channel, NotificationPriority priority, List<Notification> notifications) {
+
+        LocalDateTime now = LocalDateTime.now();
+        Timer queueTime = channel.queueTimes()[priority.ordinal()];
+        for (Notification notification : notifications) {
+            if (notification.getAttempts() == 0 && notification.getCreatedOn() != null) {
+                queueTime.record(Duration.between(notification.getCreatedOn(), now));
+            }
+        }
+
+        try {
+            return channel.sender().send(notifications);
+        } catch (RuntimeException e) {
+            log.warn("Channel {} failed to send {} notifications.", channel.sender().getType(), notifications.size(), e);
+            return SendResult.failed(notifications);
+        }
+    }
+
+    /**
+     * Same thread model as the dispatcher pool: virtual threads when they are enabled, in which case
+     * the pool size still bounds how many batches of the channel are in flight.
+     */
+    private static PriorityLaneExecutor executor(String name, ChannelProperties.Bulkhead bulkhead, PriorityProperties priorityProperties, Environment environment, MeterRegistry meterRegistry) {
+
+        PriorityLaneExecutor executor = new PriorityLaneExecutor(name, priorityProperties, meterRegistry);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor(name + "-channel-").getVirtualThreadFactory());
+        } else {
+            executor.setThreadNamePrefix(name + "-channel-");
+        }
+        executor.setCorePoolSize(bulkhead.getPoolSize());
+        executor.setMaxPoolSize(bulkhead.getPoolSize());
+        executor.setQueueCapacity(bulkhead.getQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    private record Channel(ChannelSender sender, PriorityLaneExecutor executor, Duration timeout, Counter rejected, Timer[] queueTimes) {
+    }
+}
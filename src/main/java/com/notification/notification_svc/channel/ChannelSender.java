@@ -0,0 +1,23 @@
+package com.notification.notification_svc.channel;
+
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationType;
+
+import java.util.List;
+
+/**
+ * Delivers notifications over one channel. Implementations are Spring beans; {@link ChannelRouter}
+ * picks them up and runs each on its own bounded pool, so adding a channel is adding a bean for a
+ * new {@link NotificationType}.
+ */
+public interface ChannelSender {
+
+    NotificationType getType();
+
+    /**
+     * Delivers the batch, all of {@link #getType()}, and reports which notifications were not
+     * delivered. Delivery failures are reported in the result rather than thrown. Status
+     * bookkeeping and persistence are left to the caller.
+     */
+    SendResult send(List<Notification> notifications);
+}
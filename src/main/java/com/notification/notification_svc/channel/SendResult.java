@@ -0,0 +1,32 @@
+package com.notification.notification_svc.channel;
+
+import com.notification.notification_svc.model.Notification;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Outcome of one {@link ChannelSender#send(java.util.List)} call.
+ *
+ * @param attempted {@code false} when the channel refused the batch without trying, e.g. because
+ *                  its circuit breaker is open or its queue is full; no attempt is counted then
+ * @param failed    notifications of the batch that were not delivered
+ */
+public record SendResult(boolean attempted, Set<Notification> failed) {
+
+    public static SendResult notAttempted() {
+        return new SendResult(false, Set.of());
+    }
+
+    public static SendResult delivered() {
+        return new SendResult(true, Set.of());
+    }
+
+    public static SendResult failed(Collection<Notification> failed) {
+        return new SendResult(true, Set.copyOf(failed));
+    }
+
+    public boolean isFailed(Notification notification) {
+        return failed.contains(notification);
+    }
+}
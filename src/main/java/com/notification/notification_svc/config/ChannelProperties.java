@@ -0,0 +1,48 @@
+package com.notification.notification_svc.config;
+
+import com.notification.notification_svc.model.NotificationType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.channel")
+public class ChannelProperties {
+
+    private Bulkhead email = new Bulkhead(8, 10_000, Duration.ofSeconds(30));
+
+    private Bulkhead webhook = new Bulkhead(4, 1_000, Duration.ofSeconds(10));
+
+    public Bulkhead bulkhead(NotificationType type) {
+        return switch (type) {
+            case EMAIL -> email;
+            case WEBHOOK -> webhook;
+        };
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bulkhead {
+
+        /**
+         * Threads sending over this channel, and so the most batches in flight on it at once.
+         */
+        private int poolSize;
+
+        /**
+         * Batches waiting for a thread of this channel. Once full, further batches are refused and
+         * retried after the backoff instead of waiting for the channel.
+         */
+        private int queueCapacity;
+
+        /**
+         * How long a synchronous send waits for the channel before it answers with the notification
+         * still PENDING. The webhook channel also uses it as its request timeout.
+         */
+        private Duration timeout;
+    }
+}
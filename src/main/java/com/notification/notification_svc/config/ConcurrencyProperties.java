@@ -0,0 +1,22 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.concurrency")
+public class ConcurrencyProperties {
+
+    /**
+     * Concurrent JDBC connections handed out on virtual threads. Zero uses the maximum pool size of
+     * the Hikari pool.
+     */
+    private int dbPermits = 0;
+
+    /**
+     * How long a caller waits for a JDBC permit before the connection request fails.
+     */
+    private Duration dbAcquireTimeout = Duration.ofSeconds(60);
+}
@@ -0,0 +1,26 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "notification.counters")
+public class CounterProperties {
+
+    /**
+     * Independently locked parts of the in-memory counter changes; 0 means one per available
+     * processor.
+     */
+    private int shards = 0;
+
+    /**
+     * Counter changes written per transaction when they are flushed.
+     */
+    private int flushBatchSize = 500;
+
+    /**
+     * Counts the stored notifications into the counters on startup, when there are no counters
+     * yet, so they do not start at zero on an existing database.
+     */
+    private boolean backfillOnStartup = true;
+}
@@ -0,0 +1,35 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.digest")
+public class DigestProperties {
+
+    /**
+     * How long the notifications of a user who opted into digests are collected, counted from the
+     * first one, before they are sent as one message.
+     */
+    private Duration window = Duration.ofSeconds(30);
+
+    /**
+     * A user's buffer is sent right away once it holds this many notifications.
+     */
+    private int maxSize = 50;
+
+    /**
+     * Independently locked parts of the in-memory buffer; 0 means one per available processor.
+     */
+    private int shards = 0;
+
+    /**
+     * Buffered rows older than this, which no instance is collecting any more, are picked up
+     * again by the recovery loop.
+     */
+    private Duration staleAfter = Duration.ofMinutes(2);
+
+    private int recoveryBatchSize = 1_000;
+}
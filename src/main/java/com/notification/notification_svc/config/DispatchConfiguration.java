@@ -0,0 +1,45 @@
+package com.notification.notification_svc.config;
+
+import com.notification.notification_svc.dispatch.PriorityLaneExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties({DispatchProperties.class, PriorityProperties.class})
+public class DispatchConfiguration {
+
+    /**
+     * With {@code spring.threads.virtual.enabled} on Java 21, dispatch tasks run on virtual threads
+     * and the pool only bounds how many batches are in flight; concurrent SMTP sends are limited by
+     * the mail pool's connection semaphore instead of by the number of threads. Queued batches wait
+     * in one lane per priority, each holding up to {@code queueCapacity} batches.
+     */
+    @Bean
+    public PriorityLaneExecutor mailDispatchExecutor(DispatchProperties properties, PriorityProperties priorityProperties, Environment environment, MeterRegistry meterRegistry) {
+
+        PriorityLaneExecutor executor = new PriorityLaneExecutor("dispatch", priorityProperties, meterRegistry);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("mail-dispatch-").getVirtualThreadFactory());
+            executor.setCorePoolSize(properties.getVirtualPoolSize());
+            executor.setMaxPoolSize(properties.getVirtualPoolSize());
+        } else {
+            executor.setThreadNamePrefix("mail-dispatch-");
+            executor.setCorePoolSize(properties.getPoolSize());
+            executor.setMaxPoolSize(properties.getPoolSize());
+        }
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
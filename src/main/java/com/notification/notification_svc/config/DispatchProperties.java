@@ -0,0 +1,62 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.dispatch")
+public class DispatchProperties {
+
+    /**
+     * When enabled, notifications are persisted as PENDING together with an outbox entry and sent
+     * by the dispatcher pool instead of on the request thread.
+     */
+    private boolean async = false;
+
+    private int poolSize = 8;
+
+    /**
+     * Dispatch tasks in flight when running on virtual threads. Each one mostly waits for an SMTP
+     * connection, so this can be far larger than {@code poolSize}.
+     */
+    private int virtualPoolSize = 1_000;
+
+    private int queueCapacity = 10_000;
+
+    private int outboxBatchSize = 200;
+
+    /**
+     * Fill ratio of the dispatch queue from which asynchronous ingestion is answered with 429.
+     */
+    private double backpressureThreshold = 0.8;
+
+    /**
+     * Sent as {@code Retry-After} with the 429.
+     */
+    private Duration backpressureRetryAfter = Duration.ofSeconds(5);
+
+    /**
+     * Messages handed to the mail sender in one call, and so sent over one SMTP connection.
+     */
+    private int sendBatchSize = 20;
+
+    /**
+     * Bulk requests are resolved and persisted in chunks of this size, one transaction each.
+     */
+    private int bulkChunkSize = 1_000;
+
+    /**
+     * How long a claimed outbox entry stays invisible to other instances. An entry whose claimer
+     * dies before completing it is sent again after this.
+     */
+    private Duration outboxLease = Duration.ofMinutes(5);
+
+    /**
+     * Claimed outbox entries this instance holds at most before they are sent. Keep it below what
+     * the channels can send within {@code outboxLease}, e.g. the global rate limit times the lease,
+     * so no lease runs out while its entry is still queued.
+     */
+    private int outboxMaxInFlight = 10_000;
+}
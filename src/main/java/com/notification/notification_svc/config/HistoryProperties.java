@@ -0,0 +1,19 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "notification.history")
+public class HistoryProperties {
+
+    private int defaultPageSize = 50;
+
+    private int maxPageSize = 500;
+
+    /**
+     * Clearing a history soft-deletes at most this many rows per UPDATE, so row locks are held
+     * only briefly even for very large histories.
+     */
+    private int clearChunkSize = 5_000;
+}
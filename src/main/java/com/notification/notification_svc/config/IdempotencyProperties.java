@@ -0,0 +1,25 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Idempotency keys remembered in memory; older keys are still caught by the unique constraint
+     * in the database.
+     */
+    private long windowMaximumSize = 100_000;
+
+    private Duration windowTtl = Duration.ofHours(24);
+
+    /**
+     * How long a key is recognised for sure. Retention leaves notifications with a key in the
+     * primary table at least this long, cleared or not, since the archive has no unique constraint.
+     */
+    private Duration keyRetention = Duration.ofDays(30);
+}
@@ -0,0 +1,59 @@
+package com.notification.notification_svc.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+@Configuration
+@EnableConfigurationProperties(KafkaIngestionProperties.class)
+@ConditionalOnProperty(prefix = "notification.kafka.ingestion", name = "enabled", havingValue = "true")
+public class KafkaIngestionConfiguration {
+
+    @Bean
+    public NewTopic notificationRequestTopic(KafkaIngestionProperties properties) {
+
+        return TopicBuilder.name(properties.getTopic())
+                .partitions(properties.getPartitions())
+                .replicas(properties.getReplicationFactor())
+                .build();
+    }
+
+    @Bean
+    public NewTopic notificationRequestDeadLetterTopic(KafkaIngestionProperties properties) {
+
+        return TopicBuilder.name(properties.getDeadLetterTopic())
+                .partitions(properties.getPartitions())
+                .replicas(properties.getReplicationFactor())
+                .build();
+    }
+
+    /**
+     * A batch that fails is retried as a whole, {@code retryAttempts} times. Once those retries are
+     * used up, its records are published to the dead-letter topic and their offsets committed, so
+     * they are neither lost nor block the partition.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> notificationRequestListenerFactory(ConsumerFactory<String, String> consumerFactory, KafkaTemplate<?, ?> kafkaTemplate, KafkaIngestionProperties properties) {
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(properties.getEffectiveConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(
+                new DeadLetterPublishingRecoverer(kafkaTemplate, (record, e) -> new TopicPartition(properties.getDeadLetterTopic(), record.partition())),
+                new FixedBackOff(properties.getRetryInterval().toMillis(), properties.getRetryAttempts())));
+        return factory;
+    }
+}
@@ -0,0 +1,46 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.kafka.ingestion")
+public class KafkaIngestionProperties {
+
+    private boolean enabled = false;
+
+    private String topic = "notification-requests";
+
+    private String groupId = "notification-svc";
+
+    /**
+     * Partitions of the ingestion topic. Each partition is served by its own consumer unless
+     * {@link #concurrency} is set lower.
+     */
+    private int partitions = 12;
+
+    private short replicationFactor = 1;
+
+    private Integer concurrency;
+
+    /**
+     * Pause between retries of a batch whose requests could not be stored.
+     */
+    private Duration retryInterval = Duration.ofSeconds(1);
+
+    /**
+     * Retries of such a batch before its records are published to {@link #deadLetterTopic}.
+     */
+    private int retryAttempts = 9;
+
+    /**
+     * Gets the records of batches that kept failing, each on the partition it was read from.
+     */
+    private String deadLetterTopic = "notification-requests-dlt";
+
+    public int getEffectiveConcurrency() {
+        return concurrency == null ? partitions : Math.min(concurrency, partitions);
+    }
+}
@@ -0,0 +1,43 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.mail.circuit-breaker")
+public class MailCircuitBreakerProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Number of most recent send calls the failure and slow-call rates are computed over.
+     */
+    private int windowSize = 50;
+
+    /**
+     * Calls the window needs before the breaker may open.
+     */
+    private int minimumCalls = 10;
+
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * A send call taking at least this long counts as slow, even when it succeeds.
+     */
+    private Duration slowCallDuration = Duration.ofSeconds(10);
+
+    private double slowCallRateThreshold = 0.8;
+
+    /**
+     * How long the breaker stays open before it lets probe calls through.
+     */
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    /**
+     * Probe calls allowed while half-open; the breaker closes when their failure and slow-call
+     * rates are below the thresholds and opens again otherwise.
+     */
+    private int halfOpenProbes = 3;
+}
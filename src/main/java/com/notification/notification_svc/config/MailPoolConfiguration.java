@@ -0,0 +1,44 @@
+package com.notification.notification_svc.config;
+
+import com.notification.notification_svc.mail.PooledJavaMailSender;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Properties;
+
+@Configuration
+@EnableConfigurationProperties({MailProperties.class, MailPoolProperties.class})
+@ConditionalOnProperty(prefix = "notification.mail.pool", name = "enabled", havingValue = "true")
+public class MailPoolConfiguration {
+
+    @Bean
+    public PooledJavaMailSender mailSender(MailProperties mailProperties, MailPoolProperties poolProperties, MeterRegistry meterRegistry) {
+
+        PooledJavaMailSender sender = new PooledJavaMailSender(poolProperties);
+        sender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            sender.setPort(mailProperties.getPort());
+        }
+        sender.setUsername(mailProperties.getUsername());
+        sender.setPassword(mailProperties.getPassword());
+        sender.setProtocol(mailProperties.getProtocol());
+        if (mailProperties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+        }
+        if (!mailProperties.getProperties().isEmpty()) {
+            Properties properties = new Properties();
+            properties.putAll(mailProperties.getProperties());
+            sender.setJavaMailProperties(properties);
+        }
+
+        Gauge.builder("notification.mail.pool.leased", sender, PooledJavaMailSender::getLeasedConnections).register(meterRegistry);
+        Gauge.builder("notification.mail.pool.idle", sender, PooledJavaMailSender::getIdleConnections).register(meterRegistry);
+        Gauge.builder("notification.mail.pool.max", poolProperties, MailPoolProperties::getMaxConnections).register(meterRegistry);
+        return sender;
+    }
+}
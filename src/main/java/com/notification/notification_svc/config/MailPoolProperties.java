@@ -0,0 +1,32 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.mail.pool")
+public class MailPoolProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Upper bound of simultaneously open SMTP connections, and therefore of concurrent sends.
+     */
+    private int maxConnections = 4;
+
+    /**
+     * A connection is closed and replaced after sending this many messages.
+     */
+    private int maxMessagesPerConnection = 100;
+
+    private Duration maxConnectionAge = Duration.ofMinutes(5);
+
+    /**
+     * Idle connections older than this are checked with a NOOP before they are handed out.
+     */
+    private Duration validateAfterIdle = Duration.ofSeconds(10);
+
+    private Duration borrowTimeout = Duration.ofSeconds(30);
+}
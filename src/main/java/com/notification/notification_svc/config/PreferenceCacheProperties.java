@@ -0,0 +1,32 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.preference-cache")
+public class PreferenceCacheProperties {
+
+    private long maximumSize = 100_000;
+
+    /**
+     * Safety net only: writes through this service update the cache directly, the TTL bounds how
+     * long a change made behind its back (e.g. directly in the database) can go unnoticed.
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+
+    private Invalidation invalidation = new Invalidation();
+
+    @Data
+    public static class Invalidation {
+
+        /**
+         * Broadcasts preference changes over Kafka so every replica evicts its cached copy.
+         */
+        private boolean enabled = false;
+
+        private String topic = "notification-preference-invalidations";
+    }
+}
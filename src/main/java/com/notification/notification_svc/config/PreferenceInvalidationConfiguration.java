@@ -0,0 +1,20 @@
+package com.notification.notification_svc.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+@ConditionalOnProperty(prefix = "notification.preference-cache.invalidation", name = "enabled", havingValue = "true")
+public class PreferenceInvalidationConfiguration {
+
+    @Bean
+    public NewTopic preferenceInvalidationTopic(PreferenceCacheProperties properties) {
+
+        return TopicBuilder.name(properties.getInvalidation().getTopic())
+                .partitions(1)
+                .build();
+    }
+}
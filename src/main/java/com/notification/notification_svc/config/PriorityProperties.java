@@ -0,0 +1,23 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.priority")
+public class PriorityProperties {
+
+    /**
+     * Share of the dispatch capacity LOW priority work still gets while HIGH priority work is
+     * waiting, both for outbox claims and for the order in which queued batches are taken.
+     */
+    private double lowMinShare = 0.1;
+
+    /**
+     * Queue time HIGH priority notifications should stay under. Published as a histogram bucket of
+     * the queue time meters, so the share of notifications within it can be read off directly.
+     */
+    private Duration queueTimeObjective = Duration.ofSeconds(1);
+}
@@ -0,0 +1,36 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "notification.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Messages per second across all recipients.
+     */
+    private double globalPerSecond = 100;
+
+    /**
+     * Messages that may go out back to back before the global rate applies.
+     */
+    private int globalBurst = 100;
+
+    /**
+     * Messages per second to one recipient domain, unless overridden in {@code domains}.
+     */
+    private double domainPerSecond = 20;
+
+    private int domainBurst = 20;
+
+    /**
+     * Per-domain overrides of {@code domainPerSecond}, e.g. {@code domains[gmail.com]=50}.
+     */
+    private Map<String, Double> domains = new HashMap<>();
+}
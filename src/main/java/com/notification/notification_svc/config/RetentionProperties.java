@@ -0,0 +1,27 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.retention")
+public class RetentionProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * SUCCEEDED and ABANDONED notifications older than this are moved to the archive. Soft-deleted
+     * ones are moved regardless of age.
+     */
+    private Duration hotWindow = Duration.ofDays(90);
+
+    /**
+     * Rows moved per archival step. One step runs every {@code chunkInterval}, so together they
+     * cap archival at {@code chunkSize / chunkInterval} rows per second.
+     */
+    private int chunkSize = 500;
+
+    private Duration chunkInterval = Duration.ofSeconds(1);
+}
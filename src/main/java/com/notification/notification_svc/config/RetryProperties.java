@@ -0,0 +1,35 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.retry")
+public class RetryProperties {
+
+    /**
+     * Delivery attempts, including the first one, after which a notification is ABANDONED.
+     */
+    private int maxAttempts = 5;
+
+    private Duration initialBackoff = Duration.ofSeconds(30);
+
+    private double multiplier = 2.0;
+
+    private Duration maxBackoff = Duration.ofHours(1);
+
+    /**
+     * Each backoff is scaled by a random factor in {@code [1 - jitter, 1 + jitter]} so failures
+     * that happened together are not retried together.
+     */
+    private double jitter = 0.2;
+
+    private int batchSize = 200;
+
+    /**
+     * How long a claimed retry stays invisible to other instances.
+     */
+    private Duration lease = Duration.ofMinutes(5);
+}
@@ -0,0 +1,50 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.schedule")
+public class ScheduleProperties {
+
+    /**
+     * Resolution of the in-memory timing wheel; a scheduled notification is released at most this
+     * much after its {@code sendAt}.
+     */
+    private Duration tick = Duration.ofMillis(100);
+
+    /**
+     * How far ahead scheduled notifications are loaded from the database into the wheel.
+     */
+    private Duration horizon = Duration.ofMinutes(10);
+
+    /**
+     * Loading stops once the wheel holds this many notifications; the rest are loaded as the
+     * earlier ones are released.
+     */
+    private int capacity = 100_000;
+
+    /**
+     * Rows read per query when loading the wheel, and notifications released per transaction.
+     */
+    private int batchSize = 1_000;
+
+    /**
+     * When more notifications than this are due in the same second, the ones beyond it are spread
+     * over {@code smearWindow} after that second to flatten the peak.
+     */
+    private int smearThreshold = 500;
+
+    /**
+     * {@link Duration#ZERO} releases every notification at its exact time.
+     */
+    private Duration smearWindow = Duration.ofSeconds(30);
+
+    /**
+     * Scheduled rows due longer ago than this, which no instance has released, are loaded again
+     * by the recovery loop.
+     */
+    private Duration staleAfter = Duration.ofMinutes(2);
+}
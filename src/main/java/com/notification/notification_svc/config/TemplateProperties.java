@@ -0,0 +1,19 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.template")
+public class TemplateProperties {
+
+    private long cacheMaximumSize = 10_000;
+
+    /**
+     * Templates saved through this instance are recompiled right away; the TTL bounds how long
+     * other instances keep sending with the previous version.
+     */
+    private Duration cacheTtl = Duration.ofMinutes(5);
+}
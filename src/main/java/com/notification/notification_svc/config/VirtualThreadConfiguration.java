@@ -0,0 +1,49 @@
+package com.notification.notification_svc.config;
+
+import com.notification.notification_svc.jdbc.PermitLimitedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Active with {@code spring.threads.virtual.enabled=true} on Java 21, where Spring Boot already
+ * runs Tomcat requests and scheduled tasks on virtual threads. Thousands of requests can then be
+ * in flight at once, so the number of JDBC connections they compete for is bounded explicitly by
+ * a fair semaphore in front of the pool rather than by the size of the servlet thread pool.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public static BeanPostProcessor permitLimitedDataSourcePostProcessor(Environment environment) {
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+                if (!(bean instanceof DataSource dataSource) || bean instanceof PermitLimitedDataSource) {
+                    return bean;
+                }
+
+                ConcurrencyProperties properties = Binder.get(environment).bindOrCreate("notification.concurrency", ConcurrencyProperties.class);
+                int permits = properties.getDbPermits();
+                if (permits <= 0 && dataSource instanceof HikariDataSource hikari) {
+                    permits = hikari.getMaximumPoolSize();
+                }
+                if (permits <= 0) {
+                    return bean;
+                }
+
+                return new PermitLimitedDataSource(dataSource, permits, properties.getDbAcquireTimeout());
+            }
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package com.notification.notification_svc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification.webhook")
+public class WebhookProperties {
+
+    /**
+     * Notifications for the same endpoint posted in one request.
+     */
+    private int maxBatchSize = 100;
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,14 @@
+package com.notification.notification_svc.dispatch;
+
+import com.notification.notification_svc.model.NotificationPriority;
+
+/**
+ * A task that waits in the {@link PriorityLaneQueue} lane of its priority.
+ */
+public record LaneTask(NotificationPriority priority, Runnable task) implements Runnable {
+
+    @Override
+    public void run() {
+        task.run();
+    }
+}
@@ -0,0 +1,40 @@
+package com.notification.notification_svc.dispatch;
+
+import com.notification.notification_svc.config.PriorityProperties;
+import com.notification.notification_svc.model.NotificationPriority;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool whose queue is a {@link PriorityLaneQueue}, so queued HIGH priority tasks overtake LOW
+ * ones. {@code queueCapacity} applies to each lane.
+ */
+public class PriorityLaneExecutor extends ThreadPoolTaskExecutor {
+    private final String name;
+    private final PriorityProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public PriorityLaneExecutor(String name, PriorityProperties properties, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void execute(NotificationPriority priority, Runnable task) {
+
+        execute(new LaneTask(priority, task));
+    }
+
+    public PriorityLaneQueue getLanes() {
+
+        return (PriorityLaneQueue) getThreadPoolExecutor().getQueue();
+    }
+
+    @Override
+    protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+
+        return new PriorityLaneQueue(name, queueCapacity, properties.getLowMinShare(), properties.getQueueTimeObjective(), meterRegistry);
+    }
+}
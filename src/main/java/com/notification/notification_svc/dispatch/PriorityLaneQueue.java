@@ -0,0 +1,352 @@
+package com.notification.notification_svc.dispatch;
+
+import com.notification.notification_svc.model.NotificationPriority;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Work queue of a pool with one bounded lane per {@link NotificationPriority}. Tasks are taken
+ * from the HIGH lane first, except that LOW is guaranteed at least {@code lowMinShare} of the
+ * takes while both lanes hold work: after as many HIGH takes in a row as that share allows, the
+ * next task comes from LOW. With a share of 0.1 that is one LOW task after every nine HIGH ones.
+ * Each lane has its own capacity, so a campaign that fills the LOW lane never causes a HIGH task
+ * to be rejected.
+ * <p>
+ * Tasks other than {@link LaneTask} go to the HIGH lane. The time every task spent in its lane is
+ * recorded as {@code notification.lane.queue.time}.
+ */
+public class PriorityLaneQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+    private static final NotificationPriority[] LANES = NotificationPriority.values();
+
+    private final int laneCapacity;
+    private final int highTakesPerLowTake;
+    private final List<ArrayDeque<Queued>> lanes = new ArrayList<>(LANES.length);
+    private final Timer[] queueTimes = new Timer[LANES.length];
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    // One per lane: a slot freed in one lane must wake a producer of that lane, not of the other.
+    private final Condition[] notFull = new Condition[LANES.length];
+    private int count;
+    private int highTakesInARow;
+
+    public PriorityLaneQueue(String name, int laneCapacity, double lowMinShare, Duration queueTimeObjective, MeterRegistry meterRegistry) {
+        if (laneCapacity <= 0) {
+            throw new IllegalArgumentException("Lane capacity must be positive.");
+        }
+        if (lowMinShare < 0 || lowMinShare >= 1) {
+            throw new IllegalArgumentException("Minimum share of the LOW lane must be at least 0 and below 1.");
+        }
+        this.laneCapacity = laneCapacity;
+        // Rounded down, so LOW gets at least its share.
+        this.highTakesPerLowTake = lowMinShare == 0 ? Integer.MAX_VALUE : (int) Math.max(1, Math.floor((1 - lowMinShare) / lowMinShare));
+        for (NotificationPriority lane : LANES) {
+            lanes.add(new ArrayDeque<>());
+            notFull[lane.ordinal()] = lock.newCondition();
+            queueTimes[lane.ordinal()] = Timer.builder("notification.lane.queue.time")
+                    .description("Time a task waited in its priority lane for a thread")
+                    .tag("queue", name)
+                    .tag("lane", lane.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .serviceLevelObjectives(queueTimeObjective)
+                    .minimumExpectedValue(Duration.ofNanos(10_000))
+                    .maximumExpectedValue(Duration.ofMinutes(5))
+                    .register(meterRegistry);
+        }
+    }
+
+    public static NotificationPriority laneOf(Runnable task) {
+
+        return task instanceof LaneTask laneTask ? laneTask.priority() : NotificationPriority.HIGH;
+    }
+
+    public int size(NotificationPriority lane) {
+
+        lock.lock();
+        try {
+            return lanes.get(lane.ordinal()).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int remainingCapacity(NotificationPriority lane) {
+
+        return laneCapacity - size(lane);
+    }
+
+    /**
+     * Whether the lane is filled past {@code threshold} of its capacity.
+     */
+    public boolean isFilledPast(NotificationPriority lane, double threshold) {
+
+        return size(lane) >= laneCapacity * threshold;
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+
+        lock.lock();
+        try {
+            ArrayDeque<Queued> lane = lanes.get(laneOf(task).ordinal());
+            if (lane.size() >= laneCapacity) {
+                return false;
+            }
+            enqueue(lane, task);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable task) throws InterruptedException {
+
+        lock.lockInterruptibly();
+        try {
+            int laneIndex = laneOf(task).ordinal();
+            ArrayDeque<Queued> lane = lanes.get(laneIndex);
+            while (lane.size() >= laneCapacity) {
+                notFull[laneIndex].await();
+            }
+            enqueue(lane, task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            int laneIndex = laneOf(task).ordinal();
+            ArrayDeque<Queued> lane = lanes.get(laneIndex);
+            while (lane.size() >= laneCapacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull[laneIndex].awaitNanos(nanos);
+            }
+            enqueue(lane, task);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+
+        lock.lock();
+        try {
+            return count == 0 ? null : lanes.get(nextLane().ordinal()).peekFirst().task();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+
+        lock.lock();
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, (long) laneCapacity * LANES.length - count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object task) {
+
+        lock.lock();
+        try {
+            for (int laneIndex = 0; laneIndex < LANES.length; laneIndex++) {
+                Iterator<Queued> queued = lanes.get(laneIndex).iterator();
+                while (queued.hasNext()) {
+                    if (queued.next().task() == task) {
+                        queued.remove();
+                        count--;
+                        notFull[laneIndex].signal();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> target) {
+
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> target, int maxElements) {
+
+        if (target == this) {
+            throw new IllegalArgumentException("Cannot drain a queue into itself.");
+        }
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && count > 0) {
+                target.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Iterates over a snapshot, HIGH lane first; removing through the iterator removes the task
+     * from the queue.
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+
+        List<Runnable> snapshot;
+        lock.lock();
+        try {
+            snapshot = new ArrayList<>(count);
+            lanes.forEach(lane -> lane.forEach(queued -> snapshot.add(queued.task())));
+        } finally {
+            lock.unlock();
+        }
+
+        return new Iterator<>() {
+            private int next;
+            private Runnable last;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.size();
+            }
+
+            @Override
+            public Runnable next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = snapshot.get(next++);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                PriorityLaneQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    private void enqueue(ArrayDeque<Queued> lane, Runnable task) {
+
+        lane.addLast(new Queued(task, System.nanoTime()));
+        count++;
+        notEmpty.signal();
+    }
+
+    private Runnable dequeue() {
+
+        NotificationPriority lane = nextLane();
+        if (lane == NotificationPriority.LOW) {
+            highTakesInARow = 0;
+        } else if (!lanes.get(NotificationPriority.LOW.ordinal()).isEmpty()) {
+            highTakesInARow++;
+        }
+
+        Queued queued = lanes.get(lane.ordinal()).pollFirst();
+        count--;
+        notFull[lane.ordinal()].signal();
+        queueTimes[lane.ordinal()].record(System.nanoTime() - queued.enqueuedAt(), TimeUnit.NANOSECONDS);
+        return queued.task();
+    }
+
+    private NotificationPriority nextLane() {
+
+        boolean highWaiting = !lanes.get(NotificationPriority.HIGH.ordinal()).isEmpty();
+        boolean lowWaiting = !lanes.get(NotificationPriority.LOW.ordinal()).isEmpty();
+        return lowWaiting && (!highWaiting || highTakesInARow >= highTakesPerLowTake) ? NotificationPriority.LOW : NotificationPriority.HIGH;
+    }
+
+    private record Queued(Runnable task, long enqueuedAt) {
+    }
+}
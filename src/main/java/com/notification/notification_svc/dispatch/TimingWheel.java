@@ -0,0 +1,153 @@
+package com.notification.notification_svc.dispatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel: {@code levels} wheels of 64 slots each, where a slot of level
+ * {@code n} spans 64<sup>n</sup> ticks. A key is put into the lowest level whose range covers its
+ * deadline, and whenever a level completes a turn the next slot of the level above is cascaded
+ * down. Scheduling and expiring a key are O(1); a key is moved down at most once per level.
+ * Deadlines beyond the top level wait in its furthest slot and are placed again when it cascades.
+ * <p>
+ * Time is passed in as epoch milliseconds, so the wheel does not read a clock itself. Not thread
+ * safe; callers guard it with a lock.
+ */
+public class TimingWheel<K> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int levels;
+    private final List<List<Timeout<K>>> slots;
+    private final Map<K, Timeout<K>> scheduled = new HashMap<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int levels, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive.");
+        }
+        if (levels <= 0 || levels * SLOT_BITS >= Long.SIZE - 1) {
+            throw new IllegalArgumentException("Levels must be between 1 and %d.".formatted((Long.SIZE - 2) / SLOT_BITS));
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.levels = levels;
+        this.slots = new ArrayList<>(levels * SLOTS);
+        for (int i = 0; i < levels * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules the key to expire on the first tick at or after {@code deadlineMillis}, or on the
+     * next tick when that has passed already. Returns {@code false}, leaving the existing deadline
+     * as it is, when the key is scheduled already.
+     */
+    public boolean schedule(K key, long deadlineMillis) {
+
+        if (scheduled.containsKey(key)) {
+            return false;
+        }
+        long deadlineTick = Math.max(currentTick + 1, -Math.floorDiv(startMillis - deadlineMillis, tickMillis));
+        Timeout<K> timeout = new Timeout<>(key, deadlineTick);
+        scheduled.put(key, timeout);
+        place(timeout);
+        return true;
+    }
+
+    public boolean contains(K key) {
+
+        return scheduled.containsKey(key);
+    }
+
+    public int size() {
+
+        return scheduled.size();
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and returns the keys that expired on the way,
+     * earliest first.
+     */
+    public List<K> advanceTo(long nowMillis) {
+
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        List<K> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            if (scheduled.isEmpty()) {
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+            cascade();
+            expire(expired);
+        }
+        return expired;
+    }
+
+    private void place(Timeout<K> timeout) {
+
+        long delta = timeout.deadlineTick() - currentTick;
+        for (int level = 0; level < levels; level++) {
+            int shift = SLOT_BITS * level;
+            if (delta < 1L << (shift + SLOT_BITS)) {
+                slot(level, timeout.deadlineTick() >> shift).add(timeout);
+                return;
+            }
+        }
+
+        int top = levels - 1;
+        long furthestTick = currentTick + (1L << (SLOT_BITS * levels)) - 1;
+        slot(top, furthestTick >> (SLOT_BITS * top)).add(timeout);
+    }
+
+    /**
+     * Once a level completed a turn, the current slot of the level above holds the keys due within
+     * its next turn; they are placed again, which puts them into lower levels. Higher levels go
+     * first, so keys they hand down are cascaded further within the same tick.
+     */
+    private void cascade() {
+
+        int level = 1;
+        while (level < levels && (currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+            level++;
+        }
+        for (int cascaded = level - 1; cascaded >= 1; cascaded--) {
+            List<Timeout<K>> slot = slot(cascaded, currentTick >> (SLOT_BITS * cascaded));
+            List<Timeout<K>> timeouts = new ArrayList<>(slot);
+            slot.clear();
+            timeouts.forEach(this::place);
+        }
+    }
+
+    private void expire(List<K> expired) {
+
+        List<Timeout<K>> slot = slot(0, currentTick);
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Timeout<K>> timeouts = new ArrayList<>(slot);
+        slot.clear();
+        for (Timeout<K> timeout : timeouts) {
+            if (timeout.deadlineTick() <= currentTick) {
+                scheduled.remove(timeout.key());
+                expired.add(timeout.key());
+            } else {
+                place(timeout);
+            }
+        }
+    }
+
+    private List<Timeout<K>> slot(int level, long index) {
+
+        return slots.get(level * SLOTS + (int) (index & SLOT_MASK));
+    }
+
+    private record Timeout<K>(K key, long deadlineTick) {
+    }
+}
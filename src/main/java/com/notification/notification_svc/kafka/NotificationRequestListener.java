@@ -0,0 +1,78 @@
+package com.notification.notification_svc.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.notification_svc.config.KafkaIngestionConfiguration;
+import com.notification.notification_svc.service.BulkAcceptResult;
+import com.notification.notification_svc.service.IdempotencyGuard;
+import com.notification.notification_svc.service.NotificationService;
+import com.notification.notification_svc.web.dto.NotificationRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "notification.kafka.ingestion", name = "enabled", havingValue = "true")
+public class NotificationRequestListener {
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public NotificationRequestListener(NotificationService notificationService, ObjectMapper objectMapper) {
+        this.notificationService = notificationService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Accepts a whole poll worth of requests into the outbox and commits the offsets only once
+     * they are persisted. Persistence happens one chunk per transaction, so a failing batch may
+     * have been stored in part already. Each request without an idempotency key therefore gets one
+     * derived from its record's position. Retrying the batch then replays the stored part
+     * instead of storing it twice. A batch that still fails after the error handler's retries is
+     * published to the dead-letter topic, see {@link KafkaIngestionConfiguration}.
+     */
+    @KafkaListener(topics = "${notification.kafka.ingestion.topic}", groupId = "${notification.kafka.ingestion.group-id}", containerFactory = "notificationRequestListenerFactory")
+    public void onRequests(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+
+        List<NotificationRequest> requests = new ArrayList<>(records.size());
+
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                NotificationRequest request = objectMapper.readValue(record.value(), NotificationRequest.class);
+                if (request.getIdempotencyKey() == null) {
+                    request.setIdempotencyKey(idempotencyKey(record));
+                }
+                requests.add(request);
+            } catch (JsonProcessingException e) {
+                log.warn("Dropping malformed notification request at {}-{}@{}.", record.topic(), record.partition(), record.offset());
+            }
+        }
+
+        BulkAcceptResult result = notificationService.acceptNotifications(requests);
+        if (!result.getSkipped().isEmpty()) {
+            log.info("Skipped {} notification requests for unknown or disabled users.", result.getSkipped().size());
+        }
+
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * {@code kafka:<topic>-<partition>@<offset>}, or a name-based UUID of it for topic names too
+     * long for a key.
+     */
+    static String idempotencyKey(ConsumerRecord<?, ?> record) {
+
+        String key = "kafka:%s-%d@%d".formatted(record.topic(), record.partition(), record.offset());
+        return key.length() <= IdempotencyGuard.MAX_KEY_LENGTH ? key : "kafka:" + UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,94 @@
+package com.notification.notification_svc.kafka;
+
+import com.notification.notification_svc.config.PreferenceCacheProperties;
+import com.notification.notification_svc.service.PreferenceCache;
+import com.notification.notification_svc.service.PreferenceChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the per-instance preference caches of all replicas coherent. Every local preference write
+ * is broadcast as a userId on the invalidation topic, and every instance consumes the topic in its
+ * own consumer group, evicting the user's entry unless the event originated from itself.
+ * <p>
+ * Invalidations are published from the preference write path, so they go through a producer of
+ * their own that gives up after a second when the broker is unreachable, instead of holding that
+ * path for the default 60 seconds. It is kept out of the context, so the application's
+ * {@link KafkaTemplate} stays Boot's.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "notification.preference-cache.invalidation", name = "enabled", havingValue = "true")
+public class PreferenceInvalidationBridge {
+    private static final String ORIGIN_HEADER = "origin";
+
+    private final PreferenceCache preferenceCache;
+    private final DefaultKafkaProducerFactory<String, String> producerFactory;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final String topic;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Autowired
+    public PreferenceInvalidationBridge(PreferenceCache preferenceCache, KafkaProperties kafkaProperties, PreferenceCacheProperties properties) {
+        this.preferenceCache = preferenceCache;
+        this.topic = properties.getInvalidation().getTopic();
+
+        Map<String, Object> producerProperties = kafkaProperties.buildProducerProperties(null);
+        producerProperties.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 1_000);
+        producerProperties.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+        this.producerFactory = new DefaultKafkaProducerFactory<>(producerProperties, new StringSerializer(), new StringSerializer());
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPreferenceChanged(PreferenceChangedEvent event) {
+
+        String userId = event.getUserId().toString();
+        ProducerRecord<String, String> record = new ProducerRecord<>(topic, userId, userId);
+        record.headers().add(ORIGIN_HEADER, instanceId.getBytes(StandardCharsets.UTF_8));
+
+        try {
+            kafkaTemplate.send(record).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.warn("Could not publish preference invalidation for user {}.", userId, ex);
+                }
+            });
+        } catch (Exception ex) {
+            log.warn("Could not publish preference invalidation for user {}.", userId, ex);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+
+        producerFactory.destroy();
+    }
+
+    @KafkaListener(id = "preferenceInvalidationListener", topics = "${notification.preference-cache.invalidation.topic}", groupId = "notification-svc-cache-#{T(java.util.UUID).randomUUID()}", properties = "auto.offset.reset=latest")
+    public void onInvalidation(ConsumerRecord<String, String> record) {
+
+        Header origin = record.headers().lastHeader(ORIGIN_HEADER);
+        if (origin != null && instanceId.equals(new String(origin.value(), StandardCharsets.UTF_8))) {
+            return;
+        }
+
+        preferenceCache.evict(UUID.fromString(record.value()));
+    }
+}
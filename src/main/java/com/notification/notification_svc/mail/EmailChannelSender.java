@@ -0,0 +1,126 @@
+package com.notification.notification_svc.mail;
+
+import com.notification.notification_svc.channel.ChannelSender;
+import com.notification.notification_svc.channel.SendResult;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.service.NotificationMetrics;
+import com.notification.notification_svc.service.TemplateRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sends EMAIL notifications in one {@code send(SimpleMailMessage...)} call per batch, so a pooled
+ * mail sender pushes them through a single connection. Waits first if the send would exceed the
+ * global or a recipient domain's rate. While the mail circuit breaker is open nothing is sent.
+ */
+@Slf4j
+@Component
+public class EmailChannelSender implements ChannelSender {
+    private final TemplateRegistry templateRegistry;
+    private final SendRateLimiter rateLimiter;
+    private final MailCircuitBreaker circuitBreaker;
+    private final NotificationMetrics metrics;
+    private final JavaMailSender mailSender;
+
+    @Autowired
+    public EmailChannelSender(TemplateRegistry templateRegistry, SendRateLimiter rateLimiter, MailCircuitBreaker circuitBreaker, NotificationMetrics metrics, JavaMailSender mailSender) {
+        this.templateRegistry = templateRegistry;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.metrics = metrics;
+        this.mailSender = mailSender;
+    }
+
+    @Override
+    public NotificationType getType() {
+        return NotificationType.EMAIL;
+    }
+
+    /**
+     * Renders every message before asking the circuit breaker, so a notification whose template
+     * was changed or removed after it was accepted fails on its own, and a permission taken is
+     * always given back through {@link MailCircuitBreaker#onResult}.
+     */
+    @Override
+    public SendResult send(List<Notification> notifications) {
+
+        long start = System.nanoTime();
+        List<Notification> rendered = new ArrayList<>(notifications.size());
+        List<SimpleMailMessage> messages = new ArrayList<>(notifications.size());
+        List<Notification> unrenderable = new ArrayList<>();
+        for (Notification notification : notifications) {
+            try {
+                SimpleMailMessage message = new SimpleMailMessage();
+                message.setTo(notification.getContactInfo());
+                message.setSubject(templateRegistry.renderSubject(notification));
+                message.setText(templateRegistry.renderBody(notification));
+                messages.add(message);
+                rendered.add(notification);
+            } catch (IllegalArgumentException e) {
+                log.warn("Cannot render notification {}: {}", notification.getId(), e.getMessage());
+                unrenderable.add(notification);
+            }
+        }
+        metrics.record(NotificationMetrics.Stage.MESSAGE_BUILD, start);
+
+        if (rendered.isEmpty()) {
+            return SendResult.failed(unrenderable);
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return SendResult.notAttempted();
+        }
+
+        rateLimiter.acquire(rendered.stream().map(Notification::getContactInfo).toList());
+
+        Set<Object> failedMessages = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean allFailed = false;
+        boolean transportFailed = false;
+        start = System.nanoTime();
+        try {
+            mailSender.send(messages.toArray(SimpleMailMessage[]::new));
+        } catch (MailSendException e) {
+            failedMessages.addAll(e.getFailedMessages().keySet());
+            allFailed = failedMessages.isEmpty() || failedMessages.size() == messages.size();
+            transportFailed = allFailed || isTransportFailure(e);
+        } catch (Exception e) {
+            allFailed = true;
+            transportFailed = true;
+        }
+        circuitBreaker.onResult(System.nanoTime() - start, transportFailed);
+        metrics.record(NotificationMetrics.Stage.SMTP_SEND, start);
+
+        if (allFailed) {
+            return SendResult.failed(notifications);
+        }
+        List<Notification> failed = new ArrayList<>(unrenderable);
+        for (int i = 0; i < messages.size(); i++) {
+            if (failedMessages.contains(messages.get(i))) {
+                failed.add(rendered.get(i));
+            }
+        }
+        return SendResult.failed(failed);
+    }
+
+    /**
+     * A failure to reach the SMTP host, as opposed to the host refusing some of the recipients.
+     * The mail sender reports a failed connection with every message in {@code failedMessages}
+     * and the {@link MessagingException} as the cause.
+     */
+    private static boolean isTransportFailure(MailSendException e) {
+
+        return e.getCause() instanceof MessagingException && !(e.getCause() instanceof SendFailedException);
+    }
+}
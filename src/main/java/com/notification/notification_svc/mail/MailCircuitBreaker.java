@@ -0,0 +1,178 @@
+package com.notification.notification_svc.mail;
+
+import com.notification.notification_svc.config.MailCircuitBreakerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker around the mail transport. While the SMTP host keeps failing, or answers too
+ * slowly, the breaker opens and callers are refused immediately instead of each waiting for a
+ * connect timeout. After {@code openDuration} a few probe calls are let through; their outcome
+ * closes the breaker again or re-opens it.
+ *
+ * <p>The closed-state check is a single volatile read. Outcomes are recorded under the breaker's
+ * monitor, which is cheap next to the SMTP round trip it follows.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(MailCircuitBreakerProperties.class)
+public class MailCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final MailCircuitBreakerProperties properties;
+    private final LongSupplier nanoClock;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedCounter;
+    private final long slowCallNanos;
+
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int windowCalls;
+    private int windowNext;
+    private int windowFailures;
+    private int windowSlowCalls;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesCompleted;
+    private int probeFailures;
+    private int probeSlowCalls;
+
+    @Autowired
+    public MailCircuitBreaker(MailCircuitBreakerProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    MailCircuitBreaker(MailCircuitBreakerProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.slowCallNanos = properties.getSlowCallDuration().toNanos();
+        this.failures = new boolean[properties.getWindowSize()];
+        this.slowCalls = new boolean[properties.getWindowSize()];
+        this.rejectedCounter = meterRegistry.counter("notification.mail.circuit.rejected");
+        Gauge.builder("notification.mail.circuit.state", this, breaker -> breaker.state.ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Whether a send may go to the network now. Every permitted call must be followed by exactly
+     * one {@link #onResult(long, boolean)}.
+     */
+    public boolean tryAcquirePermission() {
+
+        if (!properties.isEnabled() || state == State.CLOSED) {
+            return true;
+        }
+
+        synchronized (this) {
+            if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= properties.getOpenDuration().toNanos()) {
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN && probesStarted < properties.getHalfOpenProbes()) {
+                probesStarted++;
+                return true;
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+        }
+
+        rejectedCounter.increment();
+        return false;
+    }
+
+    public void onResult(long durationNanos, boolean failed) {
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        boolean slow = durationNanos >= slowCallNanos;
+
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                probesCompleted++;
+                probeFailures += failed ? 1 : 0;
+                probeSlowCalls += slow ? 1 : 0;
+                if (probesCompleted >= properties.getHalfOpenProbes()) {
+                    transitionTo(exceedsThresholds(probeFailures, probeSlowCalls, probesCompleted) ? State.OPEN : State.CLOSED);
+                }
+                return;
+            }
+
+            if (state == State.OPEN) {
+                return;
+            }
+
+            record(failed, slow);
+            if (windowCalls >= properties.getMinimumCalls() && exceedsThresholds(windowFailures, windowSlowCalls, windowCalls)) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    private void record(boolean failed, boolean slow) {
+
+        if (windowCalls == failures.length) {
+            windowFailures -= failures[windowNext] ? 1 : 0;
+            windowSlowCalls -= slowCalls[windowNext] ? 1 : 0;
+        } else {
+            windowCalls++;
+        }
+        failures[windowNext] = failed;
+        slowCalls[windowNext] = slow;
+        windowFailures += failed ? 1 : 0;
+        windowSlowCalls += slow ? 1 : 0;
+        windowNext = (windowNext + 1) % failures.length;
+    }
+
+    private boolean exceedsThresholds(int failed, int slow, int calls) {
+
+        return failed >= calls * properties.getFailureRateThreshold() || slow >= calls * properties.getSlowCallRateThreshold();
+    }
+
+    private void transitionTo(State next) {
+
+        State previous = state;
+        if (previous == next) {
+            return;
+        }
+
+        if (next == State.OPEN) {
+            openedAt = nanoClock.getAsLong();
+        }
+        if (next == State.HALF_OPEN) {
+            probesStarted = 0;
+            probesCompleted = 0;
+            probeFailures = 0;
+            probeSlowCalls = 0;
+        }
+        if (next == State.CLOSED) {
+            windowCalls = 0;
+            windowNext = 0;
+            windowFailures = 0;
+            windowSlowCalls = 0;
+        }
+        state = next;
+
+        meterRegistry.counter("notification.mail.circuit.transitions", "from", previous.name(), "to", next.name()).increment();
+        log.warn("Mail circuit breaker moved from {} to {}.", previous, next);
+    }
+}
@@ -0,0 +1,195 @@
+package com.notification.notification_svc.mail;
+
+import com.notification.notification_svc.config.MailPoolProperties;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link JavaMailSenderImpl} that keeps authenticated SMTP connections open between sends instead
+ * of connecting, doing STARTTLS and AUTH, and disconnecting for every call. A call to
+ * {@code send(...)} leases one connection and sends all of its messages over it.
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+    private final MailPoolProperties properties;
+    private final BlockingQueue<PooledTransport> idle;
+    private final Semaphore permits;
+    private final AtomicLong openedConnections = new AtomicLong();
+
+    public PooledJavaMailSender(MailPoolProperties properties) {
+        this.properties = properties;
+        this.idle = new ArrayBlockingQueue<>(properties.getMaxConnections());
+        this.permits = new Semaphore(properties.getMaxConnections(), true);
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        PooledTransport pooled = null;
+
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                MimeMessage mimeMessage = mimeMessages[i];
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessage;
+
+                if (pooled == null) {
+                    try {
+                        pooled = borrow();
+                    } catch (Exception ex) {
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], ex);
+                        }
+                        throw new MailSendException("Mail server connection failed", ex, failedMessages);
+                    }
+                }
+
+                try {
+                    if (mimeMessage.getSentDate() == null) {
+                        mimeMessage.setSentDate(new Date());
+                    }
+                    String messageId = mimeMessage.getMessageID();
+                    mimeMessage.saveChanges();
+                    if (messageId != null) {
+                        mimeMessage.setHeader("Message-ID", messageId);
+                    }
+                    Address[] addresses = mimeMessage.getAllRecipients();
+                    pooled.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+                    pooled.messagesSent++;
+                } catch (Exception ex) {
+                    failedMessages.put(original, ex);
+                    if (!pooled.transport.isConnected()) {
+                        release(pooled, true);
+                        pooled = null;
+                    }
+                }
+            }
+        } finally {
+            if (pooled != null) {
+                release(pooled, false);
+            }
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    /**
+     * Total number of SMTP connections opened since startup. With a healthy pool this grows far
+     * slower than the number of messages sent.
+     */
+    public long getOpenedConnections() {
+        return openedConnections.get();
+    }
+
+    /**
+     * Connections currently leased to a sender.
+     */
+    public int getLeasedConnections() {
+        return properties.getMaxConnections() - permits.availablePermits();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    @Override
+    public void destroy() {
+
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            closeQuietly(pooled);
+        }
+    }
+
+    private PooledTransport borrow() throws MessagingException, InterruptedException {
+
+        if (!permits.tryAcquire(properties.getBorrowTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new MessagingException("Timed out waiting for a pooled SMTP connection.");
+        }
+
+        try {
+            PooledTransport pooled;
+            while ((pooled = idle.poll()) != null) {
+                if (isUsable(pooled)) {
+                    return pooled;
+                }
+                closeQuietly(pooled);
+            }
+
+            Transport transport = connectTransport();
+            openedConnections.incrementAndGet();
+            return new PooledTransport(transport, System.nanoTime());
+        } catch (MessagingException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    private void release(PooledTransport pooled, boolean broken) {
+
+        try {
+            pooled.lastUsed = System.nanoTime();
+            if (broken || isExhausted(pooled) || !idle.offer(pooled)) {
+                closeQuietly(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isUsable(PooledTransport pooled) {
+
+        if (isExhausted(pooled)) {
+            return false;
+        }
+        if (System.nanoTime() - pooled.lastUsed < properties.getValidateAfterIdle().toNanos()) {
+            return true;
+        }
+        return pooled.transport.isConnected();
+    }
+
+    private boolean isExhausted(PooledTransport pooled) {
+        return pooled.messagesSent >= properties.getMaxMessagesPerConnection()
+                || System.nanoTime() - pooled.createdAt >= properties.getMaxConnectionAge().toNanos();
+    }
+
+    private void closeQuietly(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException ex) {
+            log.debug("Could not close SMTP connection cleanly.", ex);
+        }
+    }
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private final long createdAt;
+        private long lastUsed;
+        private int messagesSent;
+
+        private PooledTransport(Transport transport, long createdAt) {
+            this.transport = transport;
+            this.createdAt = createdAt;
+            this.lastUsed = createdAt;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.notification.notification_svc.mail;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.notification_svc.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throttles outgoing mail to a global rate and a rate per recipient domain, so bursts are spread
+ * out instead of being rejected by the provider and turned into FAILED notifications. Callers over
+ * budget are delayed, never failed. Buckets are lock-free and domains are independent entries of a
+ * concurrent map, so senders only contend with others writing to the same domain.
+ */
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class SendRateLimiter {
+    private final RateLimitProperties properties;
+    private final TokenBucket globalBucket;
+    private final Cache<String, TokenBucket> domainBuckets;
+    private final Counter throttledCounter;
+
+    @Autowired
+    public SendRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.globalBucket = new TokenBucket(properties.getGlobalPerSecond(), properties.getGlobalBurst(), System.nanoTime());
+        this.domainBuckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.throttledCounter = meterRegistry.counter("notification.send.throttled");
+    }
+
+    /**
+     * Blocks until one message to each of the given recipients may be sent.
+     */
+    public void acquire(List<String> recipients) {
+
+        long waitNanos = reserve(recipients, System.nanoTime());
+        if (waitNanos <= 0) {
+            return;
+        }
+
+        throttledCounter.increment(recipients.size());
+        long deadline = System.nanoTime() + waitNanos;
+        for (long remaining = waitNanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reserves the permits and returns how long the caller has to wait for them.
+     */
+    long reserve(List<String> recipients, long nowNanos) {
+
+        if (!properties.isEnabled() || recipients.isEmpty()) {
+            return 0;
+        }
+
+        long waitNanos = globalBucket.reserve(recipients.size(), nowNanos);
+
+        Map<String, Integer> perDomain = new HashMap<>();
+        for (String recipient : recipients) {
+            String domain = domainOf(recipient);
+            if (domain != null) {
+                perDomain.merge(domain, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : perDomain.entrySet()) {
+            TokenBucket bucket = domainBuckets.get(entry.getKey(), domain -> newDomainBucket(domain, nowNanos));
+            waitNanos = Math.max(waitNanos, bucket.reserve(entry.getValue(), nowNanos));
+        }
+
+        return waitNanos;
+    }
+
+    private TokenBucket newDomainBucket(String domain, long nowNanos) {
+
+        double perSecond = properties.getDomains().getOrDefault(domain, properties.getDomainPerSecond());
+        return new TokenBucket(perSecond, properties.getDomainBurst(), nowNanos);
+    }
+
+    static String domainOf(String contactInfo) {
+
+        if (contactInfo == null) {
+            return null;
+        }
+        int at = contactInfo.lastIndexOf('@');
+        if (at < 0 || at == contactInfo.length() - 1) {
+            return null;
+        }
+        return contactInfo.substring(at + 1).trim().toLowerCase(Locale.ROOT);
+    }
+}
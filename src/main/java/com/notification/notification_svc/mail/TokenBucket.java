@@ -0,0 +1,35 @@
+package com.notification.notification_svc.mail;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its GCRA form: the whole state is the theoretical arrival time of the
+ * next permit, advanced with a CAS. A reservation never fails; it returns how long the caller has
+ * to wait until the reserved permits are actually available.
+ */
+class TokenBucket {
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(1, burst);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Reserves {@code permits} and returns the nanoseconds to wait before using them.
+     */
+    long reserve(int permits, long nowNanos) {
+
+        long cost = emissionIntervalNanos * permits;
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, nowNanos) + cost;
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return Math.max(0, next - burstToleranceNanos - nowNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.notification.notification_svc.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A {@link Notification} moved out of the primary table by retention. Keeps the original id and
+ * columns, so archived rows can be merged back into a history read.
+ */
+@Entity
+@Table(name = "notification_archive", indexes = @Index(name = "idx_notification_archive_user_history", columnList = "userId, isDeleted, createdOn"))
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedNotification {
+    @Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID id;
+
+    private UUID userId;
+
+    @Lob
+    private String body;
+
+    private String subject;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 20)
+    private NotificationType type;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 20)
+    private NotificationStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 10)
+    private NotificationPriority priority;
+
+    private boolean enabled;
+
+    private String product;
+
+    private String contactInfo;
+
+    @Column(length = 100)
+    private String templateId;
+
+    @Convert(converter = TemplateVariablesConverter.class)
+    @Column(length = 4000)
+    private Map<String, String> templateVariables;
+
+    @Column(length = 128)
+    private String idempotencyKey;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID digestId;
+
+    private LocalDateTime sendAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+
+    private boolean isDeleted;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedOn;
+}
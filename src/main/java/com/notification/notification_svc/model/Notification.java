@@ -2,39 +2,109 @@ package com.notification.notification_svc.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Builder
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_notification_idempotency_key", columnNames = {"userId", "idempotencyKey"})
+}, indexes = {
+        @Index(name = "idx_notification_user_history", columnList = "userId, isDeleted, createdOn"),
+        @Index(name = "idx_notification_retry_due", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_notification_retention", columnList = "isDeleted, createdOn"),
+        @Index(name = "idx_notification_digest", columnList = "digestId"),
+        @Index(name = "idx_notification_schedule", columnList = "status, sendAt")
+})
+@Builder(toBuilder = true)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Notification {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
     private UUID id;
 
     private UUID userId;
 
+    /**
+     * Large enough for a digest, which holds the content of every notification merged into it.
+     */
+    @Lob
     private String body;
 
     private String subject;
 
+    /**
+     * A VARCHAR like {@link #status}, so new channels can be stored without altering the column.
+     */
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 20)
     private NotificationType type;
 
+    /**
+     * A plain VARCHAR rather than MySQL's native ENUM, which schema updates never widen, so new
+     * statuses can be stored without altering the column.
+     */
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 20)
     private NotificationStatus status;
 
+    /**
+     * Rows written before priorities existed read as LOW.
+     */
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @ColumnDefault("'LOW'")
+    @Column(nullable = false, length = 10)
+    private NotificationPriority priority = NotificationPriority.LOW;
+
     private boolean enabled;
 
     private String product;
 
     private String contactInfo;
 
+    /**
+     * Set when the content comes from a {@link NotificationTemplate}; {@code subject} and
+     * {@code body} are then empty and the message is rendered from the template when it is sent.
+     */
+    @Column(length = 100)
+    private String templateId;
+
+    @Convert(converter = TemplateVariablesConverter.class)
+    @Column(length = 4000)
+    private Map<String, String> templateVariables;
+
+    /**
+     * Client supplied key that makes the request safe to repeat; unique per user.
+     */
+    @Column(length = 128)
+    private String idempotencyKey;
+
+    /**
+     * The digest this notification was merged into; set once its status is DIGESTED.
+     */
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID digestId;
+
+    /**
+     * When a SCHEDULED notification is due to be sent; {@code null} for notifications sent right
+     * away.
+     */
+    private LocalDateTime sendAt;
+
     @Column(nullable = false)
     private LocalDateTime createdOn;
 
@@ -42,4 +112,26 @@ public class Notification {
     private LocalDateTime updatedOn;
 
     private boolean isDeleted;
+
+    /**
+     * Delivery attempts made so far.
+     */
+    private int attempts;
+
+    /**
+     * When a FAILED notification is due for its next automatic retry; {@code null} when no retry
+     * is scheduled.
+     */
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * The status and deletion flag this row was last read or written with, so the counter listener
+     * registered in {@code META-INF/orm.xml} knows which counter a write moves the notification out
+     * of.
+     */
+    @Transient
+    private NotificationStatus storedStatus;
+
+    @Transient
+    private boolean storedDeleted;
 }
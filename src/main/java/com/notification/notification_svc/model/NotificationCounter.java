@@ -0,0 +1,45 @@
+package com.notification.notification_svc.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * How many of a user's notifications are in one status. Kept up to date as notifications change
+ * status, so a user's summary is read from at most one row per status however long the history.
+ */
+@Entity
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationCounter {
+    @EmbeddedId
+    private Key id;
+
+    private long total;
+
+    /**
+     * The last time a notification entered this status; for SUCCEEDED, the last time one was sent.
+     */
+    private LocalDateTime lastEnteredOn;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID userId;
+
+        @Enumerated(EnumType.STRING)
+        @JdbcTypeCode(SqlTypes.VARCHAR)
+        @Column(length = 20)
+        private NotificationStatus status;
+    }
+}
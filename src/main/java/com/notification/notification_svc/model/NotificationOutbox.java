@@ -0,0 +1,56 @@
+package com.notification.notification_svc.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(indexes = @Index(name = "idx_outbox_lane_available_at", columnList = "priority, availableAt"))
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutbox {
+    @Id
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID notificationId;
+
+    /**
+     * Copied from the notification, so each lane is claimed with its own index range scan.
+     */
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @ColumnDefault("'LOW'")
+    @Column(nullable = false, length = 10)
+    private NotificationPriority priority = NotificationPriority.LOW;
+
+    /**
+     * The entry can be claimed once this moment has passed. Claiming pushes it forward by the
+     * lease, so an entry whose claimer died becomes visible again.
+     */
+    @Column(nullable = false)
+    private LocalDateTime availableAt;
+
+    /**
+     * Set anew by every claim, so a claimer can tell whether the entry is still its own or was
+     * claimed again by someone else after its lease ran out.
+     */
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID leaseToken;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+}
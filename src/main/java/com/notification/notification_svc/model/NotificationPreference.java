@@ -2,6 +2,8 @@ package com.notification.notification_svc.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -14,17 +16,26 @@ import java.util.UUID;
 @AllArgsConstructor
 public class NotificationPreference {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
     private UUID id;
 
     @Column(unique = true, nullable = false)
     private UUID userId;
 
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 20)
     private NotificationType type;
 
     private boolean enabled;
 
+    /**
+     * When set, the user's notifications are collected for a short window and sent as one digest.
+     */
+    private boolean digestEnabled;
+
     private String contactInfo;
 
     @Column(nullable = false)
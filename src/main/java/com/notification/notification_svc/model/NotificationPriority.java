@@ -0,0 +1,11 @@
+package com.notification.notification_svc.model;
+
+/**
+ * The dispatch lane a notification waits in. {@link #HIGH} is for transactional messages, such as
+ * a password reset, and is sent ahead of {@link #LOW}, the lane for bulk campaigns; LOW still gets
+ * a minimum share of the dispatch capacity so a steady stream of HIGH traffic cannot starve it.
+ */
+public enum NotificationPriority {
+    HIGH,
+    LOW
+}
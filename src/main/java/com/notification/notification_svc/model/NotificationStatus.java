@@ -1,5 +1,11 @@
 package com.notification.notification_svc.model;
 
+/**
+ * {@link #SCHEDULED} notifications wait for their {@code sendAt} and become PENDING once it is due.
+ * {@link #BUFFERED} notifications wait for the digest of a user who opted into digests;
+ * {@link #DIGESTED} ones were merged into the digest their {@code digestId} points to, which is
+ * sent and retried in their place.
+ */
 public enum NotificationStatus {
-    SUCCEEDED, FAILED
+    SUCCEEDED, FAILED, PENDING, ABANDONED, BUFFERED, DIGESTED, SCHEDULED
 }
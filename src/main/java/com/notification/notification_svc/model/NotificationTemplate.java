@@ -0,0 +1,35 @@
+package com.notification.notification_svc.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationTemplate {
+    /**
+     * Chosen by the caller, e.g. {@code password-reset}, and used to refer to the template when
+     * sending.
+     */
+    @Id
+    @Column(length = 100)
+    private String id;
+
+    @Column(nullable = false, length = 1000)
+    private String subject;
+
+    @Lob
+    @Column(nullable = false)
+    private String body;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+}
@@ -1,5 +1,10 @@
 package com.notification.notification_svc.model;
 
+/**
+ * The channel a notification is delivered over. {@code contactInfo} holds the e-mail address for
+ * {@link #EMAIL} and the endpoint URL for {@link #WEBHOOK}.
+ */
 public enum NotificationType {
-    EMAIL
+    EMAIL,
+    WEBHOOK
 }
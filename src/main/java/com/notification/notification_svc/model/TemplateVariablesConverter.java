@@ -0,0 +1,38 @@
+package com.notification.notification_svc.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Map;
+
+/**
+ * Stores template variables as a JSON object in a plain text column, which reads back the same way
+ * on MySQL and on H2.
+ */
+@Converter
+public class TemplateVariablesConverter implements AttributeConverter<Map<String, String>, String> {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, String>> TYPE = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, String> variables) {
+        try {
+            return variables == null ? null : OBJECT_MAPPER.writeValueAsString(variables);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Template variables cannot be written as JSON.", e);
+        }
+    }
+
+    @Override
+    public Map<String, String> convertToEntityAttribute(String json) {
+        try {
+            return json == null ? null : OBJECT_MAPPER.readValue(json, TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored template variables are not valid JSON.", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.notification.notification_svc.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates version 7 UUIDs (RFC 9562): a 48-bit Unix millisecond timestamp, then a 12-bit counter
+ * within the millisecond, then 62 random bits. Ids from one instance are strictly increasing, so
+ * stored as {@code BINARY(16)} they land at the right edge of the primary key B-tree instead of on a
+ * random page, which keeps InnoDB inserts fast as the table grows.
+ * <p>
+ * The random bits come from {@link ThreadLocalRandom} rather than the {@code SecureRandom} behind
+ * {@link UUID#randomUUID()}, whose lock serialises every insert under load. Ids are unique, not
+ * secret.
+ */
+public class TimeOrderedUuidGenerator implements BeforeExecutionGenerator {
+
+    private static final AtomicLong LAST_TIMESTAMP_AND_COUNTER = new AtomicLong();
+
+    public static UUID next() {
+        long candidate = System.currentTimeMillis() << 12;
+        long last;
+        long next;
+        do {
+            last = LAST_TIMESTAMP_AND_COUNTER.get();
+            // Past 4096 ids in one millisecond the counter carries into the timestamp, which runs
+            // slightly ahead of the clock until the clock catches up.
+            next = Math.max(candidate, last + 1);
+        } while (!LAST_TIMESTAMP_AND_COUNTER.compareAndSet(last, next));
+
+        long mostSignificantBits = (next >>> 12) << 16 | 0x7000L | (next & 0xFFFL);
+        long leastSignificantBits = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -0,0 +1,55 @@
+package com.notification.notification_svc.repository;
+
+import com.notification.notification_svc.model.ArchivedNotification;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ArchivedNotificationRepository extends JpaRepository<ArchivedNotification, UUID> {
+
+    @Query("""
+            SELECT a FROM ArchivedNotification a WHERE a.userId = :userId AND a.isDeleted = false
+            """)
+    List<ArchivedNotification> findAllByUserIdAndDeletedIsFalse(@Param("userId") UUID userId);
+
+    @Query("""
+            SELECT a FROM ArchivedNotification a WHERE a.userId = :userId AND a.isDeleted = false
+            ORDER BY a.createdOn DESC, a.id DESC
+            """)
+    List<ArchivedNotification> findFirstHistoryPage(@Param("userId") UUID userId, Limit limit);
+
+    @Query("""
+            SELECT a FROM ArchivedNotification a WHERE a.userId = :userId AND a.isDeleted = false
+            AND (a.createdOn < :createdOn OR (a.createdOn = :createdOn AND a.id < :id))
+            ORDER BY a.createdOn DESC, a.id DESC
+            """)
+    List<ArchivedNotification> findHistoryPageAfter(@Param("userId") UUID userId, @Param("createdOn") LocalDateTime createdOn, @Param("id") UUID id, Limit limit);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE ArchivedNotification a SET a.isDeleted = true, a.updatedOn = :now
+            WHERE a.userId = :userId AND a.isDeleted = false
+            """)
+    int softDeleteAllByUserId(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    /**
+     * Copies the given rows of the primary table into the archive with one INSERT ... SELECT.
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO ArchivedNotification (id, userId, body, subject, type, status, priority, enabled, product, contactInfo, templateId, templateVariables, idempotencyKey, digestId, sendAt, createdOn, updatedOn, isDeleted, attempts, archivedOn)
+            SELECT n.id, n.userId, n.body, n.subject, n.type, n.status, n.priority, n.enabled, n.product, n.contactInfo, n.templateId, n.templateVariables, n.idempotencyKey, n.digestId, n.sendAt, n.createdOn, n.updatedOn, n.isDeleted, n.attempts, local datetime
+            FROM Notification n WHERE n.id IN :ids
+            """)
+    int copyFromNotifications(@Param("ids") List<UUID> ids);
+}
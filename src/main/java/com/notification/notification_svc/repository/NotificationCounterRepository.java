@@ -0,0 +1,53 @@
+package com.notification.notification_svc.repository;
+
+import com.notification.notification_svc.model.NotificationCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, NotificationCounter.Key> {
+
+    @Query("""
+            SELECT c FROM NotificationCounter c WHERE c.id.userId = :userId
+            """)
+    List<NotificationCounter> findAllByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Locks the counters of the given users, always in the same order, so instances flushing
+     * overlapping users wait for each other instead of deadlocking.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT c FROM NotificationCounter c WHERE c.id.userId IN :userIds
+            ORDER BY c.id.userId, c.id.status
+            """)
+    List<NotificationCounter> lockAllByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE NotificationCounter c SET c.total = 0 WHERE c.id.userId = :userId
+            """)
+    int resetByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Counts the notifications that are not cleared into new counters, one per user and status.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO notification_counter (user_id, status, total, last_entered_on)
+            SELECT user_id, status, COUNT(*), MAX(updated_on) FROM notification
+            WHERE is_deleted = false GROUP BY user_id, status
+            """, nativeQuery = true)
+    int insertFromNotifications();
+}
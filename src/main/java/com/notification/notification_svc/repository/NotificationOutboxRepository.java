@@ -0,0 +1,37 @@
+package com.notification.notification_svc.repository;
+
+import com.notification.notification_svc.model.NotificationOutbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, UUID> {
+
+    @Query(value = """
+            SELECT * FROM notification_outbox WHERE priority = :priority AND available_at <= :now
+            ORDER BY available_at LIMIT :limit FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<NotificationOutbox> lockAvailable(@Param("priority") String priority, @Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT o FROM NotificationOutbox o WHERE o.id IN :ids
+            """)
+    List<NotificationOutbox> lockAllByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("""
+            DELETE FROM NotificationOutbox o WHERE o.notificationId IN :notificationIds
+            """)
+    int deleteByNotificationIdIn(@Param("notificationIds") Collection<UUID> notificationIds);
+}
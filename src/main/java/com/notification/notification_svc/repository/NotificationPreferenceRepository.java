@@ -4,10 +4,14 @@ import com.notification.notification_svc.model.NotificationPreference;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface NotificationPreferenceRepository extends JpaRepository<NotificationPreference, UUID> {
     Optional<NotificationPreference> findNotificationPreferenceByUserId(UUID id);
+
+    List<NotificationPreference> findAllByUserIdIn(Collection<UUID> userIds);
 }
@@ -2,21 +2,202 @@ package com.notification.notification_svc.repository;
 
 import com.notification.notification_svc.model.Notification;
 import com.notification.notification_svc.model.NotificationStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.LockOptions;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, UUID> {
 
+    Optional<Notification> findByUserIdAndIdempotencyKey(UUID userId, String idempotencyKey);
+
+    List<Notification> findAllByUserIdInAndIdempotencyKeyIn(Collection<UUID> userIds, Collection<String> idempotencyKeys);
+
     @Query("""
             SELECT n FROM Notification n WHERE n.userId = :userId AND n.isDeleted = false
             """)
     List<Notification> findAllByUserIdAndDeletedIsFalse(@Param("userId") UUID userId);
 
     List<Notification> findAllByUserIdAndStatus(UUID userId, NotificationStatus notificationStatus);
+
+    @Query("""
+            SELECT n FROM Notification n WHERE n.userId = :userId AND n.isDeleted = false
+            ORDER BY n.createdOn DESC, n.id DESC
+            """)
+    List<Notification> findFirstHistoryPage(@Param("userId") UUID userId, Limit limit);
+
+    @Query("""
+            SELECT n FROM Notification n WHERE n.userId = :userId AND n.isDeleted = false
+            AND (n.createdOn < :createdOn OR (n.createdOn = :createdOn AND n.id < :id))
+            ORDER BY n.createdOn DESC, n.id DESC
+            """)
+    List<Notification> findHistoryPageAfter(@Param("userId") UUID userId, @Param("createdOn") LocalDateTime createdOn, @Param("id") UUID id, Limit limit);
+
+    @Query(value = """
+            SELECT * FROM notification WHERE status = 'FAILED' AND is_deleted = false AND next_attempt_at <= :now
+            ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Notification> lockDueRetries(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT * FROM notification WHERE is_deleted = true AND status NOT IN ('PENDING', 'BUFFERED', 'SCHEDULED')
+            AND (idempotency_key IS NULL OR created_on < :keyCutoff)
+            LIMIT :limit FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Notification> lockSoftDeleted(@Param("keyCutoff") LocalDateTime keyCutoff, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT * FROM notification WHERE is_deleted = false AND created_on < :cutoff AND status IN ('SUCCEEDED', 'ABANDONED', 'DIGESTED')
+            AND (idempotency_key IS NULL OR created_on < :keyCutoff)
+            LIMIT :limit FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Notification> lockExpired(@Param("cutoff") LocalDateTime cutoff, @Param("keyCutoff") LocalDateTime keyCutoff, @Param("limit") int limit);
+
+    /**
+     * Locks the given notifications that are still BUFFERED. Rows another instance is digesting
+     * right now are skipped.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "" + LockOptions.SKIP_LOCKED))
+    @Query("""
+            SELECT n FROM Notification n WHERE n.id IN :ids
+            AND n.status = com.notification.notification_svc.model.NotificationStatus.BUFFERED
+            ORDER BY n.createdOn
+            """)
+    List<Notification> lockBuffered(@Param("ids") Collection<UUID> ids);
+
+    @Query("""
+            SELECT n FROM Notification n WHERE n.status = com.notification.notification_svc.model.NotificationStatus.BUFFERED
+            AND n.createdOn < :cutoff
+            ORDER BY n.createdOn
+            """)
+    List<Notification> findBufferedBefore(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    /**
+     * Locks the given notifications that are still SCHEDULED. Rows another instance is releasing
+     * right now are skipped.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "" + LockOptions.SKIP_LOCKED))
+    @Query("""
+            SELECT n FROM Notification n WHERE n.id IN :ids
+            AND n.status = com.notification.notification_svc.model.NotificationStatus.SCHEDULED
+            ORDER BY n.sendAt
+            """)
+    List<Notification> lockScheduled(@Param("ids") Collection<UUID> ids);
+
+    @Query("""
+            SELECT n FROM Notification n WHERE n.status = com.notification.notification_svc.model.NotificationStatus.SCHEDULED
+            AND n.sendAt < :until
+            ORDER BY n.sendAt, n.id
+            """)
+    List<Notification> findFirstScheduled(@Param("until") LocalDateTime until, Limit limit);
+
+    @Query("""
+            SELECT n FROM Notification n WHERE n.status = com.notification.notification_svc.model.NotificationStatus.SCHEDULED
+            AND n.sendAt < :until AND (n.sendAt > :sendAt OR (n.sendAt = :sendAt AND n.id > :id))
+            ORDER BY n.sendAt, n.id
+            """)
+    List<Notification> findScheduledAfter(@Param("sendAt") LocalDateTime sendAt, @Param("id") UUID id, @Param("until") LocalDateTime until, Limit limit);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            DELETE FROM Notification n WHERE n.id IN :ids
+            """)
+    int deleteByIdIn(@Param("ids") List<UUID> ids);
+
+    /**
+     * Writes the outcome of a send and nothing else, so a notification cleared while it was being
+     * sent stays cleared.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE Notification n SET n.status = :status, n.attempts = :attempts, n.nextAttemptAt = :nextAttemptAt, n.updatedOn = :now
+            WHERE n.id IN :ids
+            """)
+    int updateOutcome(@Param("ids") Collection<UUID> ids, @Param("status") NotificationStatus status, @Param("attempts") int attempts,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("now") LocalDateTime now);
+
+    @Query("""
+            SELECT n.id FROM Notification n WHERE n.id IN :ids AND n.isDeleted = true
+            """)
+    List<UUID> findDeletedIdsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE Notification n SET n.contactInfo = :contactInfo, n.nextAttemptAt = :leasedUntil, n.updatedOn = :now
+            WHERE n.id IN :ids
+            """)
+    int leaseRetry(@Param("ids") Collection<UUID> ids, @Param("contactInfo") String contactInfo, @Param("leasedUntil") LocalDateTime leasedUntil, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE Notification n SET n.status = com.notification.notification_svc.model.NotificationStatus.ABANDONED, n.nextAttemptAt = null, n.updatedOn = :now
+            WHERE n.id IN :ids
+            """)
+    int abandonByIdIn(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE Notification n SET n.status = com.notification.notification_svc.model.NotificationStatus.FAILED, n.nextAttemptAt = :now, n.updatedOn = :now
+            WHERE n.userId = :userId AND n.isDeleted = false
+            AND n.status IN (com.notification.notification_svc.model.NotificationStatus.FAILED, com.notification.notification_svc.model.NotificationStatus.ABANDONED)
+            """)
+    int scheduleImmediateRetry(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE Notification n SET n.status = com.notification.notification_svc.model.NotificationStatus.FAILED, n.nextAttemptAt = :now, n.updatedOn = :now
+            WHERE n.userId = :userId AND n.isDeleted = false
+            AND n.status = com.notification.notification_svc.model.NotificationStatus.ABANDONED
+            """)
+    int reviveAbandoned(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    @Query("""
+            SELECT n.id FROM Notification n WHERE n.userId = :userId AND n.isDeleted = false ORDER BY n.id
+            """)
+    List<UUID> findUndeletedIdsByUserId(@Param("userId") UUID userId, Limit limit);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE Notification n SET n.isDeleted = true, n.updatedOn = :now
+            WHERE n.userId = :userId AND n.isDeleted = false AND n.id <= :upperId
+            """)
+    int softDeleteByUserIdUpToId(@Param("userId") UUID userId, @Param("upperId") UUID upperId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE Notification n SET n.isDeleted = true, n.updatedOn = :now
+            WHERE n.userId = :userId AND n.isDeleted = false
+            """)
+    int softDeleteAllByUserId(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    @Query("""
+            SELECT n FROM Notification n WHERE n.userId = :userId AND n.isDeleted = false
+            ORDER BY n.createdOn DESC, n.id DESC
+            """)
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<Notification> streamAllByUserIdAndDeletedIsFalse(@Param("userId") UUID userId);
 }
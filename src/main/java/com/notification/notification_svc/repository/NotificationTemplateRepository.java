@@ -0,0 +1,9 @@
+package com.notification.notification_svc.repository;
+
+import com.notification.notification_svc.model.NotificationTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationTemplateRepository extends JpaRepository<NotificationTemplate, String> {
+}
@@ -0,0 +1,66 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.model.Notification;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class BulkAcceptResult {
+
+    /**
+     * One item per request, in request order.
+     */
+    private final List<Item> items;
+
+    /**
+     * The accepted notifications, including replays of earlier requests, in request order.
+     */
+    public List<Notification> getAccepted() {
+
+        return items.stream().filter(Item::isAccepted).map(Item::getNotification).toList();
+    }
+
+    public List<Item> getSkipped() {
+
+        return items.stream().filter(item -> !item.isAccepted()).toList();
+    }
+
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Item {
+
+        /**
+         * Position of the request in the bulk request.
+         */
+        private final int index;
+
+        private final UUID userId;
+
+        /**
+         * The stored notification, or {@code null} when the request was skipped.
+         */
+        private final Notification notification;
+
+        /**
+         * Why the request was skipped, or {@code null} when it was accepted.
+         */
+        private final String reason;
+
+        public static Item accepted(int index, Notification notification) {
+            return new Item(index, notification.getUserId(), notification, null);
+        }
+
+        public static Item skipped(int index, UUID userId, String reason) {
+            return new Item(index, userId, null, reason);
+        }
+
+        public boolean isAccepted() {
+            return notification != null;
+        }
+    }
+}
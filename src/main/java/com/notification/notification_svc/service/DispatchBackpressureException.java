@@ -0,0 +1,18 @@
+package com.notification.notification_svc.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of accepting more asynchronous work while the dispatch queue is saturated.
+ */
+@Getter
+public class DispatchBackpressureException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public DispatchBackpressureException(Duration retryAfter) {
+        super("Notification dispatch is saturated, retry after %d seconds.".formatted(retryAfter.toSeconds()));
+        this.retryAfter = retryAfter;
+    }
+}
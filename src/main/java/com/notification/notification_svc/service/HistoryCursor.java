@@ -0,0 +1,41 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.model.Notification;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a user's history, ordered by {@code (createdOn, id)} descending. Encoded as an opaque
+ * URL-safe token so clients just hand back what they received.
+ */
+@Getter
+@AllArgsConstructor
+public class HistoryCursor {
+    private final LocalDateTime createdOn;
+
+    private final UUID id;
+
+    public static HistoryCursor after(Notification notification) {
+        return new HistoryCursor(notification.getCreatedOn(), notification.getId());
+    }
+
+    public String encode() {
+        String raw = createdOn + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static HistoryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new HistoryCursor(LocalDateTime.parse(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid history cursor %s.".formatted(token));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.model.Notification;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class HistoryPage {
+    private final List<Notification> notifications;
+
+    /**
+     * Position to continue from, or {@code null} when this is the last page.
+     */
+    private final HistoryCursor next;
+}
@@ -0,0 +1,172 @@
+package com.notification.notification_svc.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.notification_svc.config.IdempotencyProperties;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Makes requests that carry an idempotency key safe to repeat. Recently used keys are kept in a
+ * bounded in-memory window, so a replay is answered without touching the database, and a repeat
+ * that arrives while the first request is still sending waits for its result instead of sending
+ * again. Keys the window does not know go straight to the insert: the unique constraint on
+ * {@code (userId, idempotencyKey)} is the source of truth, and the stored notification is only
+ * looked up once that constraint rejected a row.
+ */
+@Component
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyGuard {
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final NotificationRepository notificationRepository;
+    private final Cache<Key, CompletableFuture<Notification>> window;
+    private final Counter memoryReplays;
+    private final Counter databaseReplays;
+
+    @Autowired
+    public IdempotencyGuard(NotificationRepository notificationRepository, IdempotencyProperties properties, MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.window = Caffeine.newBuilder()
+                .maximumSize(properties.getWindowMaximumSize())
+                .expireAfterWrite(properties.getWindowTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, window, "notification.idempotency");
+        this.memoryReplays = meterRegistry.counter("notification.idempotency.replayed", "source", "memory");
+        this.databaseReplays = meterRegistry.counter("notification.idempotency.replayed", "source", "database");
+    }
+
+    public static void validate(String idempotencyKey) {
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must be between 1 and %d characters long.".formatted(MAX_KEY_LENGTH));
+        }
+    }
+
+    /**
+     * Returns the notification of the first request with this key, or runs {@code action} when the
+     * key was not used before. {@code action} must insert the notification, with its key, before
+     * anything is sent. If it fails, the key is released so the request can be repeated.
+     */
+    public Notification execute(UUID userId, String idempotencyKey, Supplier<Notification> action) {
+
+        Key key = new Key(userId, idempotencyKey);
+        CompletableFuture<Notification> claim = new CompletableFuture<>();
+        CompletableFuture<Notification> previous = window.asMap().putIfAbsent(key, claim);
+        if (previous != null) {
+            memoryReplays.increment();
+            return await(previous);
+        }
+
+        try {
+            Notification notification = action.get();
+            claim.complete(notification);
+            return notification;
+        } catch (DataIntegrityViolationException e) {
+            Optional<Notification> stored = notificationRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+            if (stored.isEmpty()) {
+                release(key, claim, e);
+                throw e;
+            }
+            databaseReplays.increment();
+            claim.complete(stored.get());
+            return stored.get();
+        } catch (RuntimeException e) {
+            release(key, claim, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the notification already accepted for the key, if the window still holds it.
+     */
+    public Optional<Notification> recent(UUID userId, String idempotencyKey) {
+
+        CompletableFuture<Notification> previous = window.getIfPresent(new Key(userId, idempotencyKey));
+        if (previous == null || !previous.isDone() || previous.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        memoryReplays.increment();
+        return Optional.of(previous.join());
+    }
+
+    public void remember(List<Notification> notifications) {
+
+        for (Notification notification : notifications) {
+            if (notification.getIdempotencyKey() != null) {
+                window.put(Key.of(notification), CompletableFuture.completedFuture(notification));
+            }
+        }
+    }
+
+    /**
+     * Looks up, with a single query, which of the given notifications were stored before under the
+     * same user and key. Meant for the path where the unique constraint rejected a batch.
+     */
+    public Map<Key, Notification> stored(List<Notification> notifications) {
+
+        Set<Key> keys = notifications.stream()
+                .filter(notification -> notification.getIdempotencyKey() != null)
+                .map(Key::of)
+                .collect(Collectors.toSet());
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+
+        Set<UUID> userIds = keys.stream().map(Key::userId).collect(Collectors.toSet());
+        Set<String> idempotencyKeys = keys.stream().map(Key::idempotencyKey).collect(Collectors.toSet());
+        Map<Key, Notification> stored = new HashMap<>();
+        for (Notification notification : notificationRepository.findAllByUserIdInAndIdempotencyKeyIn(userIds, idempotencyKeys)) {
+            Key key = Key.of(notification);
+            if (keys.contains(key)) {
+                stored.put(key, notification);
+            }
+        }
+        databaseReplays.increment(stored.size());
+        return stored;
+    }
+
+    private void release(Key key, CompletableFuture<Notification> claim, RuntimeException failure) {
+
+        window.asMap().remove(key, claim);
+        claim.completeExceptionally(failure);
+    }
+
+    private static Notification await(CompletableFuture<Notification> previous) {
+
+        try {
+            return previous.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public record Key(UUID userId, String idempotencyKey) {
+
+        static Key of(Notification notification) {
+            return new Key(notification.getUserId(), notification.getIdempotencyKey());
+        }
+    }
+}
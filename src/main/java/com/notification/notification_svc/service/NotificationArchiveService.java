@@ -0,0 +1,81 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.config.IdempotencyProperties;
+import com.notification.notification_svc.config.RetentionProperties;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.repository.ArchivedNotificationRepository;
+import com.notification.notification_svc.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@EnableConfigurationProperties(RetentionProperties.class)
+public class NotificationArchiveService {
+    private final NotificationRepository notificationRepository;
+    private final ArchivedNotificationRepository archivedRepository;
+    private final NotificationDispatcher notificationDispatcher;
+    private final RetentionProperties properties;
+    private final IdempotencyProperties idempotencyProperties;
+    private final Counter archivedCounter;
+    private final Counter deferredCounter;
+
+    @Autowired
+    public NotificationArchiveService(NotificationRepository notificationRepository, ArchivedNotificationRepository archivedRepository, NotificationDispatcher notificationDispatcher, RetentionProperties properties, IdempotencyProperties idempotencyProperties, MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.archivedRepository = archivedRepository;
+        this.notificationDispatcher = notificationDispatcher;
+        this.properties = properties;
+        this.idempotencyProperties = idempotencyProperties;
+        this.archivedCounter = meterRegistry.counter("notification.retention.archived");
+        this.deferredCounter = meterRegistry.counter("notification.retention.deferred");
+    }
+
+    /**
+     * Moves at most {@code chunkSize} rows from the primary table to the archive in one short
+     * transaction: soft-deleted notifications first, then SUCCEEDED and ABANDONED ones older than
+     * the hot window. PENDING and FAILED rows stay until they are delivered or given up, and rows
+     * with an idempotency key stay for {@code keyRetention}, so a repeated request still hits the
+     * unique constraint instead of sending again. Rows are locked with SKIP LOCKED, so rows a
+     * sender or another instance is working on are left for a later step. While the dispatch
+     * queue is backpressured the step is skipped, so archival only uses capacity that live sends
+     * do not need.
+     */
+    @Scheduled(fixedDelayString = "${notification.retention.chunk-interval:1s}")
+    @Transactional
+    public void archiveNextChunk() {
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (notificationDispatcher.isBackpressured()) {
+            deferredCounter.increment();
+            return;
+        }
+
+        int limit = properties.getChunkSize();
+        LocalDateTime keyCutoff = LocalDateTime.now().minus(idempotencyProperties.getKeyRetention());
+        List<Notification> rows = new ArrayList<>(notificationRepository.lockSoftDeleted(keyCutoff, limit));
+        if (rows.size() < limit) {
+            LocalDateTime cutoff = LocalDateTime.now().minus(properties.getHotWindow());
+            rows.addAll(notificationRepository.lockExpired(cutoff, keyCutoff, limit - rows.size()));
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        List<UUID> ids = rows.stream().map(Notification::getId).toList();
+        archivedRepository.copyFromNotifications(ids);
+        notificationRepository.deleteByIdIn(ids);
+        archivedCounter.increment(ids.size());
+    }
+}
@@ -0,0 +1,58 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationStatus;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves a notification between the {@link NotificationCounters} of its user whenever a write
+ * through JPA changes its status or clears it. Set-based updates bypass this listener; the code
+ * issuing them records their effect on the counters itself.
+ * <p>
+ * Registered on {@link Notification} in {@code META-INF/orm.xml}, so the model does not depend on
+ * this package.
+ */
+@Component
+public class NotificationCounterListener {
+    // Looked up on use: the counters need the repositories, which need this listener.
+    private final ObjectProvider<NotificationCounters> counters;
+
+    @Autowired
+    public NotificationCounterListener(ObjectProvider<NotificationCounters> counters) {
+        this.counters = counters;
+    }
+
+    @PostLoad
+    void loaded(Notification notification) {
+
+        notification.setStoredStatus(notification.getStatus());
+        notification.setStoredDeleted(notification.isDeleted());
+    }
+
+    @PostPersist
+    void persisted(Notification notification) {
+
+        // Not the stored status: a row whose insert was rolled back may be inserted again.
+        move(notification, null);
+    }
+
+    @PostUpdate
+    void updated(Notification notification) {
+
+        move(notification, notification.isStoredDeleted() ? null : notification.getStoredStatus());
+    }
+
+    private void move(Notification notification, NotificationStatus from) {
+
+        NotificationStatus to = notification.isDeleted() ? null : notification.getStatus();
+        loaded(notification);
+        if (from != to) {
+            counters.getObject().move(notification.getUserId(), from, to, 1);
+        }
+    }
+}
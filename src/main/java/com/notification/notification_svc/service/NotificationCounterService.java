@@ -0,0 +1,77 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.model.NotificationCounter;
+import com.notification.notification_svc.repository.NotificationCounterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class NotificationCounterService {
+    private final NotificationCounterRepository counterRepository;
+
+    @Autowired
+    public NotificationCounterService(NotificationCounterRepository counterRepository) {
+        this.counterRepository = counterRepository;
+    }
+
+    /**
+     * Adds the given changes to the stored counters, creating the ones that do not exist yet. In a
+     * change, {@code total} is the amount to add and {@code lastEnteredOn} the last time a
+     * notification entered the status. The counters of the affected users are locked first, so
+     * instances flushing the same users do not lose each other's changes.
+     */
+    @Transactional
+    public void apply(Collection<NotificationCounter> changes) {
+
+        Set<UUID> userIds = changes.stream().map(change -> change.getId().getUserId()).collect(Collectors.toSet());
+        Map<NotificationCounter.Key, NotificationCounter> stored = counterRepository.lockAllByUserIdIn(userIds).stream()
+                .collect(Collectors.toMap(NotificationCounter::getId, Function.identity()));
+
+        List<NotificationCounter> created = new ArrayList<>();
+        for (NotificationCounter change : changes) {
+            NotificationCounter counter = stored.get(change.getId());
+            if (counter == null) {
+                created.add(NotificationCounter.builder()
+                        .id(change.getId())
+                        .total(change.getTotal())
+                        .lastEnteredOn(change.getLastEnteredOn())
+                        .build());
+                continue;
+            }
+            counter.setTotal(counter.getTotal() + change.getTotal());
+            counter.setLastEnteredOn(latest(counter.getLastEnteredOn(), change.getLastEnteredOn()));
+        }
+
+        counterRepository.saveAll(created);
+    }
+
+    /**
+     * Fills the counters from the stored notifications, unless there are counters already. Two
+     * instances starting at the same time both see none; the second insert fails on the primary
+     * key and rolls back, so the rows are never counted twice.
+     */
+    @Transactional
+    public int backfill() {
+
+        if (counterRepository.count() > 0) {
+            return 0;
+        }
+        return counterRepository.insertFromNotifications();
+    }
+
+    static LocalDateTime latest(LocalDateTime left, LocalDateTime right) {
+
+        return left == null || (right != null && right.isAfter(left)) ? right : left;
+    }
+}
@@ -0,0 +1,252 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.config.CounterProperties;
+import com.notification.notification_svc.model.NotificationCounter;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.repository.NotificationCounterRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-user notification counts by status, maintained as notifications change status instead of
+ * being computed from the history when they are read. Changes are collected in memory, in
+ * independently locked shards, and added to the stored counters every flush interval, so a burst
+ * of sends costs one counter write per user and status rather than one per notification.
+ * <p>
+ * Cleared notifications are not counted. Clearing resets the user's counters; a change another
+ * instance has not flushed yet when that happens still lands on top of the reset.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(CounterProperties.class)
+public class NotificationCounters implements SmartInitializingSingleton {
+    private static final NotificationStatus[] STATUSES = NotificationStatus.values();
+
+    private final NotificationCounterService counterService;
+    private final NotificationCounterRepository counterRepository;
+    private final CounterProperties properties;
+    private final Shard[] shards;
+
+    @Autowired
+    public NotificationCounters(NotificationCounterService counterService, NotificationCounterRepository counterRepository, CounterProperties properties) {
+        this.counterService = counterService;
+        this.counterRepository = counterRepository;
+        this.properties = properties;
+        this.shards = new Shard[properties.getShards() > 0 ? properties.getShards() : Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * Backfills the counters of an existing database. Runs before the application takes requests
+     * or starts its schedulers, so no notification is counted by both the backfill and a move.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+
+        if (!properties.isBackfillOnStartup()) {
+            return;
+        }
+        try {
+            int backfilled = counterService.backfill();
+            if (backfilled > 0) {
+                log.info("Backfilled {} notification counters from the stored notifications.", backfilled);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Backfilling the notification counters failed; another instance may have done it.", e);
+        }
+    }
+
+    /**
+     * Records that {@code amount} of the user's notifications moved from one status to another,
+     * once the current transaction commits, or right away outside of one. {@code null} stands for
+     * not counted: not stored before, or cleared.
+     */
+    public void move(UUID userId, NotificationStatus from, NotificationStatus to, long amount) {
+
+        if (from == to || amount == 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            shard(userId).add(userId, from, to, amount, now);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                shard(userId).add(userId, from, to, amount, now);
+            }
+        });
+    }
+
+    /**
+     * Sets the user's counters back to zero after the history was cleared, dropping the changes
+     * this instance has not flushed yet.
+     */
+    public void clear(UUID userId) {
+
+        shard(userId).remove(userId);
+        counterRepository.resetByUserId(userId);
+    }
+
+    /**
+     * Reads at most one stored counter per status, plus the changes this instance has not flushed
+     * yet, so the user sees their own sends right away.
+     */
+    public NotificationSummary summary(UUID userId) {
+
+        Map<NotificationStatus, Long> counts = new EnumMap<>(NotificationStatus.class);
+        for (NotificationStatus status : STATUSES) {
+            counts.put(status, 0L);
+        }
+        LocalDateTime lastSentOn = null;
+
+        List<NotificationCounter> counters = new ArrayList<>(counterRepository.findAllByUserId(userId));
+        counters.addAll(shard(userId).get(userId));
+        for (NotificationCounter counter : counters) {
+            counts.merge(counter.getId().getStatus(), counter.getTotal(), Long::sum);
+            if (counter.getId().getStatus() == NotificationStatus.SUCCEEDED) {
+                lastSentOn = NotificationCounterService.latest(lastSentOn, counter.getLastEnteredOn());
+            }
+        }
+        // A change that landed on top of a reset can take a count below zero.
+        counts.replaceAll((status, count) -> Math.max(0, count));
+
+        return new NotificationSummary(userId, counts, lastSentOn);
+    }
+
+    /**
+     * Adds the changes collected since the last flush to the stored counters. Changes that could
+     * not be written are kept for the next flush.
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${notification.counters.flush-interval:1s}")
+    public void flush() {
+
+        List<NotificationCounter> changes = new ArrayList<>();
+        for (Shard shard : shards) {
+            changes.addAll(shard.drain());
+        }
+
+        int batchSize = properties.getFlushBatchSize();
+        for (int from = 0; from < changes.size(); from += batchSize) {
+            List<NotificationCounter> batch = changes.subList(from, Math.min(from + batchSize, changes.size()));
+            try {
+                counterService.apply(batch);
+            } catch (RuntimeException e) {
+                log.warn("Flushing {} notification counter changes failed, they are retried on the next flush.", batch.size(), e);
+                batch.forEach(change -> shard(change.getId().getUserId()).restore(change));
+            }
+        }
+    }
+
+    private Shard shard(UUID userId) {
+
+        return shards[Math.floorMod(userId.hashCode(), shards.length)];
+    }
+
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<NotificationCounter.Key, NotificationCounter> changes = new HashMap<>();
+
+        void add(UUID userId, NotificationStatus from, NotificationStatus to, long amount, LocalDateTime now) {
+
+            lock.lock();
+            try {
+                if (from != null) {
+                    NotificationCounter left = change(new NotificationCounter.Key(userId, from));
+                    left.setTotal(left.getTotal() - amount);
+                }
+                if (to != null) {
+                    NotificationCounter entered = change(new NotificationCounter.Key(userId, to));
+                    entered.setTotal(entered.getTotal() + amount);
+                    entered.setLastEnteredOn(NotificationCounterService.latest(entered.getLastEnteredOn(), now));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void restore(NotificationCounter change) {
+
+            lock.lock();
+            try {
+                NotificationCounter current = change(change.getId());
+                current.setTotal(current.getTotal() + change.getTotal());
+                current.setLastEnteredOn(NotificationCounterService.latest(current.getLastEnteredOn(), change.getLastEnteredOn()));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<NotificationCounter> drain() {
+
+            lock.lock();
+            try {
+                if (changes.isEmpty()) {
+                    return List.of();
+                }
+                List<NotificationCounter> drained = new ArrayList<>(changes.values());
+                changes = new HashMap<>();
+                return drained;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(UUID userId) {
+
+            lock.lock();
+            try {
+                for (NotificationStatus status : STATUSES) {
+                    changes.remove(new NotificationCounter.Key(userId, status));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Copies of the user's unflushed changes.
+         */
+        List<NotificationCounter> get(UUID userId) {
+
+            List<NotificationCounter> pending = new ArrayList<>();
+            lock.lock();
+            try {
+                for (NotificationStatus status : STATUSES) {
+                    NotificationCounter change = changes.get(new NotificationCounter.Key(userId, status));
+                    if (change != null) {
+                        pending.add(new NotificationCounter(change.getId(), change.getTotal(), change.getLastEnteredOn()));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            return pending;
+        }
+
+        private NotificationCounter change(NotificationCounter.Key key) {
+
+            return changes.computeIfAbsent(key, ignored -> NotificationCounter.builder().id(key).build());
+        }
+    }
+}
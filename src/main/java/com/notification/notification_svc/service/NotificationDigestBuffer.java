@@ -0,0 +1,180 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.config.DigestProperties;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects the notifications of users who opted into digests and has them merged into one digest
+ * per user, once the user's buffer is {@code window} old or holds {@code maxSize} notifications.
+ * Users are spread over independently locked shards, so concurrent senders only contend when
+ * their users share a shard.
+ * <p>
+ * Only ids are kept in memory: every buffered notification is already stored as BUFFERED, and
+ * the recovery loop reloads rows no buffer holds any more, all of them right after a start and
+ * later the ones older than {@code staleAfter}, such as those of an instance that died.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(DigestProperties.class)
+public class NotificationDigestBuffer {
+    private final NotificationDigestService digestService;
+    private final NotificationRepository notificationRepository;
+    private final DigestProperties properties;
+    private final Shard[] shards;
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final Counter sizeFlushes;
+    private final Counter windowFlushes;
+    private volatile boolean restored;
+
+    @Autowired
+    public NotificationDigestBuffer(NotificationDigestService digestService, NotificationRepository notificationRepository, DigestProperties properties, MeterRegistry meterRegistry) {
+        this.digestService = digestService;
+        this.notificationRepository = notificationRepository;
+        this.properties = properties;
+        this.shards = new Shard[properties.getShards() > 0 ? properties.getShards() : Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+        this.sizeFlushes = meterRegistry.counter("notification.digest.flushed", "trigger", "size");
+        this.windowFlushes = meterRegistry.counter("notification.digest.flushed", "trigger", "window");
+        Gauge.builder("notification.digest.buffered", buffered, AtomicInteger::get)
+                .description("Notifications waiting in memory for their digest")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds stored BUFFERED notifications to their users' buffers. A buffer that reaches
+     * {@code maxSize} is digested right away, on the calling thread.
+     */
+    public void add(List<Notification> notifications) {
+
+        for (Notification notification : notifications) {
+            List<UUID> full = shard(notification.getUserId()).add(notification, properties.getMaxSize());
+            if (full != null) {
+                flush(full, sizeFlushes);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.digest.flush-interval:1s}")
+    public void flushDue() {
+
+        LocalDateTime openedBefore = LocalDateTime.now().minus(properties.getWindow());
+        for (Shard shard : shards) {
+            for (List<UUID> due : shard.removeOpenedBefore(openedBefore)) {
+                flush(due, windowFlushes);
+            }
+        }
+    }
+
+    /**
+     * Reloads BUFFERED rows into the buffers, one batch per run. Rows still held here are not
+     * added twice, and digesting skips rows that were digested meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${notification.digest.recovery-interval:1m}")
+    public void recover() {
+
+        // Right after a start no buffer holds anything yet, so every BUFFERED row is taken.
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = restored ? now.minus(properties.getStaleAfter()) : now;
+        List<Notification> stale = notificationRepository.findBufferedBefore(cutoff, Limit.of(properties.getRecoveryBatchSize()));
+        restored = true;
+        if (!stale.isEmpty()) {
+            log.info("Recovered {} buffered notifications for their digests.", stale.size());
+            add(stale);
+        }
+    }
+
+    private void flush(List<UUID> notificationIds, Counter trigger) {
+
+        try {
+            digestService.digest(notificationIds);
+            trigger.increment();
+        } catch (RuntimeException e) {
+            log.warn("Digesting {} notifications failed, they are recovered once they are stale.", notificationIds.size(), e);
+        }
+    }
+
+    private Shard shard(UUID userId) {
+
+        return shards[Math.floorMod(userId.hashCode(), shards.length)];
+    }
+
+    private final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<UUID, UserBuffer> users = new HashMap<>();
+
+        /**
+         * Returns the user's notification ids once the buffer is full, removing it.
+         */
+        List<UUID> add(Notification notification, int maxSize) {
+
+            lock.lock();
+            try {
+                UserBuffer buffer = users.computeIfAbsent(notification.getUserId(), ignored -> new UserBuffer(notification.getCreatedOn()));
+                if (buffer.ids.add(notification.getId())) {
+                    buffered.incrementAndGet();
+                }
+                if (buffer.ids.size() < maxSize) {
+                    return null;
+                }
+                users.remove(notification.getUserId());
+                buffered.addAndGet(-buffer.ids.size());
+                return new ArrayList<>(buffer.ids);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<List<UUID>> removeOpenedBefore(LocalDateTime openedBefore) {
+
+            List<List<UUID>> due = new ArrayList<>();
+            lock.lock();
+            try {
+                Iterator<UserBuffer> iterator = users.values().iterator();
+                while (iterator.hasNext()) {
+                    UserBuffer buffer = iterator.next();
+                    if (!buffer.openedOn.isAfter(openedBefore)) {
+                        iterator.remove();
+                        buffered.addAndGet(-buffer.ids.size());
+                        due.add(new ArrayList<>(buffer.ids));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            return due;
+        }
+    }
+
+    private static final class UserBuffer {
+        private final LocalDateTime openedOn;
+        private final Set<UUID> ids = new LinkedHashSet<>();
+
+        private UserBuffer(LocalDateTime openedOn) {
+            this.openedOn = openedOn;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationPriority;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.repository.NotificationRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class NotificationDigestService {
+    private final NotificationRepository notificationRepository;
+    private final NotificationOutboxService outboxService;
+    private final TemplateRegistry templateRegistry;
+    private final NotificationMetrics metrics;
+    private final DistributionSummary digestSize;
+
+    @Autowired
+    public NotificationDigestService(NotificationRepository notificationRepository, NotificationOutboxService outboxService, TemplateRegistry templateRegistry, NotificationMetrics metrics, MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.outboxService = outboxService;
+        this.templateRegistry = templateRegistry;
+        this.metrics = metrics;
+        this.digestSize = DistributionSummary.builder("notification.digest.size")
+                .description("Notifications merged into one digest")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Merges the given BUFFERED notifications of one user into a single digest and hands it to the
+     * outbox. The originals stay stored as DIGESTED and point to the digest, which is sent and
+     * retried in their place with the highest priority among them. Rows another instance is
+     * digesting, or that are no longer BUFFERED, are left out; a single remaining notification is
+     * sent as it is, and ones cleared while they waited are ABANDONED without being sent.
+     */
+    @Transactional
+    public Optional<Notification> digest(Collection<UUID> notificationIds) {
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> buffered = new ArrayList<>(notificationRepository.lockBuffered(notificationIds));
+        for (Notification notification : buffered) {
+            if (notification.isDeleted()) {
+                notification.setStatus(NotificationStatus.ABANDONED);
+                notification.setUpdatedOn(now);
+            }
+        }
+        buffered.removeIf(Notification::isDeleted);
+
+        if (buffered.isEmpty()) {
+            return Optional.empty();
+        }
+        if (buffered.size() == 1) {
+            Notification single = buffered.get(0);
+            single.setStatus(NotificationStatus.PENDING);
+            single.setUpdatedOn(now);
+            metrics.count(NotificationStatus.PENDING);
+            return Optional.of(outboxService.enqueue(single));
+        }
+
+        Notification latest = buffered.get(buffered.size() - 1);
+        Notification digest = outboxService.enqueue(Notification.builder()
+                .userId(latest.getUserId())
+                .type(latest.getType())
+                .contactInfo(latest.getContactInfo())
+                .subject("You have %d new notifications".formatted(buffered.size()))
+                .body(body(buffered))
+                .priority(buffered.stream().anyMatch(notification -> notification.getPriority() == NotificationPriority.HIGH)
+                        ? NotificationPriority.HIGH
+                        : NotificationPriority.LOW)
+                .status(NotificationStatus.PENDING)
+                .createdOn(now)
+                .updatedOn(now)
+                .isDeleted(false)
+                .build());
+
+        for (Notification notification : buffered) {
+            notification.setStatus(NotificationStatus.DIGESTED);
+            notification.setDigestId(digest.getId());
+            notification.setUpdatedOn(now);
+        }
+        metrics.count(NotificationStatus.PENDING);
+        metrics.count(NotificationStatus.DIGESTED, buffered.size());
+        digestSize.record(buffered.size());
+        return Optional.of(digest);
+    }
+
+    /**
+     * The rendered subject and body of every notification, oldest first.
+     */
+    private String body(List<Notification> notifications) {
+
+        StringBuilder body = new StringBuilder();
+        for (Notification notification : notifications) {
+            if (!body.isEmpty()) {
+                body.append("\n\n");
+            }
+            String subject = templateRegistry.renderSubject(notification);
+            if (subject != null && !subject.isBlank()) {
+                body.append(subject).append('\n');
+            }
+            body.append(templateRegistry.renderBody(notification));
+        }
+        return body.toString();
+    }
+}
@@ -0,0 +1,382 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.channel.ChannelRouter;
+import com.notification.notification_svc.channel.SendResult;
+import com.notification.notification_svc.config.DispatchProperties;
+import com.notification.notification_svc.config.RetryProperties;
+import com.notification.notification_svc.dispatch.PriorityLaneExecutor;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationOutbox;
+import com.notification.notification_svc.model.NotificationPriority;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Slf4j
+@Component
+public class NotificationDispatcher {
+    private final NotificationRepository notificationRepository;
+    private final NotificationOutboxService outboxService;
+    private final NotificationRetryService retryService;
+    private final RetryPolicy retryPolicy;
+    private final ChannelRouter channels;
+    private final NotificationMetrics metrics;
+    private final PriorityLaneExecutor executor;
+    private final DispatchProperties properties;
+    private final RetryProperties retryProperties;
+    private final Counter claimedCounter;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final AtomicInteger outboxInFlight = new AtomicInteger();
+
+    @Autowired
+    public NotificationDispatcher(NotificationRepository notificationRepository, NotificationOutboxService outboxService, NotificationRetryService retryService, RetryPolicy retryPolicy, ChannelRouter channels, NotificationMetrics metrics, @Qualifier("mailDispatchExecutor") PriorityLaneExecutor executor, DispatchProperties properties, RetryProperties retryProperties, MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.outboxService = outboxService;
+        this.retryService = retryService;
+        this.retryPolicy = retryPolicy;
+        this.channels = channels;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.properties = properties;
+        this.retryProperties = retryProperties;
+        this.claimedCounter = meterRegistry.counter("notification.outbox.claimed");
+        this.sentCounter = meterRegistry.counter("notification.outbox.sent");
+        this.failedCounter = meterRegistry.counter("notification.outbox.failed");
+        Gauge.builder("notification.dispatch.queue.depth", executor, pool -> pool.getThreadPoolExecutor().getQueue().size())
+                .description("Send batches waiting for a dispatcher thread")
+                .register(meterRegistry);
+        Gauge.builder("notification.dispatch.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Send batches currently being processed")
+                .register(meterRegistry);
+        Gauge.builder("notification.outbox.in.flight", outboxInFlight, AtomicInteger::get)
+                .description("Claimed outbox entries not sent yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends the notification stored by {@link NotificationOutboxService#enqueueLeased} over its
+     * channel and waits, up to the channel's timeout, for the outcome. A notification still being
+     * sent when the timeout passes is returned as PENDING, with its id; its outcome is persisted
+     * once the channel is done. The leased outbox entry is completed once the outcome is stored.
+     */
+    public Notification deliver(Notification notification) {
+
+        notification.setStatus(NotificationStatus.PENDING);
+        Notification accepted = notification.toBuilder().build();
+        try {
+            return dispatch(List.of(notification))
+                    .thenApply(delivered -> {
+                        completeLeased(notification);
+                        return delivered;
+                    })
+                    .get(channels.getTimeout(notification.getType()).toMillis(), TimeUnit.MILLISECONDS)
+                    .get(0);
+        } catch (TimeoutException e) {
+            return accepted;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return accepted;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void completeLeased(Notification notification) {
+
+        try {
+            outboxService.completeFor(List.of(notification.getId()));
+        } catch (RuntimeException e) {
+            // The outbox claims the entry once its lease runs out and skips the sent notification.
+            log.warn("Completing the outbox entry of notification {} failed.", notification.getId(), e);
+        }
+    }
+
+    /**
+     * Like {@link #dispatch(List)}, but waits until every channel is done.
+     */
+    public List<Notification> deliverAll(List<Notification> notifications) {
+
+        return dispatch(notifications).join();
+    }
+
+    /**
+     * Hands the notifications to the channels of their types, in the lanes of their priorities, and
+     * records the outcome. A failed
+     * notification gets its next automatic retry scheduled with backoff, or is ABANDONED once it has
+     * used up its attempts. A batch the channel refused without trying, because its circuit breaker
+     * is open or its queue is full, is persisted as FAILED right away, due for retry after the
+     * backoff but without spending an attempt. Statuses are persisted on the channel's own thread,
+     * so the caller is not held up by a slow channel; the returned future completes once every
+     * channel is done.
+     */
+    public CompletableFuture<List<Notification>> dispatch(List<Notification> notifications) {
+
+        Map<NotificationType, Map<NotificationPriority, List<Notification>>> byChannel = new EnumMap<>(NotificationType.class);
+        for (Notification notification : notifications) {
+            byChannel.computeIfAbsent(notification.getType(), ignored -> new EnumMap<>(NotificationPriority.class))
+                    .computeIfAbsent(notification.getPriority(), ignored -> new ArrayList<>())
+                    .add(notification);
+        }
+
+        List<CompletableFuture<List<Notification>>> deliveries = new ArrayList<>();
+        byChannel.forEach((type, lanes) -> lanes.forEach((priority, batch) ->
+                deliveries.add(channels.send(type, priority, batch).thenApply(result -> record(batch, result)))));
+
+        return CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> deliveries.stream().flatMap(delivery -> delivery.join().stream()).toList());
+    }
+
+    private List<Notification> record(List<Notification> notifications, SendResult result) {
+
+        LocalDateTime now = LocalDateTime.now();
+        // One backoff per attempt count, so a batch that failed together is retried together and
+        // its outcome stored with a single update.
+        Map<Integer, LocalDateTime> nextAttempts = new HashMap<>();
+        for (Notification notification : notifications) {
+            notification.setUpdatedOn(now);
+            if (!result.attempted()) {
+                notification.setStatus(NotificationStatus.FAILED);
+                notification.setNextAttemptAt(nextAttempts.computeIfAbsent(notification.getAttempts() + 1, attempts -> retryPolicy.nextAttemptAt(attempts, now)));
+                metrics.count(NotificationStatus.FAILED);
+                continue;
+            }
+
+            int attempts = notification.getAttempts() + 1;
+            notification.setAttempts(attempts);
+            if (!result.isFailed(notification)) {
+                notification.setStatus(NotificationStatus.SUCCEEDED);
+                notification.setNextAttemptAt(null);
+            } else if (retryPolicy.isExhausted(attempts)) {
+                notification.setStatus(NotificationStatus.ABANDONED);
+                notification.setNextAttemptAt(null);
+            } else {
+                notification.setStatus(NotificationStatus.FAILED);
+                notification.setNextAttemptAt(nextAttempts.computeIfAbsent(attempts, ignored -> retryPolicy.nextAttemptAt(attempts, now)));
+            }
+            metrics.count(notification.getStatus());
+        }
+
+        return persist(notifications);
+    }
+
+    private List<Notification> persist(List<Notification> notifications) {
+
+        long start = System.nanoTime();
+        retryService.recordOutcomes(notifications);
+        metrics.record(NotificationMetrics.Stage.PERSISTENCE, start);
+        return notifications;
+    }
+
+    /**
+     * Claims as many outbox entries as the dispatcher pool can queue and sends them in the
+     * background, {@code sendBatchSize} messages per task. Keeps claiming while full batches come
+     * back, so a large backlog drains at the speed of the pool rather than one batch per poll.
+     * Each claim takes HIGH priority entries first and leaves LOW its minimum share, within the
+     * room left in each lane. No more than {@code outboxMaxInFlight} claimed entries wait to be
+     * sent at a time, so their leases do not run out in the queue. Entries that could not be
+     * handed over keep their lease and are claimed again once they expire.
+     */
+    @Scheduled(fixedDelayString = "${notification.dispatch.outbox-poll-interval:200ms}")
+    public void pollOutbox() {
+
+        while (true) {
+            int highCapacity = Math.min(properties.getOutboxBatchSize(), freeSlots(NotificationPriority.HIGH));
+            int lowCapacity = Math.min(properties.getOutboxBatchSize(), freeSlots(NotificationPriority.LOW));
+            int capacity = Math.min(properties.getOutboxBatchSize(), Math.min(highCapacity + lowCapacity, properties.getOutboxMaxInFlight() - outboxInFlight.get()));
+            if (capacity <= 0) {
+                return;
+            }
+
+            List<NotificationOutbox> claimed = outboxService.claim(capacity, highCapacity, lowCapacity);
+            claimedCounter.increment(claimed.size());
+            outboxInFlight.addAndGet(claimed.size());
+
+            int notSubmitted = submitInBatches(claimed, NotificationOutbox::getPriority, this::process);
+            outboxInFlight.addAndGet(-notSubmitted);
+            if (notSubmitted > 0 || claimed.size() < capacity) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Claims FAILED notifications whose retry is due, across all users, and hands them to their
+     * channels in {@code sendBatchSize} batches. Like the outbox, claimed rows that could not be
+     * handed over are retried again once their lease expires.
+     */
+    @Scheduled(fixedDelayString = "${notification.retry.poll-interval:5s}")
+    public void pollRetries() {
+
+        while (true) {
+            int capacity = Math.min(retryProperties.getBatchSize(), Math.min(freeSlots(NotificationPriority.HIGH), freeSlots(NotificationPriority.LOW)));
+            if (capacity <= 0) {
+                return;
+            }
+
+            List<Notification> due = retryService.claimDue(capacity);
+
+            if (submitInBatches(due, Notification::getPriority, this::dispatchInBackground) > 0 || due.size() < capacity) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Whether any lane is backpressured, see {@link #isBackpressured(NotificationPriority)}.
+     */
+    public boolean isBackpressured() {
+
+        return Arrays.stream(NotificationPriority.values()).anyMatch(this::isBackpressured);
+    }
+
+    /**
+     * Whether the {@code priority} lane of the dispatch queue or of any channel's queue is filled
+     * past {@code backpressureThreshold}, meaning sends of that priority fall behind ingestion and
+     * new asynchronous work should be refused for now. A campaign filling the LOW lanes does not
+     * turn away HIGH priority notifications.
+     */
+    public boolean isBackpressured(NotificationPriority priority) {
+
+        return isDispatchLaneFull(priority) || channels.isAnyBackpressured(priority, properties.getBackpressureThreshold());
+    }
+
+    /**
+     * Like {@link #isBackpressured(NotificationPriority)}, but only looks at the channel of
+     * {@code type}, so a saturated webhook channel does not turn away e-mail.
+     */
+    public boolean isBackpressured(NotificationType type, NotificationPriority priority) {
+
+        return isDispatchLaneFull(priority) || channels.isBackpressured(type, priority, properties.getBackpressureThreshold());
+    }
+
+    private boolean isDispatchLaneFull(NotificationPriority priority) {
+
+        return executor.getLanes().isFilledPast(priority, properties.getBackpressureThreshold());
+    }
+
+    private int freeSlots(NotificationPriority priority) {
+
+        long freeSlots = (long) executor.getLanes().remainingCapacity(priority) * properties.getSendBatchSize();
+        return (int) Math.min(Integer.MAX_VALUE, freeSlots);
+    }
+
+    /**
+     * Submits the items in {@code sendBatchSize} batches, each queued in the lane of its items'
+     * priority. A full lane does not stop the other lane from being submitted. Returns how many
+     * items could not be handed over.
+     */
+    private <T> int submitInBatches(List<T> items, Function<T, NotificationPriority> priorityOf, Consumer<List<T>> task) {
+
+        Map<NotificationPriority, List<T>> lanes = new EnumMap<>(NotificationPriority.class);
+        for (T item : items) {
+            lanes.computeIfAbsent(priorityOf.apply(item), ignored -> new ArrayList<>()).add(item);
+        }
+
+        int sendBatchSize = properties.getSendBatchSize();
+        int notSubmitted = 0;
+        for (Map.Entry<NotificationPriority, List<T>> lane : lanes.entrySet()) {
+            List<T> laneItems = lane.getValue();
+            for (int from = 0; from < laneItems.size(); from += sendBatchSize) {
+                List<T> batch = laneItems.subList(from, Math.min(from + sendBatchSize, laneItems.size()));
+                try {
+                    executor.execute(lane.getKey(), () -> task.accept(batch));
+                } catch (TaskRejectedException e) {
+                    log.warn("Dispatch lane {} is full, {} claimed items will be picked up again after their lease.", lane.getKey(), laneItems.size() - from);
+                    notSubmitted += laneItems.size() - from;
+                    break;
+                }
+            }
+        }
+
+        return notSubmitted;
+    }
+
+    private void process(List<NotificationOutbox> claimed) {
+
+        CompletableFuture<Void> sent;
+        try {
+            sent = send(claimed);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+
+        sent.whenComplete((ignored, failure) -> {
+            outboxInFlight.addAndGet(-claimed.size());
+            if (failure != null) {
+                log.warn("Sending {} outbox entries failed, they are picked up again after their lease.", claimed.size(), failure);
+            }
+        });
+    }
+
+    /**
+     * Renews the lease of the claimed entries and sends the ones still held. Entries claimed again
+     * by someone else in the meantime are theirs to send.
+     */
+    private CompletableFuture<Void> send(List<NotificationOutbox> claimed) {
+
+        List<NotificationOutbox> entries = outboxService.renew(claimed);
+        if (entries.size() < claimed.size()) {
+            log.info("{} outbox entries were claimed again after their lease ran out and are skipped.", claimed.size() - entries.size());
+        }
+        if (entries.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<UUID> notificationIds = entries.stream().map(NotificationOutbox::getNotificationId).toList();
+        List<Notification> pending = notificationRepository.findAllById(notificationIds).stream()
+                .filter(notification -> notification.getStatus() == NotificationStatus.PENDING)
+                .toList();
+
+        if (pending.isEmpty()) {
+            outboxService.complete(entries);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return dispatch(pending).thenAccept(delivered -> {
+            for (Notification notification : delivered) {
+                if (notification.getStatus() == NotificationStatus.SUCCEEDED) {
+                    sentCounter.increment();
+                } else {
+                    failedCounter.increment();
+                }
+            }
+            outboxService.complete(entries);
+        });
+    }
+
+    private void dispatchInBackground(List<Notification> notifications) {
+
+        dispatch(notifications).whenComplete((delivered, failure) -> {
+            if (failure != null) {
+                log.warn("Retrying {} notifications failed, they are claimed again after their lease.", notifications.size(), failure);
+            }
+        });
+    }
+}
@@ -0,0 +1,57 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.model.NotificationStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers for each stage of the send path and counters per resulting status. All meters are
+ * registered up front, so recording is a {@code System.nanoTime()} pair and an array lookup with
+ * no tag resolution or allocation on the hot path.
+ */
+@Component
+public class NotificationMetrics {
+
+    public enum Stage {
+        PREFERENCE_FETCH, MESSAGE_BUILD, SMTP_SEND, WEBHOOK_SEND, PERSISTENCE
+    }
+
+    private final Timer[] stageTimers = new Timer[Stage.values().length];
+    private final Map<NotificationStatus, Counter> statusCounters = new EnumMap<>(NotificationStatus.class);
+
+    @Autowired
+    public NotificationMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            stageTimers[stage.ordinal()] = Timer.builder("notification.stage")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(10_000))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(meterRegistry);
+        }
+        for (NotificationStatus status : NotificationStatus.values()) {
+            statusCounters.put(status, meterRegistry.counter("notification.status", "status", status.name()));
+        }
+    }
+
+    public void record(Stage stage, long startNanos) {
+        stageTimers[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void count(NotificationStatus status) {
+        statusCounters.get(status).increment();
+    }
+
+    public void count(NotificationStatus status, int amount) {
+        statusCounters.get(status).increment(amount);
+    }
+}
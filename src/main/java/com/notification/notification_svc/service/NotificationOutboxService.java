@@ -0,0 +1,174 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.config.DispatchProperties;
+import com.notification.notification_svc.config.PriorityProperties;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationOutbox;
+import com.notification.notification_svc.model.NotificationPriority;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.repository.NotificationOutboxRepository;
+import com.notification.notification_svc.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@EnableConfigurationProperties(PriorityProperties.class)
+public class NotificationOutboxService {
+    private final NotificationRepository notificationRepository;
+    private final NotificationOutboxRepository outboxRepository;
+    private final DispatchProperties properties;
+    private final PriorityProperties priorityProperties;
+
+    @Autowired
+    public NotificationOutboxService(NotificationRepository notificationRepository, NotificationOutboxRepository outboxRepository, DispatchProperties properties, PriorityProperties priorityProperties) {
+        this.notificationRepository = notificationRepository;
+        this.outboxRepository = outboxRepository;
+        this.properties = properties;
+        this.priorityProperties = priorityProperties;
+    }
+
+    /**
+     * Persists the notification together with its outbox entry, so an accepted notification is
+     * never lost even if the instance dies before it is sent.
+     */
+    @Transactional
+    public Notification enqueue(Notification notification) {
+
+        Notification saved = notificationRepository.save(notification);
+
+        NotificationOutbox entry = NotificationOutbox.builder()
+                .notificationId(saved.getId())
+                .priority(saved.getPriority())
+                .availableAt(saved.getCreatedOn())
+                .createdOn(LocalDateTime.now())
+                .build();
+        outboxRepository.save(entry);
+
+        return saved;
+    }
+
+    /**
+     * Like {@link #enqueue(Notification)}, but the entry is leased to the caller for
+     * {@code outboxLease}: the caller sends the notification right away and then calls
+     * {@link #completeFor(Collection)}. The outbox only sends it if that never happens, for
+     * example because the instance died during the send.
+     */
+    @Transactional
+    public Notification enqueueLeased(Notification notification) {
+
+        Notification saved = notificationRepository.save(notification);
+
+        NotificationOutbox entry = NotificationOutbox.builder()
+                .notificationId(saved.getId())
+                .priority(saved.getPriority())
+                .availableAt(LocalDateTime.now().plus(properties.getOutboxLease()))
+                .createdOn(LocalDateTime.now())
+                .build();
+        outboxRepository.save(entry);
+
+        return saved;
+    }
+
+    /**
+     * Like {@link #enqueue(Notification)} for many notifications in one transaction. BUFFERED
+     * notifications are only stored; they are sent as part of their digest. SCHEDULED ones are
+     * only stored as well, until they are released at their {@code sendAt}.
+     */
+    @Transactional
+    public List<Notification> enqueueAll(List<Notification> notifications) {
+
+        List<Notification> saved = notificationRepository.saveAll(notifications);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> entries = saved.stream()
+                .filter(notification -> notification.getStatus() != NotificationStatus.BUFFERED && notification.getStatus() != NotificationStatus.SCHEDULED)
+                .map(notification -> NotificationOutbox.builder()
+                        .notificationId(notification.getId())
+                        .priority(notification.getPriority())
+                        .availableAt(notification.getCreatedOn())
+                        .createdOn(now)
+                        .build())
+                .toList();
+        outboxRepository.saveAll(entries);
+
+        return saved;
+    }
+
+    /**
+     * Claims up to {@code limit} due entries. Rows locked by another instance are skipped, and the
+     * claimed rows are leased so no one else picks them up until the lease runs out. At most
+     * {@code highLimit} HIGH and {@code lowLimit} LOW priority entries are claimed. HIGH entries go
+     * first, but only up to the part of {@code limit} that is not reserved for LOW by
+     * {@code lowMinShare}; whatever HIGH leaves unused goes to LOW as well. The claimed entries
+     * share a new lease token, see {@link #renew(List)}.
+     */
+    @Transactional
+    public List<NotificationOutbox> claim(int limit, int highLimit, int lowLimit) {
+
+        LocalDateTime now = LocalDateTime.now();
+        int lowReserved = Math.min(lowLimit, (int) (limit * priorityProperties.getLowMinShare()));
+        List<NotificationOutbox> entries = new ArrayList<>(limit);
+        int high = Math.min(highLimit, limit - lowReserved);
+        if (high > 0) {
+            entries.addAll(outboxRepository.lockAvailable(NotificationPriority.HIGH.name(), now, high));
+        }
+        int low = Math.min(lowLimit, limit - entries.size());
+        if (low > 0) {
+            entries.addAll(outboxRepository.lockAvailable(NotificationPriority.LOW.name(), now, low));
+        }
+
+        LocalDateTime leasedUntil = now.plus(properties.getOutboxLease());
+        UUID leaseToken = UUID.randomUUID();
+        entries.forEach(entry -> {
+            entry.setAvailableAt(leasedUntil);
+            entry.setLeaseToken(leaseToken);
+        });
+
+        return outboxRepository.saveAll(entries);
+    }
+
+    /**
+     * Extends the lease of the claimed entries right before they are sent and returns the ones
+     * that are still held by that claim. An entry whose lease ran out while it was queued, and
+     * that someone else claimed since, is left out, so every entry is sent by one claimer only.
+     */
+    @Transactional
+    public List<NotificationOutbox> renew(List<NotificationOutbox> entries) {
+
+        Map<UUID, UUID> leaseTokens = entries.stream().collect(Collectors.toMap(NotificationOutbox::getId, NotificationOutbox::getLeaseToken));
+        LocalDateTime leasedUntil = LocalDateTime.now().plus(properties.getOutboxLease());
+
+        List<NotificationOutbox> held = outboxRepository.lockAllByIdIn(leaseTokens.keySet()).stream()
+                .filter(entry -> Objects.equals(entry.getLeaseToken(), leaseTokens.get(entry.getId())))
+                .toList();
+        held.forEach(entry -> entry.setAvailableAt(leasedUntil));
+
+        return held;
+    }
+
+    @Transactional
+    public void complete(List<NotificationOutbox> entries) {
+
+        outboxRepository.deleteAllByIdInBatch(entries.stream().map(NotificationOutbox::getId).toList());
+    }
+
+    /**
+     * Removes the entries of the given notifications, see {@link #enqueueLeased(Notification)}.
+     */
+    @Transactional
+    public void completeFor(Collection<UUID> notificationIds) {
+
+        outboxRepository.deleteByNotificationIdIn(notificationIds);
+    }
+}
@@ -0,0 +1,145 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.config.RetryProperties;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationPreference;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.repository.NotificationPreferenceRepository;
+import com.notification.notification_svc.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+public class NotificationRetryService {
+    private final NotificationRepository notificationRepository;
+    private final NotificationPreferenceRepository preferenceRepository;
+    private final PreferenceCache preferenceCache;
+    private final RetryProperties properties;
+    private final NotificationCounters counters;
+
+    @Autowired
+    public NotificationRetryService(NotificationRepository notificationRepository, NotificationPreferenceRepository preferenceRepository, PreferenceCache preferenceCache, RetryProperties properties, NotificationCounters counters) {
+        this.notificationRepository = notificationRepository;
+        this.preferenceRepository = preferenceRepository;
+        this.preferenceCache = preferenceCache;
+        this.properties = properties;
+        this.counters = counters;
+    }
+
+    /**
+     * Claims up to {@code limit} FAILED notifications whose retry is due, across all users. Rows
+     * locked by another instance are skipped and the claimed ones are leased by pushing their
+     * next attempt forward. Notifications of users who meanwhile disabled notifications or removed
+     * their preference are ABANDONED; the rest are returned with the user's current contact info.
+     * Only the claimed columns are written, so the claim never undoes a concurrent clear.
+     */
+    @Transactional
+    public List<Notification> claimDue(int limit) {
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> due = notificationRepository.lockDueRetries(now, limit);
+        if (due.isEmpty()) {
+            return due;
+        }
+
+        Set<UUID> userIds = due.stream().map(Notification::getUserId).collect(Collectors.toSet());
+        Map<UUID, NotificationPreference> preferences = preferenceCache.getAll(userIds, preferenceRepository::findAllByUserIdIn);
+
+        List<UUID> abandoned = new ArrayList<>();
+        Map<UUID, Long> abandonedPerUser = new HashMap<>();
+        Map<String, List<UUID>> byContactInfo = new HashMap<>();
+        List<Notification> deliverable = new ArrayList<>(due.size());
+
+        for (Notification notification : due) {
+            NotificationPreference userPreference = preferences.get(notification.getUserId());
+            if (userPreference == null || !userPreference.isEnabled()) {
+                abandoned.add(notification.getId());
+                abandonedPerUser.merge(notification.getUserId(), 1L, Long::sum);
+            } else {
+                byContactInfo.computeIfAbsent(userPreference.getContactInfo(), ignored -> new ArrayList<>()).add(notification.getId());
+                deliverable.add(notification);
+            }
+        }
+
+        // The rows are changed by the set-based updates below, not through the loaded entities,
+        // which the updates detach.
+        LocalDateTime leasedUntil = now.plus(properties.getLease());
+        if (!abandoned.isEmpty()) {
+            notificationRepository.abandonByIdIn(abandoned, now);
+            abandonedPerUser.forEach((userId, amount) -> counters.move(userId, NotificationStatus.FAILED, NotificationStatus.ABANDONED, amount));
+        }
+        byContactInfo.forEach((contactInfo, ids) -> notificationRepository.leaseRetry(ids, contactInfo, leasedUntil, now));
+
+        for (Notification notification : deliverable) {
+            notification.setContactInfo(preferences.get(notification.getUserId()).getContactInfo());
+            notification.setNextAttemptAt(leasedUntil);
+            notification.setUpdatedOn(now);
+        }
+        return deliverable;
+    }
+
+    /**
+     * Stores the outcome of a send: the status, the attempts made and when the next retry is due.
+     * Notifications with the same outcome are written with one set-based update that leaves the
+     * other columns alone, so a notification the user cleared while it was being sent stays
+     * cleared. As the updates bypass {@link NotificationCounterListener}, the counters are moved
+     * here, leaving the cleared notifications out.
+     */
+    @Transactional
+    public void recordOutcomes(List<Notification> notifications) {
+
+        Map<Outcome, List<Notification>> byOutcome = new HashMap<>();
+        for (Notification notification : notifications) {
+            Outcome outcome = new Outcome(notification.getStatus(), notification.getAttempts(), notification.getNextAttemptAt(), notification.getUpdatedOn());
+            byOutcome.computeIfAbsent(outcome, ignored -> new ArrayList<>()).add(notification);
+        }
+
+        byOutcome.forEach((outcome, group) -> {
+            List<UUID> ids = group.stream().map(Notification::getId).toList();
+            notificationRepository.updateOutcome(ids, outcome.status(), outcome.attempts(), outcome.nextAttemptAt(), outcome.updatedOn());
+            // Read after the update, which locks the rows, so a clear cannot slip in between.
+            Set<UUID> deleted = new HashSet<>(notificationRepository.findDeletedIdsByIdIn(ids));
+
+            Map<UUID, Map<NotificationStatus, Long>> moves = new HashMap<>();
+            for (Notification notification : group) {
+                boolean isDeleted = deleted.contains(notification.getId());
+                if (!isDeleted && notification.getStoredStatus() != outcome.status()) {
+                    moves.computeIfAbsent(notification.getUserId(), ignored -> new HashMap<>())
+                            .merge(notification.getStoredStatus(), 1L, Long::sum);
+                }
+                notification.setDeleted(isDeleted);
+                notification.setStoredStatus(outcome.status());
+                notification.setStoredDeleted(isDeleted);
+            }
+            moves.forEach((userId, from) -> from.forEach((status, amount) -> counters.move(userId, status, outcome.status(), amount)));
+        });
+    }
+
+    /**
+     * Makes the user's FAILED and ABANDONED notifications due right away; the background retry
+     * picks them up on its next poll. ABANDONED ones are turned into FAILED first, so the user's
+     * counters can be moved by exactly the number of revived notifications.
+     */
+    @Transactional
+    public int scheduleImmediateRetry(UUID userId) {
+
+        LocalDateTime now = LocalDateTime.now();
+        int revived = notificationRepository.reviveAbandoned(userId, now);
+        counters.move(userId, NotificationStatus.ABANDONED, NotificationStatus.FAILED, revived);
+        return notificationRepository.scheduleImmediateRetry(userId, now);
+    }
+
+    private record Outcome(NotificationStatus status, int attempts, LocalDateTime nextAttemptAt, LocalDateTime updatedOn) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class NotificationScheduleService {
+    private final NotificationRepository notificationRepository;
+    private final NotificationOutboxService outboxService;
+    private final NotificationMetrics metrics;
+
+    @Autowired
+    public NotificationScheduleService(NotificationRepository notificationRepository, NotificationOutboxService outboxService, NotificationMetrics metrics) {
+        this.notificationRepository = notificationRepository;
+        this.outboxService = outboxService;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Hands the given SCHEDULED notifications to the outbox as PENDING. Rows another instance is
+     * releasing, or that are no longer SCHEDULED, are left out, so releasing the same notification
+     * twice sends it once; ones cleared while they waited are ABANDONED without being sent.
+     */
+    @Transactional
+    public List<Notification> release(Collection<UUID> notificationIds) {
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> due = new ArrayList<>();
+        for (Notification notification : notificationRepository.lockScheduled(notificationIds)) {
+            notification.setStatus(notification.isDeleted() ? NotificationStatus.ABANDONED : NotificationStatus.PENDING);
+            notification.setUpdatedOn(now);
+            if (!notification.isDeleted()) {
+                due.add(notification);
+            }
+        }
+
+        if (due.isEmpty()) {
+            return due;
+        }
+        List<Notification> released = outboxService.enqueueAll(due);
+        metrics.count(NotificationStatus.PENDING, released.size());
+        return released;
+    }
+}
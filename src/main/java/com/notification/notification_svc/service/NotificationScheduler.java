@@ -0,0 +1,175 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.config.ScheduleProperties;
+import com.notification.notification_svc.dispatch.TimingWheel;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Releases SCHEDULED notifications at their {@code sendAt}. The notifications due within
+ * {@code horizon} are kept, by id, in a {@link TimingWheel}, which is refilled from the database a
+ * batch at a time, continuing after the last row it loaded. Notifications scheduled on this
+ * instance go into the wheel directly, so the refill never has to look behind its position.
+ * <p>
+ * Once more than {@code smearThreshold} notifications fall into the same second, the ones beyond
+ * it are spread over {@code smearWindow} after it, so a campaign scheduled for the top of the hour
+ * does not reach the dispatcher as one burst.
+ * <p>
+ * Every instance loads every scheduled row; releasing locks the rows, so each one is still sent
+ * once. Rows no wheel released, such as those an instance took down with it, are loaded again by
+ * the recovery loop once they are {@code staleAfter} overdue.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(ScheduleProperties.class)
+public class NotificationScheduler {
+    private static final int LEVELS = 4;
+
+    private final NotificationScheduleService scheduleService;
+    private final NotificationRepository notificationRepository;
+    private final ScheduleProperties properties;
+    private final TimingWheel<UUID> wheel;
+    private final TreeMap<Long, Integer> dueBySecond = new TreeMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter released;
+    private final Counter smeared;
+    private LocalDateTime loadedSendAt;
+    private UUID loadedId;
+
+    @Autowired
+    public NotificationScheduler(NotificationScheduleService scheduleService, NotificationRepository notificationRepository, ScheduleProperties properties, MeterRegistry meterRegistry) {
+        this.scheduleService = scheduleService;
+        this.notificationRepository = notificationRepository;
+        this.properties = properties;
+        this.wheel = new TimingWheel<>(properties.getTick().toMillis(), LEVELS, System.currentTimeMillis());
+        this.released = meterRegistry.counter("notification.schedule.released");
+        this.smeared = meterRegistry.counter("notification.schedule.smeared");
+        Gauge.builder("notification.schedule.waiting", this, NotificationScheduler::size)
+                .description("Scheduled notifications loaded into the timing wheel")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds stored SCHEDULED notifications that are due within {@code horizon} to the wheel; later
+     * ones are left to the refill.
+     */
+    public void add(List<Notification> notifications) {
+
+        LocalDateTime horizon = LocalDateTime.now().plus(properties.getHorizon());
+        lock.lock();
+        try {
+            for (Notification notification : notifications) {
+                if (notification.getSendAt().isBefore(horizon) && !wheel.contains(notification.getId())) {
+                    wheel.schedule(notification.getId(), releaseAt(notification));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+
+        lock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.schedule.tick:100ms}")
+    public void releaseDue() {
+
+        long now = System.currentTimeMillis();
+        List<UUID> due;
+        lock.lock();
+        try {
+            due = wheel.advanceTo(now);
+            dueBySecond.headMap(Math.floorDiv(now, 1000L)).clear();
+        } finally {
+            lock.unlock();
+        }
+
+        int batchSize = properties.getBatchSize();
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<UUID> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                released.increment(scheduleService.release(batch).size());
+            } catch (RuntimeException e) {
+                log.warn("Releasing {} scheduled notifications failed, they are recovered once they are stale.", batch.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Loads the scheduled rows due within {@code horizon} that the wheel has not seen yet, one
+     * batch after the other, until they are all loaded or the wheel holds {@code capacity}.
+     */
+    @Scheduled(fixedDelayString = "${notification.schedule.refill-interval:1s}")
+    public void refill() {
+
+        LocalDateTime until = LocalDateTime.now().plus(properties.getHorizon());
+        Limit limit = Limit.of(properties.getBatchSize());
+        while (size() < properties.getCapacity()) {
+            List<Notification> batch = loadedSendAt == null
+                    ? notificationRepository.findFirstScheduled(until, limit)
+                    : notificationRepository.findScheduledAfter(loadedSendAt, loadedId, until, limit);
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            add(batch);
+            Notification last = batch.get(batch.size() - 1);
+            loadedSendAt = last.getSendAt();
+            loadedId = last.getId();
+            if (batch.size() < properties.getBatchSize()) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.schedule.recovery-interval:1m}")
+    public void recover() {
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getStaleAfter());
+        List<Notification> stale = notificationRepository.findFirstScheduled(cutoff, Limit.of(properties.getBatchSize()));
+        if (!stale.isEmpty()) {
+            log.info("Recovered {} overdue scheduled notifications.", stale.size());
+            add(stale);
+        }
+    }
+
+    /**
+     * The notification's {@code sendAt} in epoch milliseconds, or now when it is overdue, moved
+     * into the smear window when its second is full already. The offset comes from the random bits
+     * of the id, so it is spread evenly and the same on every instance.
+     */
+    private long releaseAt(Notification notification) {
+
+        long releaseAt = Math.max(System.currentTimeMillis(), notification.getSendAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        long smearWindow = properties.getSmearWindow().toMillis();
+        if (smearWindow <= 0 || dueBySecond.merge(Math.floorDiv(releaseAt, 1000L), 1, Integer::sum) <= properties.getSmearThreshold()) {
+            return releaseAt;
+        }
+
+        smeared.increment();
+        return releaseAt + Math.floorMod(notification.getId().getLeastSignificantBits(), smearWindow);
+    }
+}
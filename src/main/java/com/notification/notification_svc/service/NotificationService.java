@@ -1,34 +1,89 @@
 package com.notification.notification_svc.service;
 
+import com.notification.notification_svc.config.DispatchProperties;
+import com.notification.notification_svc.config.HistoryProperties;
+import com.notification.notification_svc.model.ArchivedNotification;
 import com.notification.notification_svc.model.Notification;
 import com.notification.notification_svc.model.NotificationPreference;
+import com.notification.notification_svc.model.NotificationPriority;
 import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.model.NotificationTemplate;
 import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.repository.ArchivedNotificationRepository;
 import com.notification.notification_svc.repository.NotificationPreferenceRepository;
 import com.notification.notification_svc.repository.NotificationRepository;
+import com.notification.notification_svc.web.dto.BulkNotificationRequest;
 import com.notification.notification_svc.web.dto.NotificationRequest;
 import com.notification.notification_svc.web.dto.UpsertNotificationPreference;
+import com.notification.notification_svc.web.dto.UpsertNotificationTemplate;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@EnableConfigurationProperties(HistoryProperties.class)
 public class NotificationService {
+    private static final Comparator<Notification> NEWEST_FIRST = Comparator.comparing(Notification::getCreatedOn)
+            .thenComparing(Notification::getId, NotificationService::compareUnsigned)
+            .reversed();
+
     private final NotificationRepository notificationRepository;
+    private final ArchivedNotificationRepository archivedRepository;
     private final NotificationPreferenceRepository preferenceRepository;
-    private final JavaMailSender mailSender;
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationOutboxService outboxService;
+    private final NotificationRetryService retryService;
+    private final PreferenceCache preferenceCache;
+    private final TemplateRegistry templateRegistry;
+    private final IdempotencyGuard idempotencyGuard;
+    private final NotificationDigestBuffer digestBuffer;
+    private final NotificationScheduler scheduler;
+    private final NotificationCounters counters;
+    private final NotificationMetrics metrics;
+    private final DispatchProperties dispatchProperties;
+    private final HistoryProperties historyProperties;
+    private final EntityManager entityManager;
 
     @Autowired
-    public NotificationService(NotificationRepository notificationRepository, NotificationPreferenceRepository preferenceRepository, JavaMailSender mailSender) {
+    public NotificationService(NotificationRepository notificationRepository, ArchivedNotificationRepository archivedRepository, NotificationPreferenceRepository preferenceRepository, PreferenceCache preferenceCache, TemplateRegistry templateRegistry, IdempotencyGuard idempotencyGuard, NotificationDigestBuffer digestBuffer, NotificationScheduler scheduler, NotificationCounters counters, NotificationDispatcher notificationDispatcher, NotificationOutboxService outboxService, NotificationRetryService retryService, NotificationMetrics metrics, DispatchProperties dispatchProperties, HistoryProperties historyProperties, EntityManager entityManager) {
         this.notificationRepository = notificationRepository;
+        this.archivedRepository = archivedRepository;
         this.preferenceRepository = preferenceRepository;
-        this.mailSender = mailSender;
+        this.preferenceCache = preferenceCache;
+        this.templateRegistry = templateRegistry;
+        this.idempotencyGuard = idempotencyGuard;
+        this.digestBuffer = digestBuffer;
+        this.scheduler = scheduler;
+        this.counters = counters;
+        this.notificationDispatcher = notificationDispatcher;
+        this.outboxService = outboxService;
+        this.retryService = retryService;
+        this.metrics = metrics;
+        this.dispatchProperties = dispatchProperties;
+        this.historyProperties = historyProperties;
+        this.entityManager = entityManager;
     }
 
     public NotificationPreference upsertPreference(UpsertNotificationPreference preference) {
@@ -41,7 +96,8 @@ public class NotificationService {
             userNotificationPreference.setType(preference.getType());
             userNotificationPreference.setUpdatedOn(LocalDateTime.now());
             userNotificationPreference.setEnabled(preference.isNotificationEnabled());
-            return preferenceRepository.save(userNotificationPreference);
+            userNotificationPreference.setDigestEnabled(preference.isDigestEnabled());
+            return cachePreference(preferenceRepository.save(userNotificationPreference));
         }
 
         NotificationPreference userNotificationPreference = NotificationPreference.builder()
@@ -49,97 +105,509 @@ public class NotificationService {
                 .contactInfo(preference.getContactInfo())
                 .createdOn(LocalDateTime.now())
                 .enabled(preference.isNotificationEnabled())
+                .digestEnabled(preference.isDigestEnabled())
                 .type(preference.getType())
                 .updatedOn(LocalDateTime.now())
                 .build();
 
-        return preferenceRepository.save(userNotificationPreference);
+        return cachePreference(preferenceRepository.save(userNotificationPreference));
     }
     public NotificationPreference getPreferenceByUserId(UUID userId) {
-        return preferenceRepository.findNotificationPreferenceByUserId(userId).orElseThrow(() -> new NullPointerException("Notification preference for user id %s was not found.".formatted(userId)));
+        long start = System.nanoTime();
+        Optional<NotificationPreference> preference = preferenceCache.get(userId, preferenceRepository::findNotificationPreferenceByUserId);
+        metrics.record(NotificationMetrics.Stage.PREFERENCE_FETCH, start);
+        return preference.orElseThrow(() -> new NullPointerException("Notification preference for user id %s was not found.".formatted(userId)));
+    }
+    public NotificationTemplate upsertTemplate(UpsertNotificationTemplate template) {
+
+        return templateRegistry.save(template.getId(), template.getSubject(), template.getBody());
+    }
+
+    public NotificationTemplate getTemplate(String templateId) {
+
+        return templateRegistry.getTemplate(templateId);
     }
+
+    /**
+     * Sends the notification, or with an idempotency key that was used before for the same user,
+     * returns the notification of that first request without sending again. Without a priority the
+     * notification is treated as transactional and sent with HIGH priority. With a future
+     * {@code sendAt} the notification is stored as SCHEDULED and sent at that time, on its own even
+     * for a user who opted into digests; otherwise, for such a user it is stored as BUFFERED and
+     * sent later as part of a digest.
+     */
     public Notification sendNotification(NotificationRequest notificationRequest) {
 
+        String idempotencyKey = notificationRequest.getIdempotencyKey();
+        if (idempotencyKey == null) {
+            return send(notificationRequest);
+        }
+
+        IdempotencyGuard.validate(idempotencyKey);
+        return idempotencyGuard.execute(notificationRequest.getUserId(), idempotencyKey, () -> send(notificationRequest));
+    }
+
+    private Notification send(NotificationRequest notificationRequest) {
+
         UUID userId = notificationRequest.getUserId();
         NotificationPreference userPreference = getPreferenceByUserId(userId);
 
         if (!userPreference.isEnabled()) {
             throw new IllegalArgumentException("User with id %s does not allow to receive notifications.".formatted(userId));
         }
+        validateContent(notificationRequest);
+
+        long start = System.nanoTime();
+        Notification notification = buildNotification(notificationRequest, userPreference, NotificationPriority.HIGH, null);
+        metrics.record(NotificationMetrics.Stage.MESSAGE_BUILD, start);
+
+        if (notification.getSendAt() != null) {
+            notification.setStatus(NotificationStatus.SCHEDULED);
+            start = System.nanoTime();
+            Notification scheduled = notificationRepository.save(notification);
+            metrics.record(NotificationMetrics.Stage.PERSISTENCE, start);
+            metrics.count(NotificationStatus.SCHEDULED);
+            scheduler.add(List.of(scheduled));
+            return scheduled;
+        }
+
+        if (userPreference.isDigestEnabled()) {
+            notification.setStatus(NotificationStatus.BUFFERED);
+            start = System.nanoTime();
+            Notification buffered = notificationRepository.save(notification);
+            metrics.record(NotificationMetrics.Stage.PERSISTENCE, start);
+            metrics.count(NotificationStatus.BUFFERED);
+            digestBuffer.add(List.of(buffered));
+            return buffered;
+        }
+
+        if (!dispatchProperties.isAsync()) {
+            // Stored before the message goes out, so a send that outlasts the channel's timeout is
+            // answered with an id. The leased outbox entry sends it after all if this instance dies
+            // during the send. The insert also claims the idempotency key, so a concurrent repeat
+            // on another instance hits the unique constraint instead of sending a second time.
+            notification.setStatus(NotificationStatus.PENDING);
+            start = System.nanoTime();
+            notification = outboxService.enqueueLeased(notification);
+            metrics.record(NotificationMetrics.Stage.PERSISTENCE, start);
+            return notificationDispatcher.deliver(notification);
+        }
+
+        rejectIfBackpressured(notificationDispatcher.isBackpressured(notification.getType(), notification.getPriority()));
+        notification.setStatus(NotificationStatus.PENDING);
+        start = System.nanoTime();
+        Notification enqueued = outboxService.enqueue(notification);
+        metrics.record(NotificationMetrics.Stage.PERSISTENCE, start);
+        metrics.count(NotificationStatus.PENDING);
+        return enqueued;
+    }
+
+    /**
+     * Accepts the requests for asynchronous delivery with the request's priority, LOW unless set,
+     * and its {@code sendAt} for every notification that does not set its own. A request scheduled
+     * for later is not turned away while the dispatcher is backpressured.
+     */
+    public BulkAcceptResult sendBulkNotification(BulkNotificationRequest bulkRequest) {
+
+        List<NotificationRequest> notificationRequests;
+        NotificationPriority priority = Objects.requireNonNullElse(bulkRequest.getPriority(), NotificationPriority.LOW);
+
+        if (bulkRequest.getNotifications() != null && !bulkRequest.getNotifications().isEmpty()) {
+            notificationRequests = bulkRequest.getNotifications();
+        } else if (bulkRequest.getUserIds() != null && !bulkRequest.getUserIds().isEmpty()) {
+            notificationRequests = bulkRequest.getUserIds().stream()
+                    .map(userId -> NotificationRequest.builder()
+                            .userId(userId)
+                            .subject(bulkRequest.getSubject())
+                            .body(bulkRequest.getBody())
+                            .templateId(bulkRequest.getTemplateId())
+                            .variables(bulkRequest.getVariables())
+                            .build())
+                    .toList();
+        } else {
+            throw new IllegalArgumentException("Bulk notification request must contain notifications or userIds.");
+        }
+
+        LocalDateTime sendAt = scheduledSendAt(bulkRequest.getSendAt());
+        if (sendAt == null) {
+            rejectIfBackpressured(notificationDispatcher.isBackpressured(priority));
+        }
+        return acceptNotifications(notificationRequests, priority, sendAt);
+    }
+
+    /**
+     * Requires either a subject and a body, or a known template whose variables are all given.
+     */
+    private void validateContent(NotificationRequest notificationRequest) {
+
+        if (notificationRequest.getTemplateId() != null) {
+            templateRegistry.validate(notificationRequest.getTemplateId(), notificationRequest.getVariables());
+        } else if (isBlank(notificationRequest.getSubject()) || isBlank(notificationRequest.getBody())) {
+            throw new IllegalArgumentException("Notification must have a subject and a body, or a templateId.");
+        }
+    }
+
+    private static boolean isBlank(String value) {
+
+        return value == null || value.isBlank();
+    }
+
+    private static String idempotencyProblem(NotificationRequest notificationRequest) {
+
+        try {
+            if (notificationRequest.getIdempotencyKey() != null) {
+                IdempotencyGuard.validate(notificationRequest.getIdempotencyKey());
+            }
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String contentProblem(NotificationRequest notificationRequest) {
+
+        try {
+            validateContent(notificationRequest);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private void rejectIfBackpressured(boolean backpressured) {
+
+        if (backpressured) {
+            throw new DispatchBackpressureException(dispatchProperties.getBackpressureRetryAfter());
+        }
+    }
+
+    /**
+     * Accepts requests for asynchronous delivery, one transaction per chunk. Requests for unknown
+     * users, users who disabled notifications, unknown templates or without a subject and body are
+     * skipped rather than failing the whole batch. A request whose idempotency key was accepted before is answered with the
+     * notification accepted back then. Requests without a priority are sent with LOW priority.
+     */
+    public BulkAcceptResult acceptNotifications(List<NotificationRequest> notificationRequests) {
+
+        return acceptNotifications(notificationRequests, NotificationPriority.LOW, null);
+    }
+
+    private BulkAcceptResult acceptNotifications(List<NotificationRequest> notificationRequests, NotificationPriority defaultPriority, LocalDateTime defaultSendAt) {
+
+        List<BulkAcceptResult.Item> items = new ArrayList<>(notificationRequests.size());
+        int chunkSize = dispatchProperties.getBulkChunkSize();
+
+        for (int from = 0; from < notificationRequests.size(); from += chunkSize) {
+            List<NotificationRequest> chunk = notificationRequests.subList(from, Math.min(from + chunkSize, notificationRequests.size()));
+            items.addAll(acceptChunk(chunk, from, defaultPriority, defaultSendAt));
+        }
+
+        return new BulkAcceptResult(items);
+    }
+
+    /**
+     * Accepts one chunk in one transaction and returns an item per request, in request order;
+     * {@code offset} is the position of the chunk's first request.
+     */
+    private List<BulkAcceptResult.Item> acceptChunk(List<NotificationRequest> chunk, int offset, NotificationPriority defaultPriority, LocalDateTime defaultSendAt) {
+
+        Set<UUID> userIds = chunk.stream()
+                .map(NotificationRequest::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        long start = System.nanoTime();
+        Map<UUID, NotificationPreference> preferences = preferenceCache.getAll(userIds, preferenceRepository::findAllByUserIdIn);
+        metrics.record(NotificationMetrics.Stage.PREFERENCE_FETCH, start);
+
+        start = System.nanoTime();
+        BulkAcceptResult.Item[] items = new BulkAcceptResult.Item[chunk.size()];
+        List<Notification> pending = new ArrayList<>(chunk.size());
+        List<Integer> pendingPositions = new ArrayList<>(chunk.size());
+        Set<IdempotencyGuard.Key> chunkKeys = new HashSet<>();
+
+        for (int position = 0; position < chunk.size(); position++) {
+            NotificationRequest notificationRequest = chunk.get(position);
+            int index = offset + position;
+            UUID userId = notificationRequest.getUserId();
+            NotificationPreference userPreference = userId == null ? null : preferences.get(userId);
+            String idempotencyKey = notificationRequest.getIdempotencyKey();
+            String idempotencyProblem = idempotencyProblem(notificationRequest);
+            String contentProblem = contentProblem(notificationRequest);
+            Optional<Notification> previous = userId == null || idempotencyKey == null || idempotencyProblem != null
+                    ? Optional.empty()
+                    : idempotencyGuard.recent(userId, idempotencyKey);
+
+            if (userId == null) {
+                items[position] = BulkAcceptResult.Item.skipped(index, null, "User id is required.");
+            } else if (idempotencyProblem != null) {
+                items[position] = BulkAcceptResult.Item.skipped(index, userId, idempotencyProblem);
+            } else if (previous.isPresent()) {
+                items[position] = BulkAcceptResult.Item.accepted(index, previous.get());
+            } else if (idempotencyKey != null && !chunkKeys.add(new IdempotencyGuard.Key(userId, idempotencyKey))) {
+                items[position] = BulkAcceptResult.Item.skipped(index, userId, "Idempotency key %s is used more than once in the request.".formatted(idempotencyKey));
+            } else if (userPreference == null) {
+                items[position] = BulkAcceptResult.Item.skipped(index, userId, "Notification preference for user id %s was not found.".formatted(userId));
+            } else if (!userPreference.isEnabled()) {
+                items[position] = BulkAcceptResult.Item.skipped(index, userId, "User with id %s does not allow to receive notifications.".formatted(userId));
+            } else if (contentProblem != null) {
+                items[position] = BulkAcceptResult.Item.skipped(index, userId, contentProblem);
+            } else {
+                Notification notification = buildNotification(notificationRequest, userPreference, defaultPriority, defaultSendAt);
+                notification.setStatus(notification.getSendAt() != null
+                        ? NotificationStatus.SCHEDULED
+                        : userPreference.isDigestEnabled() ? NotificationStatus.BUFFERED : NotificationStatus.PENDING);
+                pending.add(notification);
+                pendingPositions.add(position);
+            }
+        }
+
+        metrics.record(NotificationMetrics.Stage.MESSAGE_BUILD, start);
+
+        if (pending.isEmpty()) {
+            return Arrays.asList(items);
+        }
+
+        start = System.nanoTime();
+        Map<IdempotencyGuard.Key, Notification> stored = new HashMap<>();
+        List<Notification> enqueued = chunkKeys.isEmpty() ? outboxService.enqueueAll(pending) : enqueueKeyed(pending, stored);
+        metrics.record(NotificationMetrics.Stage.PERSISTENCE, start);
+        List<Notification> buffered = enqueued.stream().filter(notification -> notification.getStatus() == NotificationStatus.BUFFERED).toList();
+        List<Notification> scheduled = enqueued.stream().filter(notification -> notification.getStatus() == NotificationStatus.SCHEDULED).toList();
+        metrics.count(NotificationStatus.PENDING, enqueued.size() - buffered.size() - scheduled.size());
+        metrics.count(NotificationStatus.BUFFERED, buffered.size());
+        metrics.count(NotificationStatus.SCHEDULED, scheduled.size());
+        idempotencyGuard.remember(enqueued);
+        digestBuffer.add(buffered);
+        scheduler.add(scheduled);
+
+        for (int i = 0; i < pending.size(); i++) {
+            Notification notification = pending.get(i);
+            if (notification.getIdempotencyKey() != null) {
+                notification = stored.getOrDefault(IdempotencyGuard.Key.of(notification), notification);
+            }
+            items[pendingPositions.get(i)] = BulkAcceptResult.Item.accepted(offset + pendingPositions.get(i), notification);
+        }
+        return Arrays.asList(items);
+    }
+
+    /**
+     * Enqueues a chunk that carries idempotency keys. Only when the unique constraint rejects the
+     * chunk are the already stored keys looked up; their notifications are put into
+     * {@code stored}, to be returned as replays, and the rest of the chunk is enqueued again.
+     */
+    private List<Notification> enqueueKeyed(List<Notification> pending, Map<IdempotencyGuard.Key, Notification> stored) {
+
+        try {
+            return outboxService.enqueueAll(pending);
+        } catch (DataIntegrityViolationException e) {
+            stored.putAll(idempotencyGuard.stored(pending));
+            if (stored.isEmpty()) {
+                throw e;
+            }
+
+            List<Notification> remaining = pending.stream()
+                    .filter(notification -> notification.getIdempotencyKey() == null || !stored.containsKey(new IdempotencyGuard.Key(notification.getUserId(), notification.getIdempotencyKey())))
+                    .toList();
+            // The rolled back insert already assigned ids; new ones are generated on the next try.
+            remaining.forEach(notification -> notification.setId(null));
+            return remaining.isEmpty() ? remaining : outboxService.enqueueAll(remaining);
+        }
+    }
 
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(userPreference.getContactInfo());
-        message.setSubject(notificationRequest.getSubject());
-        message.setText(notificationRequest.getBody());
+    private Notification buildNotification(NotificationRequest notificationRequest, NotificationPreference userPreference, NotificationPriority defaultPriority, LocalDateTime defaultSendAt) {
 
-        Notification notification = Notification.builder()
+        LocalDateTime sendAt = notificationRequest.getSendAt() == null ? defaultSendAt : scheduledSendAt(notificationRequest.getSendAt());
+
+        return Notification.builder()
                 .subject(notificationRequest.getSubject())
                 .body(notificationRequest.getBody())
+                .templateId(notificationRequest.getTemplateId())
+                .templateVariables(notificationRequest.getTemplateId() == null ? null : notificationRequest.getVariables())
+                .contactInfo(userPreference.getContactInfo())
+                .idempotencyKey(notificationRequest.getIdempotencyKey())
                 .createdOn(LocalDateTime.now())
                 .updatedOn(LocalDateTime.now())
-                .userId(userId)
+                .userId(notificationRequest.getUserId())
                 .isDeleted(false)
-                .type(NotificationType.EMAIL)
+                // A preference without a type means e-mail, the only channel before webhooks.
+                .type(Objects.requireNonNullElse(userPreference.getType(), NotificationType.EMAIL))
+                .priority(Objects.requireNonNullElse(notificationRequest.getPriority(), defaultPriority))
+                .sendAt(sendAt)
                 .build();
+    }
 
-        try {
-            mailSender.send(message);
-            notification.setStatus(NotificationStatus.SUCCEEDED);
-        } catch (Exception e) {
-            notification.setStatus(NotificationStatus.FAILED);
+    /**
+     * The requested send time in the server's time zone, the one every other timestamp is stored
+     * in, or {@code null} when it is missing or not in the future and the notification is sent
+     * right away.
+     */
+    private static LocalDateTime scheduledSendAt(OffsetDateTime sendAt) {
+
+        if (sendAt == null) {
+            return null;
         }
+        LocalDateTime local = sendAt.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        return local.isAfter(LocalDateTime.now()) ? local : null;
+    }
+
+    /**
+     * Counts of the user's notifications per status and when one was last sent, read from the
+     * incrementally maintained counters rather than from the history.
+     */
+    public NotificationSummary getNotificationSummary(UUID userId) {
 
-        return notificationRepository.save(notification);
+        return counters.summary(userId);
     }
 
-    public List<Notification> getNotificationHistory(UUID userId) {
+    /**
+     * Returns the user's history from the primary table, plus the archived part when
+     * {@code includeArchived} is set.
+     */
+    public List<Notification> getNotificationHistory(UUID userId, boolean includeArchived) {
 
-        return notificationRepository.findAllByUserIdAndDeletedIsFalse(userId);
+        List<Notification> notifications = notificationRepository.findAllByUserIdAndDeletedIsFalse(userId);
+        if (!includeArchived) {
+            return notifications;
+        }
+
+        List<Notification> history = new ArrayList<>(notifications);
+        archivedRepository.findAllByUserIdAndDeletedIsFalse(userId).forEach(archived -> history.add(fromArchive(archived)));
+        return history;
     }
 
-    public NotificationPreference changeNotificationPreference(UUID userId, boolean enabled) {
+    /**
+     * Returns one page of the user's history, newest first. Pages are addressed by the position of
+     * the last row of the previous page, so every page costs the same index range scan no matter
+     * how deep into the history it is. With {@code includeArchived} the same range is read from the
+     * archive as well and both are merged into one page.
+     */
+    public HistoryPage getNotificationHistoryPage(UUID userId, HistoryCursor cursor, Integer limit, boolean includeArchived) {
 
-        NotificationPreference notificationPreference = getPreferenceByUserId(userId);
-        notificationPreference.setEnabled(enabled);
-        return preferenceRepository.save(notificationPreference);
+        int pageSize = limit == null ? historyProperties.getDefaultPageSize() : Math.max(1, Math.min(limit, historyProperties.getMaxPageSize()));
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        List<Notification> notifications = cursor == null
+                ? notificationRepository.findFirstHistoryPage(userId, fetchLimit)
+                : notificationRepository.findHistoryPageAfter(userId, cursor.getCreatedOn(), cursor.getId(), fetchLimit);
+
+        if (includeArchived) {
+            List<ArchivedNotification> archived = cursor == null
+                    ? archivedRepository.findFirstHistoryPage(userId, fetchLimit)
+                    : archivedRepository.findHistoryPageAfter(userId, cursor.getCreatedOn(), cursor.getId(), fetchLimit);
+
+            List<Notification> merged = new ArrayList<>(notifications);
+            archived.forEach(row -> merged.add(fromArchive(row)));
+            merged.sort(NEWEST_FIRST);
+            notifications = merged.subList(0, Math.min(merged.size(), pageSize + 1));
+        }
+
+        if (notifications.size() <= pageSize) {
+            return new HistoryPage(notifications, null);
+        }
+
+        List<Notification> page = notifications.subList(0, pageSize);
+        return new HistoryPage(page, HistoryCursor.after(page.get(pageSize - 1)));
     }
 
-    public void clearNotifications(UUID userId) {
+    private static Notification fromArchive(ArchivedNotification archived) {
 
-        List<Notification> notifications = getNotificationHistory(userId);
+        return Notification.builder()
+                .id(archived.getId())
+                .userId(archived.getUserId())
+                .body(archived.getBody())
+                .subject(archived.getSubject())
+                .type(archived.getType())
+                .status(archived.getStatus())
+                .priority(Objects.requireNonNullElse(archived.getPriority(), NotificationPriority.LOW))
+                .enabled(archived.isEnabled())
+                .product(archived.getProduct())
+                .contactInfo(archived.getContactInfo())
+                .templateId(archived.getTemplateId())
+                .templateVariables(archived.getTemplateVariables())
+                .idempotencyKey(archived.getIdempotencyKey())
+                .digestId(archived.getDigestId())
+                .sendAt(archived.getSendAt())
+                .createdOn(archived.getCreatedOn())
+                .updatedOn(archived.getUpdatedOn())
+                .isDeleted(archived.isDeleted())
+                .attempts(archived.getAttempts())
+                .build();
+    }
 
-        notifications.forEach(notification -> {
-            notification.setDeleted(true);
-            notificationRepository.save(notification);
-        });
+    /**
+     * Orders ids the way the database orders {@code BINARY(16)} columns, byte by byte.
+     */
+    private static int compareUnsigned(UUID left, UUID right) {
+
+        int mostSignificant = Long.compareUnsigned(left.getMostSignificantBits(), right.getMostSignificantBits());
+        return mostSignificant != 0 ? mostSignificant : Long.compareUnsigned(left.getLeastSignificantBits(), right.getLeastSignificantBits());
     }
 
-    public void retryFailedNotifications(UUID userId) {
+    /**
+     * Feeds the user's whole history, newest first, to {@code consumer} one row at a time. Rows are
+     * detached right after they were consumed, so memory use does not grow with the history.
+     */
+    @Transactional(readOnly = true)
+    public void streamNotificationHistory(UUID userId, Consumer<Notification> consumer) {
 
-        NotificationPreference userPreference = getPreferenceByUserId(userId);
-        if (!userPreference.isEnabled()) {
-            throw new IllegalArgumentException("User with id %s does not allow to receive notifications.".formatted(userId));
+        try (Stream<Notification> notifications = notificationRepository.streamAllByUserIdAndDeletedIsFalse(userId)) {
+            notifications.forEach(notification -> {
+                consumer.accept(notification);
+                entityManager.detach(notification);
+            });
         }
+    }
 
-        List<Notification> failedNotifications = notificationRepository.findAllByUserIdAndStatus(userId, NotificationStatus.FAILED);
-        failedNotifications = failedNotifications.stream().filter(notification ->  !notification.isDeleted()).toList();
+    public NotificationPreference changeNotificationPreference(UUID userId, boolean enabled) {
+
+        NotificationPreference notificationPreference = preferenceRepository.findNotificationPreferenceByUserId(userId).orElseThrow(() -> new NullPointerException("Notification preference for user id %s was not found.".formatted(userId)));
+        notificationPreference.setEnabled(enabled);
+        notificationPreference.setUpdatedOn(LocalDateTime.now());
+        return cachePreference(preferenceRepository.save(notificationPreference));
+    }
 
-        for (Notification notification : failedNotifications) {
+    private NotificationPreference cachePreference(NotificationPreference preference) {
 
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(userPreference.getContactInfo());
-            message.setSubject(notification.getSubject());
-            message.setText(notification.getBody());
+        preferenceCache.put(preference);
+        return preference;
+    }
+
+    /**
+     * Soft-deletes the user's history with set-based updates, one short transaction per id range of
+     * {@code clearChunkSize} rows, and returns the number of rows affected. Archived rows are
+     * soft-deleted too, so they no longer show up in archive reads, and the user's counters start
+     * over from zero.
+     */
+    public int clearNotifications(UUID userId) {
 
-            try {
-                mailSender.send(message);
-                notification.setStatus(NotificationStatus.SUCCEEDED);
-            } catch (Exception e) {
-                notification.setStatus(NotificationStatus.FAILED);
+        int chunkSize = historyProperties.getClearChunkSize();
+        LocalDateTime now = LocalDateTime.now();
+        int cleared = archivedRepository.softDeleteAllByUserId(userId, now);
+
+        while (true) {
+            List<UUID> ids = notificationRepository.findUndeletedIdsByUserId(userId, Limit.of(chunkSize));
+            if (ids.size() < chunkSize) {
+                cleared += notificationRepository.softDeleteAllByUserId(userId, now);
+                counters.clear(userId);
+                return cleared;
             }
 
-            notificationRepository.save(notification);
+            cleared += notificationRepository.softDeleteByUserIdUpToId(userId, ids.get(ids.size() - 1), now);
         }
     }
 
+    /**
+     * Makes the user's FAILED and ABANDONED notifications due for an immediate retry. Delivery
+     * happens in the background retry loop, together with every other due retry.
+     */
+    public int retryFailedNotifications(UUID userId) {
+
+        NotificationPreference userPreference = getPreferenceByUserId(userId);
+        if (!userPreference.isEnabled()) {
+            throw new IllegalArgumentException("User with id %s does not allow to receive notifications.".formatted(userId));
+        }
+
+        return retryService.scheduleImmediateRetry(userId);
+    }
+
 }
@@ -0,0 +1,30 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.model.NotificationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class NotificationSummary {
+    private final UUID userId;
+
+    /**
+     * The user's notifications per status, with every status present.
+     */
+    private final Map<NotificationStatus, Long> counts;
+
+    /**
+     * When a notification of the user was last sent, or {@code null} if none was yet.
+     */
+    private final LocalDateTime lastSentOn;
+
+    public long getTotal() {
+
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
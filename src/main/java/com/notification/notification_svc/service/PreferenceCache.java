@@ -0,0 +1,78 @@
+package com.notification.notification_svc.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.notification_svc.config.PreferenceCacheProperties;
+import com.notification.notification_svc.model.NotificationPreference;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL based cache of notification preferences keyed by userId. Users without a preference
+ * are cached as well, as {@link Optional#empty()}, so lookups for unknown users do not reach the
+ * database either. Writes must go through {@link #put(NotificationPreference)} right after they are
+ * persisted; it also publishes a {@link PreferenceChangedEvent} so other instances can drop their
+ * copy through {@link #evict(UUID)}.
+ */
+@Component
+@EnableConfigurationProperties(PreferenceCacheProperties.class)
+public class PreferenceCache {
+    private final Cache<UUID, Optional<NotificationPreference>> cache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public PreferenceCache(PreferenceCacheProperties properties, MeterRegistry meterRegistry, ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "notification.preferences");
+    }
+
+    public Optional<NotificationPreference> get(UUID userId, Function<UUID, Optional<NotificationPreference>> loader) {
+
+        return cache.get(userId, loader);
+    }
+
+    /**
+     * Returns the cached preferences of the given users, loading all missing ones with a single call
+     * to {@code loader}. Users without a preference are absent from the result.
+     */
+    public Map<UUID, NotificationPreference> getAll(Set<UUID> userIds, Function<Collection<UUID>, List<NotificationPreference>> loader) {
+
+        Map<UUID, Optional<NotificationPreference>> cached = cache.getAll(userIds, missing -> {
+            Map<UUID, Optional<NotificationPreference>> loaded = new HashMap<>();
+            missing.forEach(userId -> loaded.put(userId, Optional.empty()));
+            loader.apply(Set.copyOf(missing)).forEach(preference -> loaded.put(preference.getUserId(), Optional.of(preference)));
+            return loaded;
+        });
+
+        Map<UUID, NotificationPreference> preferences = new HashMap<>(cached.size());
+        cached.forEach((userId, preference) -> preference.ifPresent(value -> preferences.put(userId, value)));
+        return preferences;
+    }
+
+    public void put(NotificationPreference preference) {
+        cache.put(preference.getUserId(), Optional.of(preference));
+        eventPublisher.publishEvent(new PreferenceChangedEvent(preference.getUserId()));
+    }
+
+    public void evict(UUID userId) {
+        cache.invalidate(userId);
+    }
+}
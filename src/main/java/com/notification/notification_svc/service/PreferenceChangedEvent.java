@@ -0,0 +1,15 @@
+package com.notification.notification_svc.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Published after a user's notification preference was written through this instance.
+ */
+@Getter
+@AllArgsConstructor
+public class PreferenceChangedEvent {
+    private final UUID userId;
+}
@@ -0,0 +1,43 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.config.RetryProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter for failed deliveries.
+ */
+@Component
+@EnableConfigurationProperties(RetryProperties.class)
+public class RetryPolicy {
+    private final RetryProperties properties;
+
+    @Autowired
+    public RetryPolicy(RetryProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isExhausted(int attempts) {
+        return attempts >= properties.getMaxAttempts();
+    }
+
+    public LocalDateTime nextAttemptAt(int attempts, LocalDateTime now) {
+
+        return now.plus(backoff(attempts));
+    }
+
+    Duration backoff(int attempts) {
+
+        double base = properties.getInitialBackoff().toMillis() * Math.pow(properties.getMultiplier(), Math.max(0, attempts - 1));
+        double capped = Math.min(base, properties.getMaxBackoff().toMillis());
+        double jitter = properties.getJitter();
+        double factor = jitter > 0 ? ThreadLocalRandom.current().nextDouble(1 - jitter, 1 + jitter) : 1;
+
+        return Duration.ofMillis((long) (capped * factor));
+    }
+}
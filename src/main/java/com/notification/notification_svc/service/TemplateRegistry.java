@@ -0,0 +1,121 @@
+package com.notification.notification_svc.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.notification_svc.config.TemplateProperties;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationTemplate;
+import com.notification.notification_svc.repository.NotificationTemplateRepository;
+import com.notification.notification_svc.template.CompiledTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Stores notification templates and keeps them compiled in a bounded cache, so sending with a
+ * template costs a map lookup and a render rather than a database read and a parse. Templates are
+ * compiled before they are saved, which rejects malformed ones up front.
+ */
+@Service
+@EnableConfigurationProperties(TemplateProperties.class)
+public class TemplateRegistry {
+    private final NotificationTemplateRepository templateRepository;
+    private final Cache<String, Compiled> cache;
+
+    @Autowired
+    public TemplateRegistry(NotificationTemplateRepository templateRepository, TemplateProperties properties, MeterRegistry meterRegistry) {
+        this.templateRepository = templateRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaximumSize())
+                .expireAfterWrite(properties.getCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "notification.templates");
+    }
+
+    public NotificationTemplate save(String templateId, String subject, String body) {
+
+        if (templateId == null || templateId.isBlank() || subject == null || body == null) {
+            throw new IllegalArgumentException("Template id, subject and body are required.");
+        }
+        Compiled compiled = new Compiled(templateId, CompiledTemplate.compile(subject), CompiledTemplate.compile(body));
+
+        LocalDateTime now = LocalDateTime.now();
+        NotificationTemplate template = templateRepository.findById(templateId)
+                .orElseGet(() -> NotificationTemplate.builder().id(templateId).createdOn(now).build());
+        template.setSubject(subject);
+        template.setBody(body);
+        template.setUpdatedOn(now);
+
+        NotificationTemplate saved = templateRepository.save(template);
+        cache.put(templateId, compiled);
+        return saved;
+    }
+
+    public NotificationTemplate getTemplate(String templateId) {
+
+        return templateRepository.findById(templateId).orElseThrow(() -> new NullPointerException("Template %s was not found.".formatted(templateId)));
+    }
+
+    /**
+     * Returns the compiled template. Unknown ids are not cached, so a template saved on another
+     * instance is usable here right away.
+     */
+    public Compiled get(String templateId) {
+
+        Compiled compiled = cache.get(templateId, id -> templateRepository.findById(id)
+                .map(template -> new Compiled(id, CompiledTemplate.compile(template.getSubject()), CompiledTemplate.compile(template.getBody())))
+                .orElse(null));
+        if (compiled == null) {
+            throw new IllegalArgumentException("Template %s was not found.".formatted(templateId));
+        }
+        return compiled;
+    }
+
+    /**
+     * Fails unless the template exists and {@code variables} has a value for each placeholder.
+     */
+    public void validate(String templateId, Map<String, String> variables) {
+
+        Compiled compiled = get(templateId);
+        List<String> missing = compiled.variables().stream()
+                .filter(variable -> variables == null || variables.get(variable) == null)
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Template %s is missing variables %s.".formatted(templateId, missing));
+        }
+    }
+
+    public String renderSubject(Notification notification) {
+
+        return notification.getTemplateId() == null
+                ? notification.getSubject()
+                : get(notification.getTemplateId()).subject().render(variablesOf(notification));
+    }
+
+    public String renderBody(Notification notification) {
+
+        return notification.getTemplateId() == null
+                ? notification.getBody()
+                : get(notification.getTemplateId()).body().render(variablesOf(notification));
+    }
+
+    private static Map<String, String> variablesOf(Notification notification) {
+
+        return notification.getTemplateVariables() == null ? Map.of() : notification.getTemplateVariables();
+    }
+
+    public record Compiled(String id, CompiledTemplate subject, CompiledTemplate body) {
+
+        List<String> variables() {
+            return Stream.concat(subject.getVariables().stream(), body.getVariables().stream()).distinct().toList();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.notification.notification_svc.template;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A template parsed once into its literal text and {@code {{variable}}} placeholders. Rendering
+ * walks the two arrays and writes into a buffer sized to the exact output length, so a render costs
+ * one buffer and the resulting string, and a template without placeholders costs nothing.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class CompiledTemplate {
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String source;
+    /** One more entry than {@link #variables}: the text before, between and after placeholders. */
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+    private final Set<String> variableNames;
+
+    private CompiledTemplate(String source, String[] literals, String[] variables) {
+        this.source = source;
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+        Set<String> names = new LinkedHashSet<>();
+        Collections.addAll(names, variables);
+        this.variableNames = Collections.unmodifiableSet(names);
+    }
+
+    public static CompiledTemplate compile(String source) {
+
+        int count = 0;
+        for (int open = source.indexOf(OPEN); open >= 0; open = source.indexOf(OPEN, open + OPEN.length())) {
+            count++;
+        }
+
+        String[] literals = new String[count + 1];
+        String[] variables = new String[count];
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            int open = source.indexOf(OPEN, position);
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at position %d of template.".formatted(open));
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            if (name.isEmpty() || name.contains(OPEN)) {
+                throw new IllegalArgumentException("Invalid placeholder at position %d of template.".formatted(open));
+            }
+            literals[i] = source.substring(position, open);
+            variables[i] = name;
+            position = close + CLOSE.length();
+        }
+        literals[count] = source.substring(position);
+
+        return new CompiledTemplate(source, literals, variables);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Names of the placeholders, in order of first use.
+     */
+    public Set<String> getVariables() {
+        return variableNames;
+    }
+
+    /**
+     * Renders the template with {@code values}, which must contain every placeholder; extra
+     * entries are ignored.
+     */
+    public String render(Map<String, String> values) {
+
+        if (variables.length == 0) {
+            return literals[0];
+        }
+
+        int length = literalLength;
+        for (String variable : variables) {
+            String value = values.get(variable);
+            if (value == null) {
+                throw new IllegalArgumentException("Template variable %s is missing.".formatted(variable));
+            }
+            length += value.length();
+        }
+
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]).append(values.get(variables[i]));
+        }
+        return out.append(literals[variables.length]).toString();
+    }
+}
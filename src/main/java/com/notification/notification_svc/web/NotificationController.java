@@ -1,30 +1,55 @@
 package com.notification.notification_svc.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.notification.notification_svc.model.Notification;
 import com.notification.notification_svc.model.NotificationPreference;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.model.NotificationTemplate;
+import com.notification.notification_svc.service.BulkAcceptResult;
+import com.notification.notification_svc.service.DispatchBackpressureException;
+import com.notification.notification_svc.service.HistoryCursor;
+import com.notification.notification_svc.service.HistoryPage;
 import com.notification.notification_svc.service.NotificationService;
+import com.notification.notification_svc.service.NotificationSummary;
+import com.notification.notification_svc.web.dto.BulkNotificationRequest;
+import com.notification.notification_svc.web.dto.BulkNotificationResponse;
+import com.notification.notification_svc.web.dto.ClearNotificationsResponse;
+import com.notification.notification_svc.web.dto.ErrorResponse;
+import com.notification.notification_svc.web.dto.NotificationPageResponse;
 import com.notification.notification_svc.web.dto.NotificationPreferenceResponse;
 import com.notification.notification_svc.web.dto.NotificationRequest;
 import com.notification.notification_svc.web.dto.NotificationResponse;
+import com.notification.notification_svc.web.dto.NotificationSummaryResponse;
+import com.notification.notification_svc.web.dto.NotificationTemplateResponse;
 import com.notification.notification_svc.web.dto.UpsertNotificationPreference;
+import com.notification.notification_svc.web.dto.UpsertNotificationTemplate;
 import com.notification.notification_svc.web.mapper.DtoMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/notifications")
 public class NotificationController {
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public NotificationController(NotificationService notificationService) {
+    public NotificationController(NotificationService notificationService, ObjectMapper objectMapper) {
         this.notificationService = notificationService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "Create new Notification Preference", description = "Returns the created notification preference.")
@@ -52,28 +77,121 @@ public class NotificationController {
                 .body(responseDto);
     }
 
+    @Operation(summary = "Create or replace a notification template", description = "Subject and body may contain {{variable}} placeholders. Send with templateId and variables instead of subject and body.")
+    @PostMapping("/templates")
+    public ResponseEntity<NotificationTemplateResponse> upsertNotificationTemplate(@RequestBody UpsertNotificationTemplate upsertNotificationTemplate) {
+
+        NotificationTemplate template = notificationService.upsertTemplate(upsertNotificationTemplate);
+
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(DtoMapper.fromNotificationTemplate(template));
+    }
+
+    @GetMapping("/templates")
+    public ResponseEntity<NotificationTemplateResponse> getNotificationTemplate(@RequestParam(name = "templateId") String templateId) {
+
+        NotificationTemplate template = notificationService.getTemplate(templateId);
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(DtoMapper.fromNotificationTemplate(template));
+    }
+
+    @Operation(summary = "Send a notification", description = "A repeated request with the same Idempotency-Key header or idempotencyKey field returns the first notification without sending again.")
     @PostMapping
-    public ResponseEntity<NotificationResponse> sendNotification(@RequestBody NotificationRequest notificationRequest) {
+    public ResponseEntity<NotificationResponse> sendNotification(@RequestBody NotificationRequest notificationRequest, @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+
+        if (idempotencyKey != null) {
+            if (notificationRequest.getIdempotencyKey() != null && !notificationRequest.getIdempotencyKey().equals(idempotencyKey)) {
+                throw new IllegalArgumentException("Idempotency-Key header and idempotencyKey field do not match.");
+            }
+            notificationRequest.setIdempotencyKey(idempotencyKey);
+        }
 
         Notification notification = notificationService.sendNotification(notificationRequest);
 
         NotificationResponse response = DtoMapper.fromNotification(notification);
 
+        HttpStatus status = notification.getStatus() == NotificationStatus.PENDING || notification.getStatus() == NotificationStatus.BUFFERED || notification.getStatus() == NotificationStatus.SCHEDULED
+                ? HttpStatus.ACCEPTED
+                : HttpStatus.CREATED;
+
         return ResponseEntity
-                .status(HttpStatus.CREATED)
+                .status(status)
                 .body(response);
     }
 
+    @Operation(summary = "Send one notification to many users", description = "Accepts the notifications for asynchronous delivery and returns a per-recipient summary.")
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkNotificationResponse> sendBulkNotification(@RequestBody BulkNotificationRequest bulkNotificationRequest) {
+
+        BulkAcceptResult result = notificationService.sendBulkNotification(bulkNotificationRequest);
+
+        BulkNotificationResponse response = DtoMapper.fromBulkAcceptResult(result);
+
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .body(response);
+    }
+
+    @Operation(summary = "Get the notification history", description = "Archived notifications are included only when includeArchived is true.")
     @GetMapping
-    public ResponseEntity<List<NotificationResponse>> getNotificationHistory(@RequestParam(name = "userId") UUID userId) {
+    public ResponseEntity<List<NotificationResponse>> getNotificationHistory(@RequestParam(name = "userId") UUID userId, @RequestParam(name = "includeArchived", defaultValue = "false") boolean includeArchived) {
 
-        List<NotificationResponse> notificationHistory = notificationService.getNotificationHistory(userId).stream().map(DtoMapper::fromNotification).toList();
+        List<NotificationResponse> notificationHistory = notificationService.getNotificationHistory(userId, includeArchived).stream().map(DtoMapper::fromNotification).toList();
 
         return ResponseEntity
                 .status(HttpStatus.OK)
                 .body(notificationHistory);
     }
 
+    @Operation(summary = "Get one page of notification history", description = "Newest first. Pass the returned nextCursor to get the following page. Archived notifications are included only when includeArchived is true.")
+    @GetMapping("/page")
+    public ResponseEntity<NotificationPageResponse> getNotificationHistoryPage(@RequestParam(name = "userId") UUID userId, @RequestParam(name = "cursor", required = false) String cursor, @RequestParam(name = "limit", required = false) Integer limit, @RequestParam(name = "includeArchived", defaultValue = "false") boolean includeArchived) {
+
+        HistoryCursor position = cursor == null ? null : HistoryCursor.decode(cursor);
+        HistoryPage page = notificationService.getNotificationHistoryPage(userId, position, limit, includeArchived);
+
+        NotificationPageResponse response = DtoMapper.fromHistoryPage(page);
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(response);
+    }
+
+    @Operation(summary = "Get notification counts", description = "Counts of the user's notifications per status and when one was last sent. Read from counters kept up to date on every status change, so the cost does not grow with the history.")
+    @GetMapping("/summary")
+    public ResponseEntity<NotificationSummaryResponse> getNotificationSummary(@RequestParam(name = "userId") UUID userId) {
+
+        NotificationSummary summary = notificationService.getNotificationSummary(userId);
+
+        NotificationSummaryResponse response = DtoMapper.fromNotificationSummary(summary);
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(response);
+    }
+
+    @Operation(summary = "Stream the whole notification history", description = "Newest first, one JSON object per line.")
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamNotificationHistory(@RequestParam(name = "userId") UUID userId) {
+
+        StreamingResponseBody body = outputStream -> notificationService.streamNotificationHistory(userId, notification -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(DtoMapper.fromNotification(notification)));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @PutMapping("/preferences")
     public ResponseEntity<NotificationPreferenceResponse> changeNotificationPreference(@RequestParam(name = "userId") UUID userId, @RequestParam(name = "enabled") boolean enabled) {
 
@@ -87,11 +205,11 @@ public class NotificationController {
     }
 
     @DeleteMapping
-    public ResponseEntity<Void> clearNotificationHistory(@RequestParam(name = "userId") UUID userId) {
+    public ResponseEntity<ClearNotificationsResponse> clearNotificationHistory(@RequestParam(name = "userId") UUID userId) {
 
-        notificationService.clearNotifications(userId);
+        int cleared = notificationService.clearNotifications(userId);
 
-        return ResponseEntity.ok().body(null);
+        return ResponseEntity.ok().body(ClearNotificationsResponse.builder().cleared(cleared).build());
     }
 
     @PutMapping
@@ -99,6 +217,23 @@ public class NotificationController {
 
         notificationService.retryFailedNotifications(userId);
 
-        return ResponseEntity.ok().body(null);
+        return ResponseEntity.accepted().body(null);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequest(IllegalArgumentException exception) {
+
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), exception.getMessage()));
+    }
+
+    @ExceptionHandler(DispatchBackpressureException.class)
+    public ResponseEntity<Void> handleBackpressure(DispatchBackpressureException exception) {
+
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exception.getRetryAfter().toSeconds())))
+                .build();
     }
 }
@@ -0,0 +1,40 @@
+package com.notification.notification_svc.web.dto;
+
+import com.notification.notification_svc.model.NotificationStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+public class BulkNotificationItemResponse {
+
+    public enum Outcome {
+        ACCEPTED, SKIPPED
+    }
+
+    /**
+     * Position of the notification in the request.
+     */
+    private int index;
+
+    private UUID userId;
+
+    private Outcome outcome;
+
+    /**
+     * Set for accepted items; a repeated idempotency key yields the notification of the first request.
+     */
+    private UUID notificationId;
+
+    /**
+     * Status of the accepted notification; not set for skipped items, nothing was attempted for them.
+     */
+    private NotificationStatus status;
+
+    /**
+     * Why the item was skipped.
+     */
+    private String reason;
+}
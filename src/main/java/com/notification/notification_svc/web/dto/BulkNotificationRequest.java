@@ -0,0 +1,46 @@
+package com.notification.notification_svc.web.dto;
+
+import com.notification.notification_svc.model.NotificationPriority;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Either a list of fully specified {@link #notifications}, or one {@link #subject} and
+ * {@link #body} (or one {@link #templateId} and its {@link #variables}) sent to every user in
+ * {@link #userIds}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkNotificationRequest {
+    private List<NotificationRequest> notifications;
+
+    private String subject;
+
+    private String body;
+
+    private String templateId;
+
+    private Map<String, String> variables;
+
+    private List<UUID> userIds;
+
+    /**
+     * Applies to every notification of the request that does not set its own; LOW when missing.
+     */
+    private NotificationPriority priority;
+
+    /**
+     * Applies to every notification of the request that does not set its own; sent right away
+     * when missing.
+     */
+    private OffsetDateTime sendAt;
+}
@@ -0,0 +1,16 @@
+package com.notification.notification_svc.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkNotificationResponse {
+    private int accepted;
+
+    private int skipped;
+
+    private List<BulkNotificationItemResponse> items;
+}
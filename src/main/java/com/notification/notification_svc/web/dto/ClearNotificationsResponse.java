@@ -0,0 +1,10 @@
+package com.notification.notification_svc.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ClearNotificationsResponse {
+    private int cleared;
+}
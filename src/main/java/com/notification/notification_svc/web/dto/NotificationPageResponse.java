@@ -0,0 +1,17 @@
+package com.notification.notification_svc.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class NotificationPageResponse {
+    private List<NotificationResponse> items;
+
+    /**
+     * Pass as {@code cursor} to fetch the next page; {@code null} on the last page.
+     */
+    private String nextCursor;
+}
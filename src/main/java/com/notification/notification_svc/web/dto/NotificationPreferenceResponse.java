@@ -17,5 +17,7 @@ public class NotificationPreferenceResponse {
 
     private boolean enabled;
 
+    private boolean digestEnabled;
+
     private String contactInfo;
 }
@@ -1,21 +1,46 @@
 package com.notification.notification_svc.web.dto;
 
-import jakarta.validation.constraints.NotBlank;
+import com.notification.notification_svc.model.NotificationPriority;
 import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
 import lombok.Data;
 
+import java.time.OffsetDateTime;
+import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Either a rendered {@link #subject} and {@link #body}, or a {@link #templateId} with the
+ * {@link #variables} to render it with.
+ */
 @Data
 @Builder
 public class NotificationRequest {
     @NotNull
     private UUID userId;
 
-    @NotBlank
     private String subject;
 
-    @NotBlank
     private String body;
+
+    private String templateId;
+
+    private Map<String, String> variables;
+
+    /**
+     * Optional; a repeated request with the same key returns the notification of the first one
+     * instead of sending again. Can also be passed as the {@code Idempotency-Key} header.
+     */
+    private String idempotencyKey;
+
+    /**
+     * Optional; defaults to HIGH for a single notification and to LOW for bulk and streamed ones.
+     */
+    private NotificationPriority priority;
+
+    /**
+     * Optional; when set to a future instant, for example 09:00 with the user's UTC offset, the
+     * notification is stored and sent at that time instead of right away.
+     */
+    private OffsetDateTime sendAt;
 }
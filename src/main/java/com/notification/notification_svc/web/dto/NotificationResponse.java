@@ -1,16 +1,24 @@
 package com.notification.notification_svc.web.dto;
 
+import com.notification.notification_svc.model.NotificationPriority;
 import com.notification.notification_svc.model.NotificationStatus;
 import com.notification.notification_svc.model.NotificationType;
 import lombok.Builder;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
 
 @Data
 @Builder
 public class NotificationResponse {
 
+    /**
+     * Stable across retries, so a client answered 202 can follow the notification.
+     */
+    private UUID id;
+
     private String subject;
 
     private LocalDateTime createdAt;
@@ -20,4 +28,16 @@ public class NotificationResponse {
     private String body;
 
     private NotificationType type;
+
+    private String templateId;
+
+    private Map<String, String> variables;
+
+    private String idempotencyKey;
+
+    private NotificationPriority priority;
+
+    private UUID digestId;
+
+    private LocalDateTime sendAt;
 }
@@ -0,0 +1,21 @@
+package com.notification.notification_svc.web.dto;
+
+import com.notification.notification_svc.model.NotificationStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+public class NotificationSummaryResponse {
+    private UUID userId;
+
+    private Map<NotificationStatus, Long> counts;
+
+    private long total;
+
+    private LocalDateTime lastSentAt;
+}
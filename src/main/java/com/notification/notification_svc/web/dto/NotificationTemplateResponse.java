@@ -0,0 +1,19 @@
+package com.notification.notification_svc.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class NotificationTemplateResponse {
+
+    private String id;
+
+    private String subject;
+
+    private String body;
+
+    private LocalDateTime updatedAt;
+}
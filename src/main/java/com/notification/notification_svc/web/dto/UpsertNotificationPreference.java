@@ -17,6 +17,8 @@ public class UpsertNotificationPreference {
 
     private boolean notificationEnabled;
 
+    private boolean digestEnabled;
+
     @NotNull
     private NotificationType type;
 
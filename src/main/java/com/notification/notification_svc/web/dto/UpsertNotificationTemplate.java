@@ -0,0 +1,22 @@
+package com.notification.notification_svc.web.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.*;
+
+/**
+ * A template whose subject and body may contain {@code {{variable}}} placeholders.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpsertNotificationTemplate {
+    @NotBlank
+    private String id;
+
+    @NotBlank
+    private String subject;
+
+    @NotBlank
+    private String body;
+}
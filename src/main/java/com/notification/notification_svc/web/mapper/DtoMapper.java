@@ -2,10 +2,21 @@ package com.notification.notification_svc.web.mapper;
 
 import com.notification.notification_svc.model.Notification;
 import com.notification.notification_svc.model.NotificationPreference;
+import com.notification.notification_svc.model.NotificationTemplate;
+import com.notification.notification_svc.service.BulkAcceptResult;
+import com.notification.notification_svc.service.HistoryPage;
+import com.notification.notification_svc.service.NotificationSummary;
+import com.notification.notification_svc.web.dto.BulkNotificationItemResponse;
+import com.notification.notification_svc.web.dto.BulkNotificationResponse;
+import com.notification.notification_svc.web.dto.NotificationPageResponse;
 import com.notification.notification_svc.web.dto.NotificationPreferenceResponse;
 import com.notification.notification_svc.web.dto.NotificationResponse;
+import com.notification.notification_svc.web.dto.NotificationSummaryResponse;
+import com.notification.notification_svc.web.dto.NotificationTemplateResponse;
 import lombok.experimental.UtilityClass;
 
+import java.util.List;
+
 @UtilityClass
 public class DtoMapper {
 
@@ -16,6 +27,7 @@ public class DtoMapper {
                 .type(entity.getType())
                 .contactInfo(entity.getContactInfo())
                 .enabled(entity.isEnabled())
+                .digestEnabled(entity.isDigestEnabled())
                 .userId(entity.getUserId())
                 .build();
     }
@@ -23,11 +35,73 @@ public class DtoMapper {
     public static NotificationResponse fromNotification(Notification entity) {
 
         return NotificationResponse.builder()
+                .id(entity.getId())
                 .subject(entity.getSubject())
                 .status(entity.getStatus())
                 .createdAt(entity.getCreatedOn())
                 .type(entity.getType())
                 .body(entity.getBody())
+                .templateId(entity.getTemplateId())
+                .variables(entity.getTemplateVariables())
+                .idempotencyKey(entity.getIdempotencyKey())
+                .priority(entity.getPriority())
+                .digestId(entity.getDigestId())
+                .sendAt(entity.getSendAt())
+                .build();
+    }
+
+    public static NotificationSummaryResponse fromNotificationSummary(NotificationSummary summary) {
+
+        return NotificationSummaryResponse.builder()
+                .userId(summary.getUserId())
+                .counts(summary.getCounts())
+                .total(summary.getTotal())
+                .lastSentAt(summary.getLastSentOn())
+                .build();
+    }
+
+    public static NotificationTemplateResponse fromNotificationTemplate(NotificationTemplate entity) {
+
+        return NotificationTemplateResponse.builder()
+                .id(entity.getId())
+                .subject(entity.getSubject())
+                .body(entity.getBody())
+                .updatedAt(entity.getUpdatedOn())
+                .build();
+    }
+
+    public static BulkNotificationResponse fromBulkAcceptResult(BulkAcceptResult result) {
+
+        List<BulkNotificationItemResponse> items = result.getItems().stream()
+                .map(item -> item.isAccepted()
+                        ? BulkNotificationItemResponse.builder()
+                                .index(item.getIndex())
+                                .userId(item.getUserId())
+                                .outcome(BulkNotificationItemResponse.Outcome.ACCEPTED)
+                                .notificationId(item.getNotification().getId())
+                                .status(item.getNotification().getStatus())
+                                .build()
+                        : BulkNotificationItemResponse.builder()
+                                .index(item.getIndex())
+                                .userId(item.getUserId())
+                                .outcome(BulkNotificationItemResponse.Outcome.SKIPPED)
+                                .reason(item.getReason())
+                                .build())
+                .toList();
+        int accepted = (int) result.getItems().stream().filter(BulkAcceptResult.Item::isAccepted).count();
+
+        return BulkNotificationResponse.builder()
+                .accepted(accepted)
+                .skipped(items.size() - accepted)
+                .items(items)
+                .build();
+    }
+
+    public static NotificationPageResponse fromHistoryPage(HistoryPage page) {
+
+        return NotificationPageResponse.builder()
+                .items(page.getNotifications().stream().map(DtoMapper::fromNotification).toList())
+                .nextCursor(page.getNext() == null ? null : page.getNext().encode())
                 .build();
     }
 }
@@ -0,0 +1,156 @@
+package com.notification.notification_svc.webhook;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.notification_svc.channel.ChannelSender;
+import com.notification.notification_svc.channel.SendResult;
+import com.notification.notification_svc.config.ChannelProperties;
+import com.notification.notification_svc.config.WebhookProperties;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.service.NotificationMetrics;
+import com.notification.notification_svc.service.TemplateRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers WEBHOOK notifications as JSON {@code POST}s to the URL in {@code contactInfo}. The
+ * notifications of a batch that go to the same endpoint are posted together, up to
+ * {@code maxBatchSize} per request, and the requests to different endpoints run concurrently. A
+ * 2xx answer marks every notification of the request as delivered; any other answer, a timeout or
+ * a connection error fails all of them.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(WebhookProperties.class)
+public class WebhookChannelSender implements ChannelSender {
+    private final TemplateRegistry templateRegistry;
+    private final NotificationMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final WebhookProperties properties;
+    private final Duration requestTimeout;
+    private final HttpClient httpClient;
+
+    @Autowired
+    public WebhookChannelSender(TemplateRegistry templateRegistry, NotificationMetrics metrics, ObjectMapper objectMapper, WebhookProperties properties, ChannelProperties channelProperties) {
+        this.templateRegistry = templateRegistry;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.requestTimeout = channelProperties.getWebhook().getTimeout();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.getConnectTimeout())
+                .build();
+    }
+
+    @Override
+    public NotificationType getType() {
+        return NotificationType.WEBHOOK;
+    }
+
+    @Override
+    public SendResult send(List<Notification> notifications) {
+
+        long start = System.nanoTime();
+        Map<String, List<Notification>> byEndpoint = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            byEndpoint.computeIfAbsent(notification.getContactInfo(), ignored -> new ArrayList<>()).add(notification);
+        }
+
+        List<Delivery> deliveries = new ArrayList<>();
+        byEndpoint.forEach((endpoint, batch) -> {
+            for (int from = 0; from < batch.size(); from += properties.getMaxBatchSize()) {
+                List<Notification> chunk = batch.subList(from, Math.min(from + properties.getMaxBatchSize(), batch.size()));
+                deliveries.add(new Delivery(chunk, request(endpoint, chunk)));
+            }
+        });
+        metrics.record(NotificationMetrics.Stage.MESSAGE_BUILD, start);
+
+        start = System.nanoTime();
+        List<CompletableFuture<Boolean>> responses = deliveries.stream()
+                .map(delivery -> delivery.request() == null ? CompletableFuture.completedFuture(false) : post(delivery.request()))
+                .toList();
+
+        List<Notification> failed = new ArrayList<>();
+        for (int i = 0; i < deliveries.size(); i++) {
+            if (!responses.get(i).join()) {
+                failed.addAll(deliveries.get(i).notifications());
+            }
+        }
+        metrics.record(NotificationMetrics.Stage.WEBHOOK_SEND, start);
+
+        return SendResult.failed(failed);
+    }
+
+    private HttpRequest request(String endpoint, List<Notification> notifications) {
+
+        if (endpoint == null) {
+            log.warn("Cannot post {} notifications without a webhook endpoint.", notifications.size());
+            return null;
+        }
+
+        List<WebhookNotification> payload = notifications.stream()
+                .map(notification -> new WebhookNotification(
+                        notification.getId(),
+                        notification.getUserId(),
+                        templateRegistry.renderSubject(notification),
+                        templateRegistry.renderBody(notification),
+                        notification.getCreatedOn()))
+                .toList();
+        try {
+            return HttpRequest.newBuilder(URI.create(endpoint))
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(new WebhookPayload(payload))))
+                    .build();
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            log.warn("Cannot post {} notifications to webhook endpoint {}.", notifications.size(), endpoint, e);
+            return null;
+        }
+    }
+
+    private CompletableFuture<Boolean> post(HttpRequest request) {
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        log.warn("Webhook endpoint {} answered {}.", request.uri(), response.statusCode());
+                        return false;
+                    }
+                    return true;
+                })
+                .exceptionally(e -> {
+                    log.warn("Webhook endpoint {} could not be reached: {}", request.uri(), e.getMessage());
+                    return false;
+                });
+    }
+
+    private record Delivery(List<Notification> notifications, HttpRequest request) {
+    }
+
+    /**
+     * Body of one webhook request. Every notification is stored before it is posted, so its
+     * {@code id} is always present and stays the same when it is posted again after a failure;
+     * receivers can use it to drop repeats.
+     */
+    record WebhookPayload(List<WebhookNotification> notifications) {
+    }
+
+    record WebhookNotification(UUID id, UUID userId, String subject, String body, LocalDateTime createdOn) {
+    }
+}
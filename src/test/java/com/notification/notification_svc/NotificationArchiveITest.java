@@ -0,0 +1,150 @@
+package com.notification.notification_svc;
+
+import com.notification.notification_svc.model.ArchivedNotification;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.repository.ArchivedNotificationRepository;
+import com.notification.notification_svc.repository.NotificationRepository;
+import com.notification.notification_svc.service.HistoryPage;
+import com.notification.notification_svc.service.NotificationArchiveService;
+import com.notification.notification_svc.service.NotificationScheduleService;
+import com.notification.notification_svc.service.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@TestPropertySource(properties = {"notification.retention.enabled=true", "notification.retention.chunk-interval=1h"})
+public class NotificationArchiveITest {
+    @Autowired
+    private NotificationArchiveService archiveService;
+    @Autowired
+    private NotificationService notificationService;
+    @Autowired
+    private NotificationRepository notificationRepository;
+    @Autowired
+    private ArchivedNotificationRepository archivedRepository;
+    @Autowired
+    private NotificationScheduleService scheduleService;
+
+    @Test
+    void movesExpiredAndSoftDeletedRowsAndReadsThemOnlyWhenAsked() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        Notification expired = save(userId, "expired", NotificationStatus.SUCCEEDED, now.minusDays(100), false);
+        Notification expiredButFailed = save(userId, "expired but failed", NotificationStatus.FAILED, now.minusDays(101), false);
+        Notification recent = save(userId, "recent", NotificationStatus.SUCCEEDED, now, false);
+        Notification deleted = save(userId, "deleted", NotificationStatus.SUCCEEDED, now, true);
+        Notification deletedButPending = save(userId, "deleted but pending", NotificationStatus.PENDING, now, true);
+
+        for (int i = 0; i < 3; i++) {
+            archiveService.archiveNextChunk();
+        }
+
+        Set<UUID> hot = notificationRepository.findAllById(List.of(expired.getId(), expiredButFailed.getId(), recent.getId(), deleted.getId(), deletedButPending.getId()))
+                .stream().map(Notification::getId).collect(Collectors.toSet());
+        Set<UUID> archived = archivedRepository.findAllById(List.of(expired.getId(), deleted.getId()))
+                .stream().map(ArchivedNotification::getId).collect(Collectors.toSet());
+        assertEquals(Set.of(expiredButFailed.getId(), recent.getId(), deletedButPending.getId()), hot);
+        assertEquals(Set.of(expired.getId(), deleted.getId()), archived);
+
+        assertEquals(2, notificationService.getNotificationHistory(userId, false).size());
+        assertEquals(3, notificationService.getNotificationHistory(userId, true).size());
+
+        HistoryPage first = notificationService.getNotificationHistoryPage(userId, null, 2, true);
+        HistoryPage second = notificationService.getNotificationHistoryPage(userId, first.getNext(), 2, true);
+        assertEquals(List.of("recent", "expired"), first.getNotifications().stream().map(Notification::getSubject).toList());
+        assertEquals(List.of("expired but failed"), second.getNotifications().stream().map(Notification::getSubject).toList());
+        assertNull(second.getNext());
+
+        assertEquals(3, notificationService.clearNotifications(userId));
+        assertTrue(notificationService.getNotificationHistory(userId, true).isEmpty());
+    }
+
+    @Test
+    void archivedRowsKeepTheirDigestAndSchedule() {
+        UUID userId = UUID.randomUUID();
+        UUID digestId = UUID.randomUUID();
+        LocalDateTime sendAt = LocalDateTime.now().minusDays(99).withNano(0);
+        Notification digested = save(userId, "digested", NotificationStatus.DIGESTED, LocalDateTime.now().minusDays(100), false);
+        digested.setDigestId(digestId);
+        digested.setSendAt(sendAt);
+        notificationRepository.save(digested);
+
+        for (int i = 0; i < 3; i++) {
+            archiveService.archiveNextChunk();
+        }
+
+        ArchivedNotification archived = archivedRepository.findById(digested.getId()).orElseThrow();
+        assertEquals(NotificationStatus.DIGESTED, archived.getStatus());
+        assertEquals(digestId, archived.getDigestId());
+        assertEquals(sendAt, archived.getSendAt());
+        assertEquals(digestId, notificationService.getNotificationHistory(userId, true).get(0).getDigestId());
+    }
+
+    @Test
+    void clearedScheduledRowStaysUntilTheSchedulerAbandonsIt() {
+        UUID userId = UUID.randomUUID();
+        Notification scheduled = save(userId, "scheduled", NotificationStatus.SCHEDULED, LocalDateTime.now(), false);
+        scheduled.setSendAt(LocalDateTime.now().plusDays(1));
+        notificationRepository.save(scheduled);
+        notificationService.clearNotifications(userId);
+
+        archiveService.archiveNextChunk();
+
+        assertTrue(notificationRepository.existsById(scheduled.getId()));
+        assertFalse(archivedRepository.existsById(scheduled.getId()));
+
+        assertTrue(scheduleService.release(List.of(scheduled.getId())).isEmpty());
+        assertEquals(NotificationStatus.ABANDONED, notificationRepository.findById(scheduled.getId()).orElseThrow().getStatus());
+        archiveService.archiveNextChunk();
+
+        assertFalse(notificationRepository.existsById(scheduled.getId()));
+        assertEquals(NotificationStatus.ABANDONED, archivedRepository.findById(scheduled.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void clearedRowWithAnIdempotencyKeyStaysUntilTheKeyRetentionHasPassed() {
+        UUID userId = UUID.randomUUID();
+        Notification recent = save(userId, "recent", NotificationStatus.SUCCEEDED, LocalDateTime.now(), true);
+        recent.setIdempotencyKey("order-42");
+        notificationRepository.save(recent);
+        Notification old = save(userId, "old", NotificationStatus.SUCCEEDED, LocalDateTime.now().minusDays(100), false);
+        old.setIdempotencyKey("order-41");
+        notificationRepository.save(old);
+
+        for (int i = 0; i < 3; i++) {
+            archiveService.archiveNextChunk();
+        }
+
+        assertTrue(notificationRepository.existsById(recent.getId()));
+        assertFalse(archivedRepository.existsById(recent.getId()));
+        assertEquals("order-41", archivedRepository.findById(old.getId()).orElseThrow().getIdempotencyKey());
+        assertEquals("order-41", notificationService.getNotificationHistory(userId, true).get(0).getIdempotencyKey());
+    }
+
+    private Notification save(UUID userId, String subject, NotificationStatus status, LocalDateTime createdOn, boolean deleted) {
+        return notificationRepository.save(Notification.builder()
+                .userId(userId)
+                .subject(subject)
+                .body("Body")
+                .type(NotificationType.EMAIL)
+                .status(status)
+                .createdOn(createdOn)
+                .updatedOn(createdOn)
+                .isDeleted(deleted)
+                .build());
+    }
+}
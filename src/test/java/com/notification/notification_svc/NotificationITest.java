@@ -1,15 +1,28 @@
 package com.notification.notification_svc;
 
+import com.notification.notification_svc.config.DigestProperties;
 import com.notification.notification_svc.model.Notification;
 import com.notification.notification_svc.model.NotificationPreference;
 import com.notification.notification_svc.model.NotificationStatus;
 import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.model.NotificationCounter;
+import com.notification.notification_svc.repository.NotificationCounterRepository;
 import com.notification.notification_svc.repository.NotificationPreferenceRepository;
 import com.notification.notification_svc.repository.NotificationRepository;
+import com.notification.notification_svc.service.HistoryCursor;
+import com.notification.notification_svc.service.HistoryPage;
+import com.notification.notification_svc.service.NotificationCounterService;
+import com.notification.notification_svc.service.NotificationCounters;
+import com.notification.notification_svc.service.NotificationDigestBuffer;
+import com.notification.notification_svc.service.NotificationScheduler;
+import com.notification.notification_svc.service.NotificationRetryService;
 import com.notification.notification_svc.service.NotificationService;
+import com.notification.notification_svc.service.NotificationSummary;
+import com.notification.notification_svc.service.TemplateRegistry;
 import com.notification.notification_svc.web.dto.NotificationPreferenceResponse;
 import com.notification.notification_svc.web.dto.NotificationRequest;
 import com.notification.notification_svc.web.dto.UpsertNotificationPreference;
+import com.notification.notification_svc.web.dto.UpsertNotificationTemplate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
@@ -18,8 +31,16 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,6 +56,22 @@ public class NotificationITest {
 
     @Autowired
     private NotificationRepository notificationRepository;
+    @Autowired
+    private TemplateRegistry templateRegistry;
+    @Autowired
+    private NotificationDigestBuffer digestBuffer;
+    @Autowired
+    private DigestProperties digestProperties;
+    @Autowired
+    private NotificationScheduler scheduler;
+    @Autowired
+    private NotificationCounters counters;
+    @Autowired
+    private NotificationRetryService retryService;
+    @Autowired
+    private NotificationCounterService counterService;
+    @Autowired
+    private NotificationCounterRepository counterRepository;
 
     @Test
     void createNewNotificationPreferenceHappyPath() {
@@ -109,7 +146,10 @@ public class NotificationITest {
 
         notificationService.sendNotification(notificationRequest);
 
-        notificationService.clearNotifications(userId);
+        int cleared = notificationService.clearNotifications(userId);
+
+        assertEquals(1, cleared);
+        assertTrue(notificationService.getNotificationHistory(userId, false).isEmpty());
 
         List<Notification> notifications = notificationRepository.findAllByUserIdAndStatus(userId, NotificationStatus.FAILED);
 
@@ -121,5 +161,304 @@ public class NotificationITest {
 
 
 
+    }
+
+    @Test
+    void repeatedIdempotencyKeyReturnsTheFirstNotificationWithoutStoringAnother() {
+        UUID userId = UUID.randomUUID();
+        notificationService.upsertPreference(UpsertNotificationPreference.builder()
+                .userId(userId)
+                .contactInfo("test@email.com")
+                .notificationEnabled(true)
+                .type(NotificationType.EMAIL)
+                .build());
+        NotificationRequest request = NotificationRequest.builder()
+                .userId(userId)
+                .subject("Test subject")
+                .body("Test body")
+                .idempotencyKey("order-42")
+                .build();
+
+        Notification first = notificationService.sendNotification(request);
+        Notification replayed = notificationService.sendNotification(request);
+
+        assertEquals(first.getId(), replayed.getId());
+        assertEquals(1, notificationRepository.findAllByUserIdAndDeletedIsFalse(userId).size());
+    }
+
+    @Test
+    void idempotencyKeyStoredBeforeIsCaughtByTheUniqueConstraint() {
+        UUID userId = UUID.randomUUID();
+        notificationService.upsertPreference(UpsertNotificationPreference.builder()
+                .userId(userId)
+                .contactInfo("test@email.com")
+                .notificationEnabled(true)
+                .type(NotificationType.EMAIL)
+                .build());
+        // Stored without going through the service, as by another instance, so the in-memory
+        // window does not know the keys.
+        Notification single = storeWithKey(userId, "single");
+        Notification bulk = storeWithKey(userId, "bulk");
+
+        Notification replayed = notificationService.sendNotification(NotificationRequest.builder()
+                .userId(userId)
+                .subject("Test subject")
+                .body("Test body")
+                .idempotencyKey("single")
+                .build());
+        List<Notification> accepted = notificationService.acceptNotifications(List.of(
+                NotificationRequest.builder().userId(userId).subject("Bulk").body("Bulk").idempotencyKey("bulk").build(),
+                NotificationRequest.builder().userId(userId).subject("Bulk").body("Bulk").idempotencyKey("fresh").build())).getAccepted();
+
+        assertEquals(single.getId(), replayed.getId());
+        assertEquals(2, accepted.size());
+        assertTrue(accepted.stream().anyMatch(notification -> notification.getId().equals(bulk.getId())));
+        assertEquals(Set.of("single", "bulk", "fresh"), notificationRepository.findAllByUserIdAndDeletedIsFalse(userId).stream()
+                .map(Notification::getIdempotencyKey)
+                .collect(Collectors.toSet()));
+        assertEquals(3, notificationRepository.findAllByUserIdAndDeletedIsFalse(userId).size());
+    }
+
+    @Test
+    void digestMergesBufferedNotificationsIncludingOnesLeftByAPreviousProcess() {
+        UUID userId = UUID.randomUUID();
+        notificationService.upsertPreference(UpsertNotificationPreference.builder()
+                .userId(userId)
+                .notificationEnabled(true)
+                .digestEnabled(true)
+                .contactInfo("digest@example.com")
+                .type(NotificationType.EMAIL)
+                .build());
+        Notification leftOver = notificationRepository.save(Notification.builder()
+                .userId(userId)
+                .subject("Left over")
+                .body("From before the restart")
+                .contactInfo("digest@example.com")
+                .type(NotificationType.EMAIL)
+                .status(NotificationStatus.BUFFERED)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+
+        Notification first = notificationService.sendNotification(NotificationRequest.builder().userId(userId).subject("First").body("First body").build());
+        Notification second = notificationService.sendNotification(NotificationRequest.builder().userId(userId).subject("Second").body("Second body").build());
+        assertEquals(NotificationStatus.BUFFERED, first.getStatus());
+
+        digestProperties.setStaleAfter(Duration.ZERO);
+        digestBuffer.recover();
+        // Only once every row is buffered, or the background flush may digest part of them.
+        digestProperties.setWindow(Duration.ZERO);
+        digestBuffer.flushDue();
+
+        List<Notification> originals = notificationRepository.findAllById(List.of(leftOver.getId(), first.getId(), second.getId()));
+        assertTrue(originals.stream().allMatch(notification -> notification.getStatus() == NotificationStatus.DIGESTED));
+        UUID digestId = originals.get(0).getDigestId();
+        assertNotNull(digestId);
+        assertTrue(originals.stream().allMatch(notification -> digestId.equals(notification.getDigestId())));
+        Notification digest = notificationRepository.findById(digestId).orElseThrow();
+        assertEquals("You have 3 new notifications", digest.getSubject());
+        assertTrue(digest.getBody().contains("First\nFirst body\n\nSecond\nSecond body"));
+        assertTrue(digest.getBody().contains("From before the restart"));
+    }
+
+    @Test
+    void scheduledNotificationsAreReleasedWhenDueIncludingOnesLeftByAPreviousProcess() throws InterruptedException {
+        UUID userId = UUID.randomUUID();
+        notificationService.upsertPreference(UpsertNotificationPreference.builder()
+                .userId(userId)
+                .notificationEnabled(true)
+                .contactInfo("scheduled@example.com")
+                .type(NotificationType.EMAIL)
+                .build());
+        Notification overdue = notificationRepository.save(Notification.builder()
+                .userId(userId)
+                .subject("Overdue")
+                .body("Due before the restart")
+                .contactInfo("scheduled@example.com")
+                .type(NotificationType.EMAIL)
+                .status(NotificationStatus.SCHEDULED)
+                .sendAt(LocalDateTime.now().minusMinutes(1))
+                .createdOn(LocalDateTime.now().minusHours(1))
+                .updatedOn(LocalDateTime.now().minusHours(1))
+                .build());
+
+        Notification scheduled = notificationService.sendNotification(NotificationRequest.builder()
+                .userId(userId)
+                .subject("Later")
+                .body("Sent a second from now")
+                .sendAt(OffsetDateTime.now().plusSeconds(1))
+                .build());
+        assertEquals(NotificationStatus.SCHEDULED, scheduled.getStatus());
+        scheduler.refill();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (isScheduled(overdue, scheduled) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+
+        assertFalse(isScheduled(overdue, scheduled));
+        assertTrue(notificationRepository.findById(scheduled.getId()).orElseThrow().getUpdatedOn().isAfter(scheduled.getSendAt().minusNanos(1)));
+    }
+
+    private boolean isScheduled(Notification... notifications) {
+        return notificationRepository.findAllById(Arrays.stream(notifications).map(Notification::getId).toList()).stream()
+                .anyMatch(notification -> notification.getStatus() == NotificationStatus.SCHEDULED);
+    }
+
+    @Test
+    void summaryCountsFollowEveryStatusChangeAndStartOverAfterClearing() {
+        UUID userId = UUID.randomUUID();
+        storeWithStatus(userId, NotificationStatus.SUCCEEDED);
+        storeWithStatus(userId, NotificationStatus.FAILED);
+        storeWithStatus(userId, NotificationStatus.DIGESTED);
+        Notification pending = storeWithStatus(userId, NotificationStatus.PENDING);
+        pending.setStatus(NotificationStatus.SUCCEEDED);
+        notificationRepository.save(pending);
+        counters.flush();
+
+        NotificationSummary summary = notificationService.getNotificationSummary(userId);
+
+        assertEquals(2, summary.getCounts().get(NotificationStatus.SUCCEEDED));
+        assertEquals(1, summary.getCounts().get(NotificationStatus.FAILED));
+        assertEquals(1, summary.getCounts().get(NotificationStatus.DIGESTED));
+        assertEquals(0, summary.getCounts().get(NotificationStatus.PENDING));
+        assertEquals(4, summary.getTotal());
+        assertNotNull(summary.getLastSentOn());
+
+        notificationService.clearNotifications(userId);
+        storeWithStatus(userId, NotificationStatus.SUCCEEDED);
+
+        summary = notificationService.getNotificationSummary(userId);
+        assertEquals(1, summary.getTotal());
+        assertEquals(1, summary.getCounts().get(NotificationStatus.SUCCEEDED));
+    }
+
+    @Test
+    void sendOutcomeRecordedAfterClearingKeepsTheNotificationCleared() {
+        UUID userId = UUID.randomUUID();
+        Notification cleared = storeWithStatus(userId, NotificationStatus.PENDING);
+        notificationService.clearNotifications(userId);
+        Notification kept = storeWithStatus(userId, NotificationStatus.PENDING);
+        for (Notification notification : List.of(cleared, kept)) {
+            notification.setStatus(NotificationStatus.SUCCEEDED);
+            notification.setAttempts(1);
+            notification.setUpdatedOn(LocalDateTime.now());
+        }
+
+        retryService.recordOutcomes(List.of(cleared, kept));
+        counters.flush();
+
+        Notification stored = notificationRepository.findById(cleared.getId()).orElseThrow();
+        assertTrue(stored.isDeleted());
+        assertEquals(NotificationStatus.SUCCEEDED, stored.getStatus());
+        assertEquals(1, stored.getAttempts());
+        assertEquals(NotificationStatus.SUCCEEDED, notificationRepository.findById(kept.getId()).orElseThrow().getStatus());
+        NotificationSummary summary = notificationService.getNotificationSummary(userId);
+        assertEquals(1, summary.getTotal());
+        assertEquals(1, summary.getCounts().get(NotificationStatus.SUCCEEDED));
+    }
+
+    @Test
+    void backfillCountsStoredNotificationsOnlyWhileThereAreNoCounters() {
+        UUID userId = UUID.randomUUID();
+        storeWithStatus(userId, NotificationStatus.SUCCEEDED);
+        storeWithStatus(userId, NotificationStatus.SUCCEEDED);
+        Notification cleared = storeWithStatus(userId, NotificationStatus.FAILED);
+        cleared.setDeleted(true);
+        notificationRepository.save(cleared);
+
+        assertEquals(1, counterService.backfill());
+        assertEquals(0, counterService.backfill());
+
+        List<NotificationCounter> backfilled = counterRepository.findAllByUserId(userId);
+        assertEquals(1, backfilled.size());
+        assertEquals(NotificationStatus.SUCCEEDED, backfilled.get(0).getId().getStatus());
+        assertEquals(2, backfilled.get(0).getTotal());
+    }
+
+    private Notification storeWithStatus(UUID userId, NotificationStatus status) {
+        return notificationRepository.save(Notification.builder()
+                .userId(userId)
+                .subject("Stored")
+                .body("Stored")
+                .type(NotificationType.EMAIL)
+                .status(status)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+    }
+
+    private Notification storeWithKey(UUID userId, String idempotencyKey) {
+        return notificationRepository.save(Notification.builder()
+                .userId(userId)
+                .subject("Stored")
+                .body("Stored")
+                .idempotencyKey(idempotencyKey)
+                .type(NotificationType.EMAIL)
+                .status(NotificationStatus.SUCCEEDED)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+    }
+
+    @Test
+    void templatedNotificationKeepsVariablesAndRendersFromTheStoredTemplate() {
+        notificationService.upsertTemplate(UpsertNotificationTemplate.builder()
+                .id("order-shipped")
+                .subject("Order {{order}} shipped")
+                .body("Hi {{name}}, order {{order}} is on its way.")
+                .build());
+        Notification saved = notificationRepository.save(Notification.builder()
+                .userId(UUID.randomUUID())
+                .templateId("order-shipped")
+                .templateVariables(Map.of("name", "Ana", "order", "A-1"))
+                .type(NotificationType.EMAIL)
+                .status(NotificationStatus.PENDING)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+
+        Notification loaded = notificationRepository.findById(saved.getId()).orElseThrow();
+
+        assertEquals(Map.of("name", "Ana", "order", "A-1"), loaded.getTemplateVariables());
+        assertNull(loaded.getBody());
+        assertEquals("Order A-1 shipped", templateRegistry.renderSubject(loaded));
+        assertEquals("Hi Ana, order A-1 is on its way.", templateRegistry.renderBody(loaded));
+    }
+
+    @Test
+    void historyPagesAndStreamFollowCreatedOnThenIdDescending() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime createdOn = LocalDateTime.of(2025, 1, 1, 12, 0);
+        for (int i = 0; i < 5; i++) {
+            notificationRepository.save(Notification.builder()
+                    .userId(userId)
+                    .subject("Subject " + i)
+                    .body("Body")
+                    .type(NotificationType.EMAIL)
+                    .status(NotificationStatus.SUCCEEDED)
+                    .createdOn(createdOn.plusMinutes(i / 2))
+                    .updatedOn(createdOn)
+                    .build());
+        }
+
+        List<String> paged = new ArrayList<>();
+        HistoryCursor cursor = null;
+        int pages = 0;
+        do {
+            HistoryPage page = notificationService.getNotificationHistoryPage(userId, cursor, 2, false);
+            page.getNotifications().forEach(notification -> paged.add(notification.getSubject()));
+            cursor = page.getNext() == null ? null : HistoryCursor.decode(page.getNext().encode());
+            pages++;
+        } while (cursor != null);
+
+        List<String> streamed = new ArrayList<>();
+        notificationService.streamNotificationHistory(userId, notification -> streamed.add(notification.getSubject()));
+
+        assertEquals(3, pages);
+        assertEquals(5, paged.size());
+        assertEquals(Set.copyOf(paged).size(), paged.size());
+        assertEquals("Subject 4", paged.get(0));
+        assertEquals(paged, streamed);
     }
 }
@@ -0,0 +1,130 @@
+package com.notification.notification_svc.dispatch;
+
+import com.notification.notification_svc.model.NotificationPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriorityLaneQueueTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PriorityLaneQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        queue = new PriorityLaneQueue("test", 100, 0.25, Duration.ofSeconds(1), meterRegistry);
+    }
+
+    @Test
+    void highPriorityTasksOvertakeQueuedLowPriorityOnes() {
+        LaneTask low = task(NotificationPriority.LOW);
+        LaneTask high = task(NotificationPriority.HIGH);
+        queue.offer(low);
+        queue.offer(high);
+
+        assertSame(high, queue.peek());
+        assertSame(high, queue.poll());
+        assertSame(low, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void lowPriorityGetsItsMinimumShareWhileHighPriorityKeepsComing() {
+        for (int i = 0; i < 20; i++) {
+            queue.offer(task(NotificationPriority.HIGH));
+            queue.offer(task(NotificationPriority.LOW));
+        }
+
+        List<NotificationPriority> taken = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            taken.add(((LaneTask) queue.poll()).priority());
+        }
+
+        assertEquals(List.of(NotificationPriority.HIGH, NotificationPriority.HIGH, NotificationPriority.HIGH, NotificationPriority.LOW), taken.subList(0, 4));
+        assertEquals(5, taken.stream().filter(priority -> priority == NotificationPriority.LOW).count());
+    }
+
+    @Test
+    void fullLowPriorityLaneDoesNotRejectHighPriorityTasks() {
+        queue = new PriorityLaneQueue("test", 2, 0.1, Duration.ofSeconds(1), meterRegistry);
+
+        assertTrue(queue.offer(task(NotificationPriority.LOW)));
+        assertTrue(queue.offer(task(NotificationPriority.LOW)));
+        assertFalse(queue.offer(task(NotificationPriority.LOW)));
+
+        assertTrue(queue.offer(task(NotificationPriority.HIGH)));
+        assertTrue(queue.isFilledPast(NotificationPriority.LOW, 0.8));
+        assertFalse(queue.isFilledPast(NotificationPriority.HIGH, 0.8));
+        assertEquals(1, queue.remainingCapacity(NotificationPriority.HIGH));
+        assertEquals(1, queue.remainingCapacity());
+    }
+
+    @Test
+    void tasksWithoutAPriorityGoToTheHighPriorityLane() {
+        Runnable plain = () -> { };
+        queue.offer(task(NotificationPriority.LOW));
+        queue.offer(plain);
+
+        assertEquals(1, queue.size(NotificationPriority.HIGH));
+        assertSame(plain, queue.poll());
+    }
+
+    @Test
+    void queueTimeIsRecordedPerLane() {
+        queue.offer(task(NotificationPriority.HIGH));
+        queue.offer(task(NotificationPriority.LOW));
+        queue.offer(task(NotificationPriority.LOW));
+
+        List<Runnable> drained = new ArrayList<>();
+        queue.drainTo(drained);
+
+        assertEquals(3, drained.size());
+        assertEquals(1, meterRegistry.get("notification.lane.queue.time").tag("queue", "test").tag("lane", "high").timer().count());
+        assertEquals(2, meterRegistry.get("notification.lane.queue.time").tag("queue", "test").tag("lane", "low").timer().count());
+    }
+
+    @Test
+    void freedHighPrioritySlotWakesTheBlockedHighPriorityProducer() throws Exception {
+        queue = new PriorityLaneQueue("test", 1, 0.1, Duration.ofSeconds(1), meterRegistry);
+        queue.offer(task(NotificationPriority.LOW));
+        queue.offer(task(NotificationPriority.HIGH));
+        // The LOW producer waits first, so a wakeup shared by both lanes would go to it.
+        Thread lowProducer = blockedPut(task(NotificationPriority.LOW));
+        LaneTask high = task(NotificationPriority.HIGH);
+        Thread highProducer = blockedPut(high);
+
+        assertEquals(NotificationPriority.HIGH, ((LaneTask) queue.take()).priority());
+
+        highProducer.join(5_000);
+        assertFalse(highProducer.isAlive());
+        assertSame(high, queue.peek());
+        assertTrue(lowProducer.isAlive());
+        lowProducer.interrupt();
+    }
+
+    private Thread blockedPut(LaneTask task) throws InterruptedException {
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        while (producer.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        return producer;
+    }
+
+    private static LaneTask task(NotificationPriority priority) {
+        return new LaneTask(priority, () -> { });
+    }
+}
@@ -0,0 +1,71 @@
+package com.notification.notification_svc.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+
+    @Test
+    void keysExpireOnTheFirstTickAtOrAfterTheirDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 2, 1_000);
+        wheel.schedule("first", 1_250);
+        wheel.schedule("second", 1_300);
+
+        assertTrue(wheel.advanceTo(1_250).isEmpty());
+        assertEquals(List.of("first", "second"), wheel.advanceTo(1_300));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void keysOfEveryLevelAndBeyondTheTopOneExpireExactlyOnTime() {
+        // Two levels of 64 slots cover 4096 ticks; deadlines go well past that.
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 2, 0);
+        Random random = new Random(42);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int key = 0; key < 2_000; key++) {
+            long deadline = 1 + random.nextInt(20_000);
+            deadlines.put(key, deadline);
+            wheel.schedule(key, deadline);
+        }
+
+        for (long now = 1; now <= 20_000; now++) {
+            for (Integer key : wheel.advanceTo(now)) {
+                assertEquals(deadlines.remove(key), now);
+            }
+        }
+        assertTrue(deadlines.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void keysScheduledWhileTheWheelTurnsExpireOnTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 3, 0);
+        assertTrue(wheel.advanceTo(5_000).isEmpty());
+
+        wheel.schedule("later", 9_100);
+        wheel.schedule("soon", 5_070);
+
+        assertEquals(List.of("soon"), wheel.advanceTo(5_070));
+        assertTrue(wheel.advanceTo(9_099).isEmpty());
+        assertEquals(List.of("later"), wheel.advanceTo(9_100));
+    }
+
+    @Test
+    void overdueKeysExpireOnTheNextTickAndDuplicatesAreIgnored() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 2, 0);
+        wheel.advanceTo(1_000);
+
+        assertTrue(wheel.schedule("overdue", 500));
+        assertFalse(wheel.schedule("overdue", 2_000));
+        assertTrue(wheel.contains("overdue"));
+
+        assertEquals(List.of("overdue"), wheel.advanceTo(1_010));
+        assertFalse(wheel.contains("overdue"));
+    }
+}
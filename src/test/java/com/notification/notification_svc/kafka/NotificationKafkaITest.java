@@ -0,0 +1,140 @@
+package com.notification.notification_svc.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.notification_svc.config.KafkaIngestionConfiguration;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.service.BulkAcceptResult;
+import com.notification.notification_svc.service.NotificationService;
+import com.notification.notification_svc.web.dto.NotificationRequest;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(classes = {KafkaIngestionConfiguration.class, NotificationRequestListener.class}, properties = {
+        "notification.kafka.ingestion.enabled=true",
+        "notification.kafka.ingestion.topic=notification-requests",
+        "notification.kafka.ingestion.group-id=notification-svc-test",
+        "notification.kafka.ingestion.partitions=3",
+        "notification.kafka.ingestion.retry-interval=10ms",
+        "notification.kafka.ingestion.retry-attempts=2",
+        "notification.kafka.ingestion.dead-letter-topic=notification-requests-dlt",
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.auto-offset-reset=earliest"
+})
+@ImportAutoConfiguration({KafkaAutoConfiguration.class, JacksonAutoConfiguration.class})
+@EmbeddedKafka(partitions = 3, topics = "notification-requests")
+public class NotificationKafkaITest {
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+    @MockitoBean
+    private NotificationService notificationService;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void publishedRequests_areAcceptedInBatchesAndOffsetsCommitted() throws Exception {
+        AtomicInteger accepted = new AtomicInteger();
+        Set<String> idempotencyKeys = ConcurrentHashMap.newKeySet();
+        when(notificationService.acceptNotifications(anyList())).thenAnswer(invocation -> {
+            List<NotificationRequest> requests = invocation.getArgument(0);
+            accepted.addAndGet(requests.size());
+            requests.forEach(request -> idempotencyKeys.add(request.getIdempotencyKey()));
+            return new BulkAcceptResult(IntStream.range(0, requests.size())
+                    .mapToObj(i -> BulkAcceptResult.Item.accepted(i, Notification.builder().userId(requests.get(i).getUserId()).build()))
+                    .toList());
+        });
+
+        int messages = 50;
+        for (int i = 0; i < messages; i++) {
+            UUID userId = UUID.randomUUID();
+            NotificationRequest request = NotificationRequest.builder()
+                    .userId(userId)
+                    .subject("Test subject")
+                    .body("Test body")
+                    .build();
+            kafkaTemplate.send("notification-requests", userId.toString(), mapper.writeValueAsString(request));
+        }
+        kafkaTemplate.send("notification-requests", "not json");
+        kafkaTemplate.flush();
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (committedOffsets() < messages + 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+
+        assertEquals(messages, accepted.get());
+        assertEquals(messages + 1, committedOffsets());
+        assertEquals(messages, idempotencyKeys.size());
+        assertTrue(idempotencyKeys.stream().allMatch(key -> key.matches("kafka:notification-requests-\\d+@\\d+")));
+    }
+
+    @Test
+    void batchThatKeepsFailing_isPublishedToTheDeadLetterTopic() throws Exception {
+        UUID poisoned = UUID.randomUUID();
+        when(notificationService.acceptNotifications(anyList())).thenAnswer(invocation -> {
+            List<NotificationRequest> requests = invocation.getArgument(0);
+            if (requests.stream().anyMatch(request -> poisoned.equals(request.getUserId()))) {
+                throw new IllegalStateException("Database unavailable");
+            }
+            return new BulkAcceptResult(List.of());
+        });
+
+        NotificationRequest request = NotificationRequest.builder()
+                .userId(poisoned)
+                .subject("Test subject")
+                .body("Test body")
+                .build();
+        kafkaTemplate.send("notification-requests", poisoned.toString(), mapper.writeValueAsString(request));
+        kafkaTemplate.flush();
+
+        Map<String, Object> consumerProperties = KafkaTestUtils.consumerProps("dead-letter-test", "false", broker);
+        consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProperties, new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            consumer.subscribe(List.of("notification-requests-dlt"));
+            ConsumerRecord<String, String> deadLetter = KafkaTestUtils.getSingleRecord(consumer, "notification-requests-dlt", Duration.ofSeconds(30));
+
+            assertEquals(poisoned.toString(), deadLetter.key());
+            assertEquals(poisoned.toString(), mapper.readTree(deadLetter.value()).get("userId").asText());
+        }
+    }
+
+    private long committedOffsets() throws Exception {
+        try (AdminClient admin = AdminClient.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+            Map<TopicPartition, OffsetAndMetadata> offsets = admin.listConsumerGroupOffsets("notification-svc-test").partitionsToOffsetAndMetadata().get();
+            return offsets.values().stream().mapToLong(OffsetAndMetadata::offset).sum();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.notification.notification_svc.kafka;
+
+import com.notification.notification_svc.NotificationSvcApplication;
+import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.service.NotificationService;
+import com.notification.notification_svc.web.dto.UpsertNotificationPreference;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@EmbeddedKafka(partitions = 1, topics = "notification-preference-invalidations")
+public class PreferenceInvalidationITest {
+
+    private static final Duration PROPAGATION_BOUND = Duration.ofSeconds(5);
+
+    @Test
+    void disableOnOneNode_isSeenByTheOtherNodeWithinBoundedTime(EmbeddedKafkaBroker broker) throws Exception {
+        try (ConfigurableApplicationContext nodeA = startNode(broker);
+             ConfigurableApplicationContext nodeB = startNode(broker)) {
+            awaitInvalidationListener(nodeA);
+            awaitInvalidationListener(nodeB);
+
+            NotificationService serviceA = nodeA.getBean(NotificationService.class);
+            NotificationService serviceB = nodeB.getBean(NotificationService.class);
+
+            UUID userId = UUID.randomUUID();
+            serviceA.upsertPreference(UpsertNotificationPreference.builder()
+                    .userId(userId)
+                    .type(NotificationType.EMAIL)
+                    .contactInfo("test@email.com")
+                    .notificationEnabled(true)
+                    .build());
+            assertTrue(serviceB.getPreferenceByUserId(userId).isEnabled());
+
+            long start = System.nanoTime();
+            serviceA.changeNotificationPreference(userId, false);
+
+            while (serviceB.getPreferenceByUserId(userId).isEnabled() && System.nanoTime() - start < PROPAGATION_BOUND.toNanos()) {
+                Thread.sleep(10);
+            }
+
+            assertFalse(serviceB.getPreferenceByUserId(userId).isEnabled());
+            assertEquals(1, nodeA.getBeanNamesForType(KafkaTemplate.class).length);
+            assertNotNull(nodeA.getBean("kafkaTemplate", KafkaTemplate.class));
+        }
+    }
+
+    private ConfigurableApplicationContext startNode(EmbeddedKafkaBroker broker) {
+        return new SpringApplicationBuilder(NotificationSvcApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:invalidation;DB_CLOSE_DELAY=-1;MODE=MYSQL",
+                        "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                        "--notification.preference-cache.invalidation.enabled=true",
+                        "--spring.jmx.enabled=false");
+    }
+
+    private void awaitInvalidationListener(ConfigurableApplicationContext node) throws Exception {
+        KafkaListenerEndpointRegistry registry = node.getBean(KafkaListenerEndpointRegistry.class);
+        ContainerTestUtils.waitForAssignment(registry.getListenerContainer("preferenceInvalidationListener"), 1);
+    }
+}
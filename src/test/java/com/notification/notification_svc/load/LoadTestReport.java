@@ -0,0 +1,33 @@
+package com.notification.notification_svc.load;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Machine-readable result of one load-test run, written as JSON so release runs can be diffed.
+ * Latencies are client-side, from request start to the last response byte.
+ */
+public record LoadTestReport(
+        Instant startedAt,
+        String javaVersion,
+        int availableProcessors,
+        LoadTestSettings settings,
+        double measuredSeconds,
+        Map<LoadTestSettings.Operation, OperationStats> operations,
+        SmtpStats smtp,
+        Map<String, Long> notificationsByStatus) {
+
+    public record OperationStats(
+            long requests,
+            long errors,
+            double requestsPerSecond,
+            Map<Integer, Long> statusCodes,
+            Latency latencyMillis) {
+    }
+
+    public record Latency(double mean, double p50, double p90, double p99, double p999, double max) {
+    }
+
+    public record SmtpStats(long accepted, long rejected, long connections, double acceptedPerSecond) {
+    }
+}
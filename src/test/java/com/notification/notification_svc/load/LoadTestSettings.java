@@ -0,0 +1,59 @@
+package com.notification.notification_svc.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load-test knobs, read from {@code load.*} system properties so they can be set on the Maven
+ * command line, e.g. {@code mvn test -Pload -Dload.concurrency=128 -Dload.smtp.failure-rate=0.05}.
+ */
+public record LoadTestSettings(
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        int users,
+        Map<LoadTestSettings.Operation, Integer> mix,
+        Duration smtpLatency,
+        double smtpFailureRate,
+        Path report,
+        List<String> appArgs) {
+
+    public enum Operation {
+        SEND, HISTORY, RETRY
+    }
+
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("load.concurrency", 64),
+                duration("load.warmup", "10s"),
+                duration("load.duration", "60s"),
+                Integer.getInteger("load.users", 1_000),
+                mix(System.getProperty("load.mix", "send=80,history=15,retry=5")),
+                duration("load.smtp.latency", "20ms"),
+                Double.parseDouble(System.getProperty("load.smtp.failure-rate", "0.0")),
+                Path.of(System.getProperty("load.report", "target/load-test/report.json")),
+                Arrays.stream(System.getProperty("load.app-args", "").split("\\s+")).filter(arg -> !arg.isBlank()).toList());
+    }
+
+    private static Duration duration(String key, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(key, defaultValue));
+    }
+
+    private static Map<Operation, Integer> mix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] weight = entry.trim().split("=");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("load.mix entries must look like send=80, got '%s'".formatted(entry));
+            }
+            mix.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+}
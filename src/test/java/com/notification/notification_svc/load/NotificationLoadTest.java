@@ -0,0 +1,257 @@
+package com.notification.notification_svc.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.notification.notification_svc.NotificationSvcApplication;
+import com.notification.notification_svc.load.LoadTestSettings.Operation;
+import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.service.NotificationService;
+import com.notification.notification_svc.web.dto.UpsertNotificationPreference;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end load test of the HTTP API. Boots the application with the {@code test} profile (H2 in
+ * MySQL mode) against {@link FaultInjectingSmtpServer}, then keeps {@code load.concurrency} clients
+ * busy with a weighted mix of sends, history reads and retries. After the warmup, every response is
+ * recorded and the run is written to {@code target/load-test/report.json}. Nothing leaves the
+ * machine. Run with {@code mvn test -Pload}; see {@link LoadTestSettings} for the knobs.
+ */
+@Tag("load")
+public class NotificationLoadTest {
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    @Test
+    void httpApiUnderLoad() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        Instant startedAt = Instant.now();
+
+        try (FaultInjectingSmtpServer smtp = new FaultInjectingSmtpServer(settings.smtpLatency(), settings.smtpFailureRate());
+             ConfigurableApplicationContext context = start(settings, smtp)) {
+
+            List<UUID> userIds = createUsers(context.getBean(NotificationService.class), settings.users());
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadClient client = new LoadClient(URI.create("http://localhost:" + port + "/api/v1/notifications"), userIds, settings.mix());
+
+            ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency());
+            long warmupEnd = System.nanoTime() + settings.warmup().toNanos();
+            long end = warmupEnd + settings.duration().toNanos();
+            List<Future<WorkerStats>> futures = new ArrayList<>();
+            for (int i = 0; i < settings.concurrency(); i++) {
+                futures.add(workers.submit(() -> client.run(warmupEnd, end)));
+            }
+
+            Thread.sleep(settings.warmup().toMillis());
+            long acceptedBefore = smtp.getAccepted();
+            long rejectedBefore = smtp.getRejected();
+
+            WorkerStats total = new WorkerStats();
+            for (Future<WorkerStats> future : futures) {
+                total.merge(future.get());
+            }
+            double seconds = settings.duration().toNanos() / 1e9;
+            workers.shutdown();
+
+            long accepted = smtp.getAccepted() - acceptedBefore;
+            LoadTestReport report = new LoadTestReport(
+                    startedAt,
+                    Runtime.version().toString(),
+                    Runtime.getRuntime().availableProcessors(),
+                    settings,
+                    seconds,
+                    total.toReport(seconds),
+                    new LoadTestReport.SmtpStats(accepted, smtp.getRejected() - rejectedBefore, smtp.getOpenedConnections(), accepted / seconds),
+                    notificationsByStatus(context.getBean(JdbcTemplate.class)));
+
+            write(report, settings);
+            assertEquals(0, total.failures(), "requests that failed with an I/O error or a 5xx");
+        }
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestSettings settings, FaultInjectingSmtpServer smtp) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1;MODE=MYSQL",
+                "--spring.mail.host=localhost",
+                "--spring.mail.port=" + smtp.getPort(),
+                "--spring.mail.properties.mail.smtp.auth=false",
+                "--spring.mail.properties.mail.smtp.starttls.enable=false",
+                "--notification.rate-limit.enabled=false",
+                "--server.tomcat.threads.max=" + Math.max(200, settings.concurrency()),
+                "--logging.level.root=WARN",
+                "--spring.jmx.enabled=false"));
+        args.addAll(settings.appArgs());
+
+        return new SpringApplicationBuilder(NotificationSvcApplication.class)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+    }
+
+    private static List<UUID> createUsers(NotificationService notificationService, int users) {
+        List<UUID> userIds = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            UUID userId = UUID.randomUUID();
+            notificationService.upsertPreference(UpsertNotificationPreference.builder()
+                    .userId(userId)
+                    .type(NotificationType.EMAIL)
+                    .contactInfo("user" + i + "@example.com")
+                    .notificationEnabled(true)
+                    .build());
+            userIds.add(userId);
+        }
+        return userIds;
+    }
+
+    private static Map<String, Long> notificationsByStatus(JdbcTemplate jdbcTemplate) {
+        Map<String, Long> counts = new TreeMap<>();
+        jdbcTemplate.query("select status, count(*) from notification group by status",
+                row -> {
+                    counts.put(row.getString(1), row.getLong(2));
+                });
+        return counts;
+    }
+
+    private static void write(LoadTestReport report, LoadTestSettings settings) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        Files.createDirectories(settings.report().toAbsolutePath().getParent());
+        objectMapper.writeValue(settings.report().toFile(), report);
+
+        report.operations().forEach((operation, stats) -> System.out.printf("%-8s %8.0f req/s, p50 %.1f ms, p99 %.1f ms, %d errors%n",
+                operation, stats.requestsPerSecond(), stats.latencyMillis().p50(), stats.latencyMillis().p99(), stats.errors()));
+        System.out.printf("smtp     %8.0f sends/s, %d rejected%n", report.smtp().acceptedPerSecond(), report.smtp().rejected());
+        System.out.println("report written to " + settings.report().toAbsolutePath());
+    }
+
+    private static final class LoadClient {
+        private final HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        private final URI uri;
+        private final List<UUID> userIds;
+        private final Operation[] weighted;
+
+        LoadClient(URI uri, List<UUID> userIds, Map<Operation, Integer> mix) {
+            this.uri = uri;
+            this.userIds = userIds;
+            List<Operation> operations = new ArrayList<>();
+            mix.forEach((operation, weight) -> {
+                for (int i = 0; i < weight; i++) {
+                    operations.add(operation);
+                }
+            });
+            this.weighted = operations.toArray(Operation[]::new);
+        }
+
+        WorkerStats run(long warmupEnd, long end) {
+            WorkerStats stats = new WorkerStats();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                Operation operation = weighted[random.nextInt(weighted.length)];
+                UUID userId = userIds.get(random.nextInt(userIds.size()));
+                int status;
+                try {
+                    status = httpClient.send(request(operation, userId), HttpResponse.BodyHandlers.discarding()).statusCode();
+                } catch (IOException e) {
+                    status = -1;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (now >= warmupEnd) {
+                    stats.record(operation, status, System.nanoTime() - now);
+                }
+            }
+            return stats;
+        }
+
+        private HttpRequest request(Operation operation, UUID userId) {
+            return switch (operation) {
+                case SEND -> HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"userId\":\"%s\",\"subject\":\"Load\",\"body\":\"Load test\"}".formatted(userId)))
+                        .build();
+                case HISTORY -> HttpRequest.newBuilder(URI.create(uri + "?userId=" + userId)).GET().build();
+                case RETRY -> HttpRequest.newBuilder(URI.create(uri + "?userId=" + userId)).PUT(HttpRequest.BodyPublishers.noBody()).build();
+            };
+        }
+    }
+
+    private static final class WorkerStats {
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Map<Integer, Long>> statusCodes = new EnumMap<>(Operation.class);
+
+        void record(Operation operation, int status, long nanos) {
+            latencies.computeIfAbsent(operation, ignored -> new Histogram(HIGHEST_LATENCY_MICROS, 3))
+                    .recordValue(Math.min(HIGHEST_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos)));
+            statusCodes.computeIfAbsent(operation, ignored -> new TreeMap<>()).merge(status, 1L, Long::sum);
+        }
+
+        void merge(WorkerStats other) {
+            other.latencies.forEach((operation, histogram) -> latencies.computeIfAbsent(operation, ignored -> new Histogram(HIGHEST_LATENCY_MICROS, 3)).add(histogram));
+            other.statusCodes.forEach((operation, codes) -> codes.forEach((status, count) -> statusCodes.computeIfAbsent(operation, ignored -> new TreeMap<>()).merge(status, count, Long::sum)));
+        }
+
+        /** I/O errors (recorded as status -1) and server errors; 4xx such as 429 are expected under load. */
+        long failures() {
+            return statusCodes.values().stream()
+                    .flatMap(codes -> codes.entrySet().stream())
+                    .filter(entry -> entry.getKey() < 0 || entry.getKey() >= 500)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+
+        Map<Operation, LoadTestReport.OperationStats> toReport(double seconds) {
+            Map<Operation, LoadTestReport.OperationStats> report = new EnumMap<>(Operation.class);
+            latencies.forEach((operation, histogram) -> {
+                Map<Integer, Long> codes = statusCodes.get(operation);
+                long errors = codes.entrySet().stream().filter(entry -> entry.getKey() < 200 || entry.getKey() >= 300).mapToLong(Map.Entry::getValue).sum();
+                report.put(operation, new LoadTestReport.OperationStats(
+                        histogram.getTotalCount(),
+                        errors,
+                        histogram.getTotalCount() / seconds,
+                        codes,
+                        new LoadTestReport.Latency(
+                                histogram.getMean() / 1000,
+                                histogram.getValueAtPercentile(50) / 1000.0,
+                                histogram.getValueAtPercentile(90) / 1000.0,
+                                histogram.getValueAtPercentile(99) / 1000.0,
+                                histogram.getValueAtPercentile(99.9) / 1000.0,
+                                histogram.getMaxValue() / 1000.0)));
+            });
+            return report;
+        }
+    }
+}
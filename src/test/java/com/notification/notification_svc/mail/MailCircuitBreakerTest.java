@@ -0,0 +1,108 @@
+package com.notification.notification_svc.mail;
+
+import com.notification.notification_svc.config.MailCircuitBreakerProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MailCircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(50).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private MailCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        MailCircuitBreakerProperties properties = new MailCircuitBreakerProperties();
+        properties.setWindowSize(10);
+        properties.setMinimumCalls(4);
+        properties.setFailureRateThreshold(0.5);
+        properties.setSlowCallDuration(Duration.ofSeconds(1));
+        properties.setSlowCallRateThreshold(0.75);
+        properties.setOpenDuration(Duration.ofSeconds(30));
+        properties.setHalfOpenProbes(2);
+        meterRegistry = new SimpleMeterRegistry();
+        breaker = new MailCircuitBreaker(properties, meterRegistry, clock::get);
+    }
+
+    @Test
+    void opensOnceTheFailureRateIsReachedAndRejectsWithoutWaiting() {
+        breaker.onResult(FAST, false);
+        breaker.onResult(FAST, true);
+        breaker.onResult(FAST, false);
+        assertEquals(MailCircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onResult(FAST, true);
+
+        assertEquals(MailCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1.0, meterRegistry.get("notification.mail.circuit.rejected").counter().count());
+        assertEquals(1.0, meterRegistry.get("notification.mail.circuit.state").gauge().value());
+    }
+
+    @Test
+    void slowCallsOpenTheBreakerEvenWhenTheySucceed() {
+        long slow = Duration.ofSeconds(2).toNanos();
+        for (int i = 0; i < 3; i++) {
+            breaker.onResult(slow, false);
+        }
+        breaker.onResult(FAST, false);
+
+        assertEquals(MailCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void successfulProbesCloseTheBreaker() {
+        open();
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(MailCircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onResult(FAST, false);
+        breaker.onResult(FAST, false);
+
+        assertEquals(MailCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(1.0, meterRegistry.get("notification.mail.circuit.transitions").tags("from", "HALF_OPEN", "to", "CLOSED").counter().count());
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() {
+        open();
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        breaker.tryAcquirePermission();
+        breaker.tryAcquirePermission();
+
+        breaker.onResult(FAST, true);
+        breaker.onResult(FAST, false);
+
+        assertEquals(MailCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void staysOpenUntilTheOpenDurationHasPassed() {
+        open();
+        clock.addAndGet(Duration.ofSeconds(29).toNanos());
+
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(MailCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(FAST, true);
+        }
+        assertEquals(MailCircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
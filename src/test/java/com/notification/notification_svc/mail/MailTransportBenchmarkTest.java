@@ -0,0 +1,87 @@
+package com.notification.notification_svc.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.notification.notification_svc.config.MailPoolProperties;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares connect-per-message sending with the pooled, batched transport against an in-process
+ * SMTP server. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class MailTransportBenchmarkTest {
+
+    private static final int MESSAGES = 4_000;
+    private static final int THREADS = 8;
+    private static final int BATCH_SIZE = 20;
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Test
+    void pooledTransportThroughput() throws Exception {
+        JavaMailSenderImpl plain = new JavaMailSenderImpl();
+        plain.setHost("localhost");
+        plain.setPort(ServerSetupTest.SMTP.getPort());
+
+        MailPoolProperties properties = new MailPoolProperties();
+        properties.setMaxConnections(THREADS);
+        PooledJavaMailSender pooled = new PooledJavaMailSender(properties);
+        pooled.setHost("localhost");
+        pooled.setPort(ServerSetupTest.SMTP.getPort());
+
+        double before = run("connect-per-message", plain, 1);
+        greenMail.purgeEmailFromAllMailboxes();
+        double after = run("pooled, batch of " + BATCH_SIZE, pooled, BATCH_SIZE);
+        pooled.destroy();
+
+        System.out.printf("mail transport speedup: %.1fx (%d connections opened for %d messages)%n", after / before, pooled.getOpenedConnections(), MESSAGES);
+    }
+
+    private double run(String label, JavaMailSender sender, int batchSize) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        int perThread = MESSAGES / THREADS;
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int sent = 0; sent < perThread; sent += batchSize) {
+                    SimpleMailMessage[] batch = new SimpleMailMessage[Math.min(batchSize, perThread - sent)];
+                    for (int i = 0; i < batch.length; i++) {
+                        batch[i] = new SimpleMailMessage();
+                        batch[i].setFrom("notifications@example.com");
+                        batch[i].setTo("user@example.com");
+                        batch[i].setSubject("Benchmark");
+                        batch[i].setText("Benchmark body");
+                    }
+                    sender.send(batch);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        assertEquals(MESSAGES, greenMail.getReceivedMessages().length);
+        double throughput = MESSAGES / seconds;
+        System.out.printf("%-28s %8.0f messages/sec%n", label, throughput);
+        return throughput;
+    }
+}
@@ -0,0 +1,75 @@
+package com.notification.notification_svc.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.notification.notification_svc.config.MailPoolProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PooledJavaMailSenderTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private PooledJavaMailSender mailSender;
+
+    @BeforeEach
+    void setUp() {
+        MailPoolProperties properties = new MailPoolProperties();
+        properties.setMaxConnections(2);
+        properties.setMaxMessagesPerConnection(10);
+        properties.setBorrowTimeout(Duration.ofSeconds(1));
+
+        mailSender = new PooledJavaMailSender(properties);
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailSender.destroy();
+    }
+
+    @Test
+    void batchedSends_reuseConnectionsAndRecycleAfterMaxMessages() {
+        for (int call = 0; call < 5; call++) {
+            SimpleMailMessage[] messages = new SimpleMailMessage[5];
+            for (int i = 0; i < messages.length; i++) {
+                messages[i] = message("user%d@example.com".formatted(call * 5 + i));
+            }
+            mailSender.send(messages);
+        }
+
+        assertEquals(25, greenMail.getReceivedMessages().length);
+        assertEquals(3, mailSender.getOpenedConnections());
+    }
+
+    @Test
+    void unreachableServer_failsEveryMessageOfTheBatch() {
+        mailSender.setPort(1);
+        SimpleMailMessage first = message("first@example.com");
+        SimpleMailMessage second = message("second@example.com");
+
+        MailSendException exception = assertThrows(MailSendException.class, () -> mailSender.send(first, second));
+
+        assertEquals(2, exception.getFailedMessages().size());
+        assertEquals(0, mailSender.getOpenedConnections());
+    }
+
+    private SimpleMailMessage message(String to) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("notifications@example.com");
+        message.setTo(to);
+        message.setSubject("Test subject");
+        message.setText("Test body");
+        return message;
+    }
+}
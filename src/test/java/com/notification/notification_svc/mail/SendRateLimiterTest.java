@@ -0,0 +1,80 @@
+package com.notification.notification_svc.mail;
+
+import com.notification.notification_svc.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SendRateLimiterTest {
+
+    @Test
+    void tokenBucketLetsTheBurstThroughAndThenSpacesPermits() {
+        long now = 0;
+        TokenBucket bucket = new TokenBucket(10, 5, now);
+
+        assertEquals(0, bucket.reserve(5, now));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(1, now));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), bucket.reserve(1, now));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(1, now + TimeUnit.MILLISECONDS.toNanos(200)));
+    }
+
+    @Test
+    void tokenBucketRefillsWhileIdle() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+        bucket.reserve(5, 0);
+
+        assertEquals(0, bucket.reserve(5, TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Test
+    void eachRecipientDomainHasItsOwnBudget() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setGlobalPerSecond(1_000);
+        properties.setGlobalBurst(1_000);
+        properties.setDomainPerSecond(10);
+        properties.setDomainBurst(2);
+        SendRateLimiter limiter = new SendRateLimiter(properties, new SimpleMeterRegistry());
+        long now = System.nanoTime();
+
+        assertEquals(0, limiter.reserve(List.of("a@example.com", "b@EXAMPLE.com"), now));
+        assertEquals(0, limiter.reserve(List.of("c@other.org", "d@other.org"), now));
+        assertTrue(limiter.reserve(List.of("e@example.com"), now) > 0);
+    }
+
+    @Test
+    void domainOverridesAndGlobalBudgetAreApplied() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setGlobalPerSecond(100);
+        properties.setGlobalBurst(3);
+        properties.setDomainBurst(1);
+        properties.setDomains(Map.of("bulk.example.com", 1_000.0));
+        SendRateLimiter limiter = new SendRateLimiter(properties, new SimpleMeterRegistry());
+        long now = System.nanoTime();
+
+        assertEquals(0, limiter.reserve(Collections.nCopies(1, "a@bulk.example.com"), now));
+        assertTrue(limiter.reserve(Collections.nCopies(3, "a@bulk.example.com"), now) > 0);
+    }
+
+    @Test
+    void disabledLimiterNeverWaits() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setEnabled(false);
+        properties.setGlobalBurst(1);
+        SendRateLimiter limiter = new SendRateLimiter(properties, new SimpleMeterRegistry());
+
+        assertEquals(0, limiter.reserve(Collections.nCopies(100, "a@example.com"), System.nanoTime()));
+    }
+
+    @Test
+    void contactInfoWithoutDomainIsOnlyGloballyLimited() {
+        assertNull(SendRateLimiter.domainOf("no-at-sign"));
+        assertNull(SendRateLimiter.domainOf("trailing@"));
+        assertEquals("example.com", SendRateLimiter.domainOf("User@Example.com "));
+    }
+}
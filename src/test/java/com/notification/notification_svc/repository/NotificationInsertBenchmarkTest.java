@@ -0,0 +1,98 @@
+package com.notification.notification_svc.repository;
+
+import com.notification.notification_svc.NotificationSvcApplication;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.model.NotificationType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Inserts {@code benchmark.rows} notifications (10M by default) through the repository in JDBC
+ * batches and prints the throughput of every tenth of the run. With time-ordered ids the primary
+ * key only grows at its right edge, so the last tenth should insert about as fast as the best one.
+ * Uses a file-backed H2 database in MySQL mode under {@code target/}; run with
+ * {@code mvn test -Pbenchmark -Dbenchmark.rows=1000000} for a shorter run.
+ */
+@Tag("benchmark")
+public class NotificationInsertBenchmarkTest {
+
+    private static final long ROWS = Long.getLong("benchmark.rows", 10_000_000);
+    private static final int CHUNK = 5_000;
+    private static final Path DATABASE = Path.of("target", "insert-benchmark");
+
+    @Test
+    void insertThroughputHoldsSteady() throws Exception {
+        FileSystemUtils.deleteRecursively(DATABASE);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(NotificationSvcApplication.class)
+                .profiles("test")
+                .run("--spring.main.web-application-type=none",
+                        "--spring.datasource.url=jdbc:h2:file:./" + DATABASE.resolve("db") + ";MODE=MYSQL",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+                        "--logging.level.root=WARN",
+                        "--spring.jmx.enabled=false")) {
+
+            NotificationRepository repository = context.getBean(NotificationRepository.class);
+            Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+            List<UUID> userIds = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                userIds.add(UUID.randomUUID());
+            }
+
+            long window = ROWS / 10;
+            double best = 0;
+            double last = 0;
+            long inserted = 0;
+            long windowStart = System.nanoTime();
+            statistics.clear();
+            while (inserted < ROWS) {
+                List<Notification> chunk = new ArrayList<>(CHUNK);
+                LocalDateTime now = LocalDateTime.now();
+                for (int i = 0; i < CHUNK && inserted + i < ROWS; i++) {
+                    chunk.add(Notification.builder()
+                            .userId(userIds.get((int) ((inserted + i) % userIds.size())))
+                            .subject("Benchmark")
+                            .body("Insert benchmark")
+                            .type(NotificationType.EMAIL)
+                            .status(NotificationStatus.SUCCEEDED)
+                            .contactInfo("user@example.com")
+                            .createdOn(now)
+                            .updatedOn(now)
+                            .attempts(1)
+                            .build());
+                }
+                repository.saveAll(chunk);
+                inserted += chunk.size();
+
+                if (inserted % window == 0) {
+                    long elapsed = System.nanoTime() - windowStart;
+                    last = window / (elapsed / 1e9);
+                    best = Math.max(best, last);
+                    System.out.printf("rows %,12d  %,10.0f rows/s  %,6.0f rows per prepared statement%n",
+                            inserted, last, (double) window / statistics.getPrepareStatementCount());
+                    statistics.clear();
+                    windowStart = System.nanoTime();
+                }
+            }
+
+            System.out.printf("last tenth at %.0f%% of the best tenth%n", 100 * last / best);
+            assertTrue(last >= best / 2, "insert throughput fell from %.0f to %.0f rows/s".formatted(best, last));
+        }
+    }
+}
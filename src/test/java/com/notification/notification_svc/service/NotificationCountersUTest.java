@@ -0,0 +1,106 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.config.CounterProperties;
+import com.notification.notification_svc.model.NotificationCounter;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.repository.NotificationCounterRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationCountersUTest {
+
+    @Mock
+    private NotificationCounterService counterService;
+    @Mock
+    private NotificationCounterRepository counterRepository;
+
+    private NotificationCounters counters;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        CounterProperties properties = new CounterProperties();
+        properties.setShards(4);
+        counters = new NotificationCounters(counterService, counterRepository, properties);
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void summaryAddsUnflushedChangesToTheStoredCounters() {
+        LocalDateTime lastSent = LocalDateTime.now().minusDays(1);
+        when(counterRepository.findAllByUserId(userId)).thenReturn(List.of(
+                new NotificationCounter(new NotificationCounter.Key(userId, NotificationStatus.SUCCEEDED), 10, lastSent),
+                new NotificationCounter(new NotificationCounter.Key(userId, NotificationStatus.PENDING), 1, lastSent)));
+
+        counters.move(userId, NotificationStatus.PENDING, NotificationStatus.SUCCEEDED, 1);
+        counters.move(userId, null, NotificationStatus.BUFFERED, 2);
+
+        NotificationSummary summary = counters.summary(userId);
+
+        assertEquals(11, summary.getCounts().get(NotificationStatus.SUCCEEDED));
+        assertEquals(0, summary.getCounts().get(NotificationStatus.PENDING));
+        assertEquals(2, summary.getCounts().get(NotificationStatus.BUFFERED));
+        assertEquals(0, summary.getCounts().get(NotificationStatus.SCHEDULED));
+        assertEquals(NotificationStatus.values().length, summary.getCounts().size());
+        assertEquals(13, summary.getTotal());
+        assertTrue(summary.getLastSentOn().isAfter(lastSent));
+    }
+
+    @Test
+    void flushWritesTheNetChangePerUserAndStatusOnce() {
+        for (int i = 0; i < 100; i++) {
+            counters.move(userId, null, NotificationStatus.PENDING, 1);
+            counters.move(userId, NotificationStatus.PENDING, NotificationStatus.SUCCEEDED, 1);
+        }
+
+        counters.flush();
+        counters.flush();
+
+        ArgumentCaptor<Collection<NotificationCounter>> changes = ArgumentCaptor.captor();
+        verify(counterService).apply(changes.capture());
+        Map<NotificationStatus, Long> totals = changes.getValue().stream()
+                .collect(Collectors.toMap(change -> change.getId().getStatus(), NotificationCounter::getTotal));
+        assertEquals(Map.of(NotificationStatus.PENDING, 0L, NotificationStatus.SUCCEEDED, 100L), totals);
+    }
+
+    @Test
+    void changesOfAFailedFlushAreKeptForTheNextOne() {
+        counters.move(userId, null, NotificationStatus.FAILED, 3);
+        doThrow(new IllegalStateException("database down")).doNothing().when(counterService).apply(anyCollection());
+
+        counters.flush();
+        counters.move(userId, null, NotificationStatus.FAILED, 1);
+        counters.flush();
+
+        ArgumentCaptor<Collection<NotificationCounter>> changes = ArgumentCaptor.captor();
+        verify(counterService, times(2)).apply(changes.capture());
+        assertEquals(4, changes.getAllValues().get(1).iterator().next().getTotal());
+    }
+
+    @Test
+    void clearDropsUnflushedChangesAndResetsTheStoredCounters() {
+        counters.move(userId, null, NotificationStatus.SUCCEEDED, 5);
+
+        counters.clear(userId);
+        counters.flush();
+
+        verify(counterRepository).resetByUserId(userId);
+        verifyNoInteractions(counterService);
+    }
+}
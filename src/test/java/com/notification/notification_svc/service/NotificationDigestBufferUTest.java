@@ -0,0 +1,111 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.config.DigestProperties;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationDigestBufferUTest {
+
+    @Mock
+    private NotificationDigestService digestService;
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DigestProperties properties;
+    private NotificationDigestBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new DigestProperties();
+        properties.setMaxSize(3);
+        properties.setShards(4);
+        buffer = new NotificationDigestBuffer(digestService, notificationRepository, properties, meterRegistry);
+    }
+
+    @Test
+    void fullBufferIsDigestedRightAway() {
+        UUID userId = UUID.randomUUID();
+        List<Notification> burst = List.of(buffered(userId, 0), buffered(userId, 0), buffered(userId, 0));
+
+        buffer.add(List.of(buffered(UUID.randomUUID(), 0)));
+        buffer.add(burst);
+
+        verify(digestService).digest(burst.stream().map(Notification::getId).toList());
+        verifyNoMoreInteractions(digestService);
+        assertEquals(1.0, meterRegistry.get("notification.digest.buffered").gauge().value());
+        assertEquals(1.0, meterRegistry.get("notification.digest.flushed").tag("trigger", "size").counter().count());
+    }
+
+    @Test
+    void bufferIsDigestedOnceItsWindowHasPassed() {
+        UUID waitingUserId = UUID.randomUUID();
+        Notification old = buffered(waitingUserId, 60);
+        Notification newer = buffered(waitingUserId, 0);
+        buffer.add(List.of(old, newer, buffered(UUID.randomUUID(), 0)));
+
+        buffer.flushDue();
+
+        verify(digestService).digest(List.of(old.getId(), newer.getId()));
+        verifyNoMoreInteractions(digestService);
+    }
+
+    @Test
+    void recoveryTakesEveryBufferedRowAfterAStartAndOnlyStaleOnesLater() {
+        UUID userId = UUID.randomUUID();
+        Notification alreadyBuffered = buffered(userId, 0);
+        Notification recovered = buffered(userId, 0);
+        buffer.add(List.of(alreadyBuffered));
+        when(notificationRepository.findBufferedBefore(any(), any(Limit.class)))
+                .thenReturn(List.of(alreadyBuffered, recovered), List.of(recovered, buffered(userId, 0)));
+
+        buffer.recover();
+        buffer.recover();
+
+        ArgumentCaptor<LocalDateTime> cutoffs = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(notificationRepository, times(2)).findBufferedBefore(cutoffs.capture(), any(Limit.class));
+        assertTrue(Duration.between(cutoffs.getAllValues().get(1), cutoffs.getAllValues().get(0)).compareTo(properties.getStaleAfter().minusSeconds(1)) > 0);
+        // Rows held already are not added twice, so the buffer only fills up on the second run.
+        verify(digestService, times(1)).digest(anyCollection());
+    }
+
+    @Test
+    void failedDigestLeavesTheRowsForRecovery() {
+        UUID userId = UUID.randomUUID();
+        doThrow(new IllegalStateException("database is down")).when(digestService).digest(anyCollection());
+
+        assertDoesNotThrow(() -> buffer.add(List.of(buffered(userId, 0), buffered(userId, 0), buffered(userId, 0))));
+
+        assertEquals(0.0, meterRegistry.get("notification.digest.flushed").tag("trigger", "size").counter().count());
+    }
+
+    private static Notification buffered(UUID userId, int ageSeconds) {
+        return Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .status(NotificationStatus.BUFFERED)
+                .createdOn(LocalDateTime.now().minusSeconds(ageSeconds))
+                .build();
+    }
+}
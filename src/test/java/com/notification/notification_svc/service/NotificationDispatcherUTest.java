@@ -0,0 +1,416 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.channel.ChannelRouter;
+import com.notification.notification_svc.channel.ChannelSender;
+import com.notification.notification_svc.channel.SendResult;
+import com.notification.notification_svc.config.ChannelProperties;
+import com.notification.notification_svc.config.DispatchProperties;
+import com.notification.notification_svc.config.PriorityProperties;
+import com.notification.notification_svc.config.RetryProperties;
+import com.notification.notification_svc.config.TemplateProperties;
+import com.notification.notification_svc.dispatch.PriorityLaneExecutor;
+import com.notification.notification_svc.dispatch.PriorityLaneQueue;
+import com.notification.notification_svc.mail.EmailChannelSender;
+import com.notification.notification_svc.mail.MailCircuitBreaker;
+import com.notification.notification_svc.mail.SendRateLimiter;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationOutbox;
+import com.notification.notification_svc.model.NotificationPriority;
+import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.model.NotificationTemplate;
+import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.repository.NotificationRepository;
+import com.notification.notification_svc.repository.NotificationTemplateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationDispatcherUTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+    @Mock
+    private NotificationOutboxService outboxService;
+    @Mock
+    private NotificationRetryService retryService;
+    @Mock
+    private NotificationTemplateRepository templateRepository;
+    @Mock
+    private SendRateLimiter rateLimiter;
+    @Mock
+    private MailCircuitBreaker circuitBreaker;
+    @Mock
+    private JavaMailSender mailSender;
+    @Mock
+    private PriorityLaneExecutor executor;
+
+    private RetryProperties retryProperties;
+    private DispatchProperties dispatchProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private BlockingWebhookSender webhookSender;
+    private ChannelRouter channels;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        retryProperties = new RetryProperties();
+        retryProperties.setMaxAttempts(3);
+        retryProperties.setInitialBackoff(Duration.ofSeconds(10));
+        retryProperties.setJitter(0);
+        dispatchProperties = new DispatchProperties();
+        NotificationMetrics metrics = new NotificationMetrics(meterRegistry);
+        EmailChannelSender emailSender = new EmailChannelSender(new TemplateRegistry(templateRepository, new TemplateProperties(), meterRegistry), rateLimiter, circuitBreaker, metrics, mailSender);
+        webhookSender = new BlockingWebhookSender();
+        ChannelProperties channelProperties = new ChannelProperties();
+        channelProperties.setWebhook(new ChannelProperties.Bulkhead(1, 1, Duration.ofMillis(200)));
+        channels = new ChannelRouter(List.of(emailSender, webhookSender), channelProperties, new PriorityProperties(), new StandardEnvironment(), meterRegistry);
+        dispatcher = new NotificationDispatcher(notificationRepository, outboxService, retryService, new RetryPolicy(retryProperties),
+                channels, metrics, executor, dispatchProperties, retryProperties, meterRegistry);
+        lenient().when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        webhookSender.release.countDown();
+        channels.destroy();
+    }
+
+    @Test
+    void testDeliverAll_FailureSchedulesNextAttemptWithBackoff() {
+        Notification notification = notification(1);
+        doAnswer(this::connectionFailed).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        dispatcher.deliverAll(List.of(notification));
+
+        assertEquals(NotificationStatus.FAILED, notification.getStatus());
+        assertEquals(2, notification.getAttempts());
+        assertEquals(notification.getUpdatedOn().plusSeconds(20), notification.getNextAttemptAt());
+        verify(circuitBreaker).onResult(anyLong(), eq(true));
+    }
+
+    @Test
+    void testDeliverAll_LastAttemptFailureAbandonsNotification() {
+        Notification notification = notification(2);
+        doAnswer(this::connectionFailed).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        dispatcher.deliverAll(List.of(notification));
+
+        assertEquals(NotificationStatus.ABANDONED, notification.getStatus());
+        assertEquals(3, notification.getAttempts());
+        assertNull(notification.getNextAttemptAt());
+    }
+
+    @Test
+    void testDeliverAll_SuccessClearsNextAttempt() {
+        Notification notification = notification(1);
+
+        dispatcher.deliverAll(List.of(notification));
+
+        assertEquals(NotificationStatus.SUCCEEDED, notification.getStatus());
+        assertEquals(2, notification.getAttempts());
+        assertNull(notification.getNextAttemptAt());
+        assertEquals(1.0, meterRegistry.get("notification.status").tag("status", "SUCCEEDED").counter().count());
+        assertEquals(1, meterRegistry.get("notification.stage").tag("stage", "smtp_send").timer().count());
+        assertEquals(1, meterRegistry.get("notification.stage").tag("stage", "persistence").timer().count());
+    }
+
+    @Test
+    void testDeliverAll_OpenCircuitFailsFastWithoutSpendingAnAttempt() {
+        Notification notification = notification(1);
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(false);
+
+        dispatcher.deliverAll(List.of(notification));
+
+        assertEquals(NotificationStatus.FAILED, notification.getStatus());
+        assertEquals(1, notification.getAttempts());
+        assertEquals(notification.getUpdatedOn().plusSeconds(20), notification.getNextAttemptAt());
+        verifyNoInteractions(mailSender, rateLimiter);
+        verify(circuitBreaker, never()).onResult(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void testDeliverAll_RendersTemplatedNotifications() {
+        when(templateRepository.findById("welcome")).thenReturn(Optional.of(NotificationTemplate.builder()
+                .id("welcome")
+                .subject("Welcome, {{name}}")
+                .body("Hi {{name}}, your code is {{code}}.")
+                .build()));
+        Notification notification = notification(0);
+        notification.setSubject(null);
+        notification.setBody(null);
+        notification.setTemplateId("welcome");
+        notification.setTemplateVariables(Map.of("name", "Ana", "code", "1234"));
+
+        dispatcher.deliverAll(List.of(notification));
+
+        ArgumentCaptor<SimpleMailMessage[]> messages = ArgumentCaptor.forClass(SimpleMailMessage[].class);
+        verify(mailSender).send(messages.capture());
+        assertEquals("Welcome, Ana", messages.getValue()[0].getSubject());
+        assertEquals("Hi Ana, your code is 1234.", messages.getValue()[0].getText());
+    }
+
+    @Test
+    void testDeliverAll_TemplateChangedAfterEnqueueFailsOnlyThatNotificationAndReturnsThePermission() {
+        // Saved again with a placeholder the queued notification has no value for.
+        when(templateRepository.findById("welcome")).thenReturn(Optional.of(NotificationTemplate.builder()
+                .id("welcome")
+                .subject("Welcome, {{name}}")
+                .body("Your code is {{code}}.")
+                .build()));
+        Notification templated = notification(0);
+        templated.setTemplateId("welcome");
+        templated.setTemplateVariables(Map.of("name", "Ana"));
+        Notification plain = notification(0);
+
+        dispatcher.deliverAll(List.of(templated, plain));
+
+        assertEquals(NotificationStatus.FAILED, templated.getStatus());
+        assertEquals(1, templated.getAttempts());
+        assertEquals(NotificationStatus.SUCCEEDED, plain.getStatus());
+        ArgumentCaptor<SimpleMailMessage[]> messages = ArgumentCaptor.forClass(SimpleMailMessage[].class);
+        verify(mailSender).send(messages.capture());
+        assertEquals(1, messages.getValue().length);
+        verify(circuitBreaker).onResult(anyLong(), eq(false));
+    }
+
+    @Test
+    void testDeliverAll_BatchWithNothingToRenderDoesNotAskTheCircuitBreaker() {
+        when(templateRepository.findById("removed")).thenReturn(Optional.empty());
+        Notification notification = notification(0);
+        notification.setTemplateId("removed");
+
+        dispatcher.deliverAll(List.of(notification));
+
+        assertEquals(NotificationStatus.FAILED, notification.getStatus());
+        assertEquals(1, notification.getAttempts());
+        verify(circuitBreaker, never()).tryAcquirePermission();
+        verifyNoInteractions(mailSender);
+    }
+
+    @Test
+    void testDispatch_SlowChannelDoesNotHoldUpOtherChannels() {
+        Notification webhook = notification(0, NotificationType.WEBHOOK);
+        Notification email = notification(0);
+
+        CompletableFuture<List<Notification>> webhookDelivery = dispatcher.dispatch(List.of(webhook));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> dispatcher.deliverAll(List.of(email)));
+
+        assertEquals(NotificationStatus.SUCCEEDED, email.getStatus());
+        assertFalse(webhookDelivery.isDone());
+
+        webhookSender.release.countDown();
+        webhookDelivery.join();
+        assertEquals(NotificationStatus.SUCCEEDED, webhook.getStatus());
+    }
+
+    @Test
+    void testDispatch_FullChannelQueueFailsFastWithoutSpendingAnAttempt() {
+        dispatcher.dispatch(List.of(notification(0, NotificationType.WEBHOOK)));
+        dispatcher.dispatch(List.of(notification(0, NotificationType.WEBHOOK)));
+        Notification rejected = notification(1, NotificationType.WEBHOOK);
+
+        dispatcher.deliverAll(List.of(rejected));
+
+        assertEquals(NotificationStatus.FAILED, rejected.getStatus());
+        assertEquals(1, rejected.getAttempts());
+        assertEquals(1.0, meterRegistry.get("notification.channel.rejected").tag("channel", "webhook").counter().count());
+    }
+
+    @Test
+    void testDeliver_WhenChannelTimesOut_ReturnsPendingAndPersistsTheOutcomeLater() {
+        Notification notification = notification(0, NotificationType.WEBHOOK);
+        notification.setId(UUID.randomUUID());
+
+        Notification result = dispatcher.deliver(notification);
+
+        assertEquals(NotificationStatus.PENDING, result.getStatus());
+        webhookSender.release.countDown();
+        verify(retryService, timeout(5_000)).recordOutcomes(argThat(recorded -> recorded.get(0).getStatus() == NotificationStatus.SUCCEEDED));
+        verify(outboxService, timeout(5_000)).completeFor(List.of(notification.getId()));
+    }
+
+    @Test
+    void testDeliver_CompletesTheLeasedOutboxEntryAfterRecordingTheOutcome() {
+        Notification notification = notification(0);
+        notification.setId(UUID.randomUUID());
+
+        Notification result = dispatcher.deliver(notification);
+
+        assertEquals(NotificationStatus.SUCCEEDED, result.getStatus());
+        InOrder order = inOrder(retryService, outboxService);
+        order.verify(retryService).recordOutcomes(anyList());
+        order.verify(outboxService).completeFor(List.of(notification.getId()));
+    }
+
+    @Test
+    void testDispatch_HighPriorityOvertakesAFullLowPriorityLane() {
+        Notification inFlight = notification(0, NotificationType.WEBHOOK);
+        Notification queued = notification(0, NotificationType.WEBHOOK);
+        Notification urgent = notification(0, NotificationType.WEBHOOK);
+        urgent.setPriority(NotificationPriority.HIGH);
+        CompletableFuture<List<Notification>> first = dispatcher.dispatch(List.of(inFlight));
+        CompletableFuture<List<Notification>> second = dispatcher.dispatch(List.of(queued));
+
+        CompletableFuture<List<Notification>> third = dispatcher.dispatch(List.of(urgent));
+        webhookSender.release.countDown();
+        CompletableFuture.allOf(first, second, third).join();
+
+        assertEquals(NotificationStatus.SUCCEEDED, urgent.getStatus());
+        assertEquals(NotificationStatus.SUCCEEDED, queued.getStatus());
+        assertEquals(List.of(inFlight, urgent, queued), webhookSender.sent);
+        assertEquals(1, meterRegistry.get("notification.queue.time").tag("channel", "webhook").tag("priority", "high").timer().count());
+        assertEquals(2, meterRegistry.get("notification.queue.time").tag("channel", "webhook").tag("priority", "low").timer().count());
+    }
+
+    @Test
+    void testDeliverAll_RejectedRecipientIsNotATransportFailure() {
+        Notification rejected = notification(1);
+        Notification delivered = notification(1);
+        doAnswer(invocation -> {
+            SimpleMailMessage first = invocation.getArgument(0);
+            throw new MailSendException(Map.of(first, new SendFailedException("550 mailbox unavailable")));
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        dispatcher.deliverAll(List.of(rejected, delivered));
+
+        assertEquals(NotificationStatus.FAILED, rejected.getStatus());
+        assertEquals(NotificationStatus.SUCCEEDED, delivered.getStatus());
+        verify(circuitBreaker).onResult(anyLong(), eq(false));
+    }
+
+    @Test
+    void testPollOutbox_StopsClaimingAtTheInFlightLimit() {
+        dispatchProperties.setOutboxMaxInFlight(300);
+        when(executor.getLanes()).thenReturn(new PriorityLaneQueue("test", 100, 0.2, Duration.ofSeconds(1), meterRegistry));
+        when(outboxService.claim(anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> outboxEntries(invocation.getArgument(0)));
+
+        dispatcher.pollOutbox();
+
+        verify(outboxService).claim(eq(200), anyInt(), anyInt());
+        verify(outboxService).claim(eq(100), anyInt(), anyInt());
+        verify(outboxService, times(2)).claim(anyInt(), anyInt(), anyInt());
+        assertEquals(300, meterRegistry.get("notification.outbox.in.flight").gauge().value());
+    }
+
+    @Test
+    void testPollOutbox_SkipsEntriesClaimedAgainWhileQueued() {
+        dispatchProperties.setOutboxMaxInFlight(1);
+        when(executor.getLanes()).thenReturn(new PriorityLaneQueue("test", 100, 0.2, Duration.ofSeconds(1), meterRegistry));
+        when(outboxService.claim(anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> outboxEntries(invocation.getArgument(0)));
+        when(outboxService.renew(anyList())).thenReturn(List.of());
+
+        dispatcher.pollOutbox();
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).execute(eq(NotificationPriority.LOW), task.capture());
+        task.getValue().run();
+
+        verify(notificationRepository, never()).findAllById(anyList());
+        verify(outboxService, never()).complete(anyList());
+        verifyNoInteractions(mailSender);
+        assertEquals(0, meterRegistry.get("notification.outbox.in.flight").gauge().value());
+    }
+
+    /**
+     * Throws what the mail sender throws when the SMTP host cannot be reached: every message
+     * failed, with the connection error as the cause.
+     */
+    private Object connectionFailed(InvocationOnMock invocation) {
+        MessagingException cause = new MessagingException("Could not connect to SMTP host", new ConnectException("Connection refused"));
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        for (Object message : invocation.getArguments()) {
+            failedMessages.put(message, cause);
+        }
+        throw new MailSendException("Mail server connection failed", cause, failedMessages);
+    }
+
+    private List<NotificationOutbox> outboxEntries(int count) {
+        UUID leaseToken = UUID.randomUUID();
+        return IntStream.range(0, count)
+                .mapToObj(i -> NotificationOutbox.builder()
+                        .id(UUID.randomUUID())
+                        .notificationId(UUID.randomUUID())
+                        .leaseToken(leaseToken)
+                        .build())
+                .toList();
+    }
+
+    private Notification notification(int attempts) {
+        return notification(attempts, NotificationType.EMAIL);
+    }
+
+    private Notification notification(int attempts, NotificationType type) {
+        return Notification.builder()
+                .userId(UUID.randomUUID())
+                .type(type)
+                .subject("Test subject")
+                .body("Test body")
+                .contactInfo("user@example.com")
+                .status(NotificationStatus.FAILED)
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdOn(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Webhook channel whose sends block until {@link #release} is counted down.
+     */
+    private static class BlockingWebhookSender implements ChannelSender {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<Notification> sent = new CopyOnWriteArrayList<>();
+
+        @Override
+        public NotificationType getType() {
+            return NotificationType.WEBHOOK;
+        }
+
+        @Override
+        public SendResult send(List<Notification> notifications) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.addAll(notifications);
+            return SendResult.delivered();
+        }
+    }
+}
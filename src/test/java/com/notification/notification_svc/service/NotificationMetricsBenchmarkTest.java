@@ -0,0 +1,44 @@
+package com.notification.notification_svc.service;
+
+import com.notification.notification_svc.model.NotificationStatus;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures what the instrumentation adds to one send: four stage timings and a status count,
+ * against the Prometheus registry used in production. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class NotificationMetricsBenchmarkTest {
+
+    private static final int WARMUP = 2_000_000;
+    private static final int ITERATIONS = 10_000_000;
+
+    @Test
+    void instrumentationOverheadPerSend() {
+        NotificationMetrics metrics = new NotificationMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+
+        run(metrics, WARMUP);
+        long start = System.nanoTime();
+        run(metrics, ITERATIONS);
+        double nanosPerSend = (System.nanoTime() - start) / (double) ITERATIONS;
+
+        System.out.printf("instrumentation overhead: %.0f ns per send%n", nanosPerSend);
+        assertTrue(nanosPerSend < 1_000, "instrumentation must stay under 1µs per send");
+    }
+
+    private void run(NotificationMetrics metrics, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            metrics.record(NotificationMetrics.Stage.PREFERENCE_FETCH, start);
+            metrics.record(NotificationMetrics.Stage.MESSAGE_BUILD, start);
+            metrics.record(NotificationMetrics.Stage.SMTP_SEND, start);
+            metrics.record(NotificationMetrics.Stage.PERSISTENCE, start);
+            metrics.count(NotificationStatus.SUCCEEDED);
+        }
+    }
+}
@@ -1,28 +1,48 @@
 package com.notification.notification_svc.service;
 
+import com.notification.notification_svc.config.DispatchProperties;
+import com.notification.notification_svc.config.HistoryProperties;
+import com.notification.notification_svc.config.IdempotencyProperties;
+import com.notification.notification_svc.config.PreferenceCacheProperties;
+import com.notification.notification_svc.model.ArchivedNotification;
 import com.notification.notification_svc.model.Notification;
 import com.notification.notification_svc.model.NotificationPreference;
+import com.notification.notification_svc.model.NotificationPriority;
 import com.notification.notification_svc.model.NotificationStatus;
 import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.repository.ArchivedNotificationRepository;
 import com.notification.notification_svc.repository.NotificationPreferenceRepository;
 import com.notification.notification_svc.repository.NotificationRepository;
+import com.notification.notification_svc.web.dto.BulkNotificationRequest;
 import com.notification.notification_svc.web.dto.NotificationRequest;
 import com.notification.notification_svc.web.dto.UpsertNotificationPreference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,9 +51,33 @@ public class NotificationUTest {
     @Mock
     private NotificationRepository notificationRepository;
     @Mock
+    private ArchivedNotificationRepository archivedRepository;
+    @Mock
     private NotificationPreferenceRepository preferenceRepository;
     @Mock
-    private JavaMailSender mailSender;
+    private TemplateRegistry templateRegistry;
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+    @Mock
+    private NotificationOutboxService outboxService;
+    @Mock
+    private NotificationRetryService retryService;
+    @Mock
+    private NotificationDigestBuffer digestBuffer;
+    @Mock
+    private NotificationScheduler scheduler;
+    @Mock
+    private NotificationCounters counters;
+    @Spy
+    private DispatchProperties dispatchProperties = new DispatchProperties();
+    @Spy
+    private HistoryProperties historyProperties = new HistoryProperties();
+    @Spy
+    private NotificationMetrics metrics = new NotificationMetrics(new SimpleMeterRegistry());
+    @Spy
+    private IdempotencyGuard idempotencyGuard = new IdempotencyGuard(mock(NotificationRepository.class), new IdempotencyProperties(), new SimpleMeterRegistry());
+    @Spy
+    private PreferenceCache preferenceCache = new PreferenceCache(new PreferenceCacheProperties(), new SimpleMeterRegistry(), event -> {});
     @InjectMocks
     private NotificationService notificationService;
 
@@ -59,6 +103,11 @@ public class NotificationUTest {
                 .notificationEnabled(true)
                 .type(NotificationType.EMAIL)
                 .build();
+        notificationRequest = NotificationRequest.builder()
+                .userId(userId)
+                .subject("Test subject")
+                .body("Test body")
+                .build();
 
     }
 
@@ -130,4 +179,446 @@ public class NotificationUTest {
 
         verify(preferenceRepository, never()).save(any());
     }
+
+    @Test
+    void testSendNotification_SyncMode_StoresPendingAndDeliversOnCallingThread() {
+        UUID notificationId = UUID.randomUUID();
+        List<NotificationStatus> savedStatuses = new ArrayList<>();
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+        when(outboxService.enqueueLeased(any(Notification.class))).thenAnswer(invocation -> {
+            Notification notification = invocation.getArgument(0);
+            savedStatuses.add(notification.getStatus());
+            notification.setId(notificationId);
+            return notification;
+        });
+        when(notificationDispatcher.deliver(any(Notification.class))).thenAnswer(invocation -> {
+            Notification notification = invocation.getArgument(0);
+            notification.setStatus(NotificationStatus.SUCCEEDED);
+            return notification;
+        });
+
+        Notification result = notificationService.sendNotification(notificationRequest);
+
+        assertEquals(NotificationStatus.SUCCEEDED, result.getStatus());
+        assertEquals(notificationId, result.getId());
+        assertEquals("user@example.com", result.getContactInfo());
+        InOrder order = inOrder(outboxService, notificationDispatcher);
+        assertEquals(List.of(NotificationStatus.PENDING), savedStatuses);
+        order.verify(outboxService).enqueueLeased(any(Notification.class));
+        order.verify(notificationDispatcher).deliver(argThat(notification -> notificationId.equals(notification.getId())));
+        verify(outboxService, never()).enqueue(any());
+    }
+
+    @Test
+    void testSendNotification_AsyncMode_EnqueuesPendingInOutbox() {
+        dispatchProperties.setAsync(true);
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+        when(outboxService.enqueue(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Notification result = notificationService.sendNotification(notificationRequest);
+
+        assertEquals(NotificationStatus.PENDING, result.getStatus());
+        assertEquals(NotificationPriority.HIGH, result.getPriority());
+        verify(outboxService).enqueue(result);
+        verify(notificationDispatcher, never()).deliver(any());
+    }
+
+    @Test
+    void testSendNotification_AsyncMode_WhenDispatchIsSaturated_ShouldRejectWithoutEnqueueing() {
+        dispatchProperties.setAsync(true);
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+        when(notificationDispatcher.isBackpressured(NotificationType.EMAIL, NotificationPriority.HIGH)).thenReturn(true);
+
+        assertThrows(DispatchBackpressureException.class, () -> notificationService.sendNotification(notificationRequest));
+
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    void testSendNotification_WithDigestEnabled_BuffersInsteadOfSending() {
+        preference.setDigestEnabled(true);
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Notification result = notificationService.sendNotification(notificationRequest);
+
+        assertEquals(NotificationStatus.BUFFERED, result.getStatus());
+        verify(digestBuffer).add(List.of(result));
+        verifyNoInteractions(notificationDispatcher, outboxService);
+    }
+
+    @Test
+    void testAcceptNotifications_WithDigestEnabled_StoresBufferedAndHandsThemToTheDigestBuffer() {
+        preference.setDigestEnabled(true);
+        when(preferenceRepository.findAllByUserIdIn(anyCollection())).thenReturn(List.of(preference));
+        when(outboxService.enqueueAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkAcceptResult result = notificationService.acceptNotifications(List.of(notificationRequest, notificationRequest));
+
+        assertTrue(result.getAccepted().stream().allMatch(notification -> notification.getStatus() == NotificationStatus.BUFFERED));
+        verify(digestBuffer).add(result.getAccepted());
+    }
+
+    @Test
+    void testSendNotification_WithFutureSendAt_SchedulesInsteadOfSending() {
+        preference.setDigestEnabled(true);
+        OffsetDateTime sendAt = OffsetDateTime.now(ZoneOffset.ofHours(9)).plusHours(1);
+        notificationRequest.setSendAt(sendAt);
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Notification result = notificationService.sendNotification(notificationRequest);
+
+        assertEquals(NotificationStatus.SCHEDULED, result.getStatus());
+        assertEquals(sendAt.toInstant(), result.getSendAt().atZone(ZoneId.systemDefault()).toInstant());
+        verify(scheduler).add(List.of(result));
+        verifyNoInteractions(notificationDispatcher, outboxService, digestBuffer);
+    }
+
+    @Test
+    void testSendNotification_WithPastSendAt_SendsRightAway() {
+        dispatchProperties.setAsync(true);
+        notificationRequest.setSendAt(OffsetDateTime.now().minusMinutes(1));
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+        when(outboxService.enqueue(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Notification result = notificationService.sendNotification(notificationRequest);
+
+        assertEquals(NotificationStatus.PENDING, result.getStatus());
+        assertNull(result.getSendAt());
+        verifyNoInteractions(scheduler);
+    }
+
+    @Test
+    void testSendBulkNotification_WithFutureSendAt_SchedulesEvenWhileBackpressured() {
+        when(preferenceRepository.findAllByUserIdIn(anyCollection())).thenReturn(List.of(preference));
+        when(outboxService.enqueueAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkAcceptResult result = notificationService.sendBulkNotification(BulkNotificationRequest.builder()
+                .userIds(List.of(userId, userId))
+                .subject("Campaign")
+                .body("Campaign body")
+                .sendAt(OffsetDateTime.now().plusHours(1))
+                .build());
+
+        assertEquals(2, result.getAccepted().size());
+        assertTrue(result.getAccepted().stream().allMatch(notification -> notification.getStatus() == NotificationStatus.SCHEDULED));
+        verify(scheduler).add(result.getAccepted());
+        verify(notificationDispatcher, never()).isBackpressured(any(NotificationPriority.class));
+    }
+
+    @Test
+    void testSendNotification_WhenDisabled_ShouldThrowException() {
+        preference.setEnabled(false);
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+
+        assertThrows(IllegalArgumentException.class, () -> notificationService.sendNotification(notificationRequest));
+
+        verifyNoInteractions(notificationDispatcher, outboxService);
+        verify(notificationRepository, never()).save(any());
+    }
+
+    @Test
+    void testSendNotification_WithoutContentOrTemplate_ShouldThrowException() {
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+
+        assertThrows(IllegalArgumentException.class, () -> notificationService.sendNotification(
+                NotificationRequest.builder().userId(userId).subject("Only a subject").body(" ").build()));
+
+        verifyNoInteractions(notificationDispatcher, outboxService);
+        verify(notificationRepository, never()).save(any());
+    }
+
+    @Test
+    void testSendNotification_WithTemplate_StoresTemplateIdAndVariablesInsteadOfContent() {
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+        when(outboxService.enqueueLeased(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(notificationDispatcher.deliver(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Map<String, String> variables = Map.of("name", "Ana");
+
+        Notification result = notificationService.sendNotification(NotificationRequest.builder().userId(userId).templateId("welcome").variables(variables).build());
+
+        verify(templateRegistry).validate("welcome", variables);
+        assertEquals("welcome", result.getTemplateId());
+        assertEquals(variables, result.getTemplateVariables());
+        assertNull(result.getBody());
+    }
+
+    @Test
+    void testSendNotification_WithRepeatedIdempotencyKey_ReturnsFirstNotificationWithoutEnqueueingAgain() {
+        dispatchProperties.setAsync(true);
+        notificationRequest.setIdempotencyKey("order-42");
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+        when(outboxService.enqueue(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Notification first = notificationService.sendNotification(notificationRequest);
+        Notification replayed = notificationService.sendNotification(notificationRequest);
+
+        assertSame(first, replayed);
+        assertEquals("order-42", first.getIdempotencyKey());
+        verify(outboxService, times(1)).enqueue(any());
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void testSendNotification_SyncModeWithIdempotencyKey_StoresNotificationBeforeSending() {
+        notificationRequest.setIdempotencyKey("order-42");
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+        when(outboxService.enqueueLeased(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(notificationDispatcher.deliver(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        notificationService.sendNotification(notificationRequest);
+
+        InOrder order = inOrder(outboxService, notificationDispatcher);
+        order.verify(outboxService).enqueueLeased(argThat(notification -> notification.getStatus() == NotificationStatus.PENDING));
+        order.verify(notificationDispatcher).deliver(any());
+    }
+
+    @Test
+    void testSendNotification_WhenFirstAttemptFailed_IdempotencyKeyCanBeUsedAgain() {
+        dispatchProperties.setAsync(true);
+        notificationRequest.setIdempotencyKey("order-42");
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+        when(notificationDispatcher.isBackpressured(NotificationType.EMAIL, NotificationPriority.HIGH)).thenReturn(true, false);
+        when(outboxService.enqueue(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThrows(DispatchBackpressureException.class, () -> notificationService.sendNotification(notificationRequest));
+        Notification result = notificationService.sendNotification(notificationRequest);
+
+        assertEquals(NotificationStatus.PENDING, result.getStatus());
+        verify(outboxService).enqueue(any());
+    }
+
+    @Test
+    void testSendNotification_WithTooLongIdempotencyKey_ShouldThrowException() {
+        notificationRequest.setIdempotencyKey("k".repeat(IdempotencyGuard.MAX_KEY_LENGTH + 1));
+
+        assertThrows(IllegalArgumentException.class, () -> notificationService.sendNotification(notificationRequest));
+
+        verifyNoInteractions(notificationDispatcher, outboxService);
+    }
+
+    @Test
+    void testAcceptNotifications_ReplaysKnownIdempotencyKeysAndSkipsDuplicatesWithinTheRequest() {
+        when(preferenceRepository.findAllByUserIdIn(anyCollection())).thenReturn(List.of(preference));
+        when(outboxService.enqueueAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        Notification earlier = notificationService.acceptNotifications(List.of(
+                NotificationRequest.builder().userId(userId).subject("s").body("b").idempotencyKey("a").build())).getAccepted().get(0);
+
+        BulkAcceptResult result = notificationService.acceptNotifications(List.of(
+                NotificationRequest.builder().userId(userId).subject("s").body("b").idempotencyKey("a").build(),
+                NotificationRequest.builder().userId(userId).subject("s").body("b").idempotencyKey("b").build(),
+                NotificationRequest.builder().userId(userId).subject("s").body("b").idempotencyKey("b").build()));
+
+        assertEquals(2, result.getAccepted().size());
+        assertSame(earlier, result.getAccepted().get(0));
+        assertEquals("b", result.getAccepted().get(1).getIdempotencyKey());
+        assertEquals(1, result.getSkipped().size());
+        verify(outboxService, times(2)).enqueueAll(anyList());
+    }
+
+    @Test
+    void testAcceptNotifications_SkipsRequestsWithInvalidTemplate() {
+        when(preferenceRepository.findAllByUserIdIn(anyCollection())).thenReturn(List.of(preference));
+        doThrow(new IllegalArgumentException("Template missing was not found.")).when(templateRegistry).validate(eq("missing"), any());
+
+        BulkAcceptResult result = notificationService.acceptNotifications(List.of(
+                NotificationRequest.builder().userId(userId).templateId("missing").build()));
+
+        assertTrue(result.getAccepted().isEmpty());
+        assertEquals("Template missing was not found.", result.getSkipped().get(0).getReason());
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    void testAcceptNotifications_SkipsRequestsWithoutContentOrTemplate() {
+        when(preferenceRepository.findAllByUserIdIn(anyCollection())).thenReturn(List.of(preference));
+        when(outboxService.enqueueAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkAcceptResult result = notificationService.acceptNotifications(List.of(
+                NotificationRequest.builder().userId(userId).body("No subject").build(),
+                notificationRequest));
+
+        assertEquals(1, result.getAccepted().size());
+        assertEquals(0, result.getSkipped().get(0).getIndex());
+        assertEquals("Notification must have a subject and a body, or a templateId.", result.getSkipped().get(0).getReason());
+    }
+
+    @Test
+    void testAcceptNotifications_SkipsUnknownAndDisabledUsers() {
+        UUID unknownUserId = UUID.randomUUID();
+        UUID disabledUserId = UUID.randomUUID();
+        NotificationPreference disabledPreference = NotificationPreference.builder()
+                .userId(disabledUserId)
+                .contactInfo("disabled@example.com")
+                .enabled(false)
+                .type(NotificationType.EMAIL)
+                .build();
+        when(preferenceRepository.findAllByUserIdIn(anyCollection())).thenReturn(List.of(preference, disabledPreference));
+        when(outboxService.enqueueAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkAcceptResult result = notificationService.acceptNotifications(List.of(
+                notificationRequest,
+                NotificationRequest.builder().userId(unknownUserId).subject("s").body("b").build(),
+                NotificationRequest.builder().userId(disabledUserId).subject("s").body("b").build()));
+
+        assertEquals(1, result.getAccepted().size());
+        assertEquals(userId, result.getAccepted().get(0).getUserId());
+        assertEquals(NotificationStatus.PENDING, result.getAccepted().get(0).getStatus());
+        assertEquals(2, result.getSkipped().size());
+        assertEquals(List.of(0, 1, 2), result.getItems().stream().map(BulkAcceptResult.Item::getIndex).toList());
+        assertEquals(List.of(userId, unknownUserId, disabledUserId), result.getItems().stream().map(BulkAcceptResult.Item::getUserId).toList());
+        verify(preferenceRepository, never()).findNotificationPreferenceByUserId(any());
+    }
+
+    @Test
+    void testSendBulkNotification_TemplateIsExpandedPerUserAndChunked() {
+        dispatchProperties.setBulkChunkSize(2);
+        List<UUID> userIds = List.of(userId, UUID.randomUUID(), UUID.randomUUID());
+        when(preferenceRepository.findAllByUserIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .map(id -> NotificationPreference.builder().userId(id).contactInfo("user@example.com").enabled(true).type(NotificationType.EMAIL).build())
+                    .toList();
+        });
+        when(outboxService.enqueueAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkAcceptResult result = notificationService.sendBulkNotification(BulkNotificationRequest.builder()
+                .subject("Campaign")
+                .body("Campaign body")
+                .userIds(userIds)
+                .build());
+
+        assertEquals(3, result.getAccepted().size());
+        assertTrue(result.getAccepted().stream().allMatch(notification -> "Campaign".equals(notification.getSubject())));
+        assertTrue(result.getAccepted().stream().allMatch(notification -> notification.getPriority() == NotificationPriority.LOW));
+        verify(preferenceRepository, times(2)).findAllByUserIdIn(anyCollection());
+        verify(outboxService, times(2)).enqueueAll(anyList());
+    }
+
+    @Test
+    void testSendBulkNotification_RequestPriorityAppliesToNotificationsWithoutTheirOwn() {
+        when(preferenceRepository.findAllByUserIdIn(anyCollection())).thenReturn(List.of(preference));
+        when(outboxService.enqueueAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkAcceptResult result = notificationService.sendBulkNotification(BulkNotificationRequest.builder()
+                .priority(NotificationPriority.HIGH)
+                .notifications(List.of(
+                        NotificationRequest.builder().userId(userId).subject("s").body("b").build(),
+                        NotificationRequest.builder().userId(userId).subject("s").body("b").priority(NotificationPriority.LOW).build()))
+                .build());
+
+        assertEquals(NotificationPriority.HIGH, result.getAccepted().get(0).getPriority());
+        assertEquals(NotificationPriority.LOW, result.getAccepted().get(1).getPriority());
+        verify(notificationDispatcher).isBackpressured(NotificationPriority.HIGH);
+    }
+
+    @Test
+    void testSendBulkNotification_WithoutRecipients_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> notificationService.sendBulkNotification(new BulkNotificationRequest()));
+    }
+
+    @Test
+    void testGetPreferenceByUserId_IsServedFromCacheAfterFirstLookup() {
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+
+        notificationService.getPreferenceByUserId(userId);
+        notificationService.getPreferenceByUserId(userId);
+
+        verify(preferenceRepository, times(1)).findNotificationPreferenceByUserId(userId);
+    }
+
+    @Test
+    void testGetPreferenceByUserId_UnknownUserIsCachedToo() {
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.empty());
+
+        assertThrows(NullPointerException.class, () -> notificationService.getPreferenceByUserId(userId));
+        assertThrows(NullPointerException.class, () -> notificationService.getPreferenceByUserId(userId));
+
+        verify(preferenceRepository, times(1)).findNotificationPreferenceByUserId(userId);
+    }
+
+    @Test
+    void testChangeNotificationPreference_UpdatesCachedEntry() {
+        NotificationPreference cached = NotificationPreference.builder()
+                .userId(userId)
+                .contactInfo("user@example.com")
+                .enabled(true)
+                .type(NotificationType.EMAIL)
+                .build();
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(cached), Optional.of(preference));
+        when(preferenceRepository.save(any(NotificationPreference.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        assertTrue(notificationService.getPreferenceByUserId(userId).isEnabled());
+
+        notificationService.changeNotificationPreference(userId, false);
+
+        assertFalse(notificationService.getPreferenceByUserId(userId).isEnabled());
+        verify(preferenceRepository, times(2)).findNotificationPreferenceByUserId(userId);
+    }
+
+    @Test
+    void testClearNotifications_UpdatesInIdRangeChunksAndReturnsCount() {
+        historyProperties.setClearChunkSize(2);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        UUID fourth = UUID.randomUUID();
+        when(notificationRepository.findUndeletedIdsByUserId(eq(userId), any()))
+                .thenReturn(List.of(first, second), List.of(third, fourth), List.of());
+        when(notificationRepository.softDeleteByUserIdUpToId(eq(userId), any(), any())).thenReturn(2);
+        when(notificationRepository.softDeleteAllByUserId(eq(userId), any())).thenReturn(0);
+
+        int cleared = notificationService.clearNotifications(userId);
+
+        assertEquals(4, cleared);
+        verify(notificationRepository).softDeleteByUserIdUpToId(eq(userId), eq(second), any());
+        verify(notificationRepository).softDeleteByUserIdUpToId(eq(userId), eq(fourth), any());
+        verify(notificationRepository, never()).save(any());
+    }
+
+    @Test
+    void testHistoryPageWithArchive_MergesBothTablesNewestFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        Notification newest = Notification.builder().id(UUID.randomUUID()).subject("newest").createdOn(now).build();
+        Notification older = Notification.builder().id(UUID.randomUUID()).subject("older").createdOn(now.minusDays(2)).build();
+        ArchivedNotification archived = ArchivedNotification.builder().id(UUID.randomUUID()).subject("archived").createdOn(now.minusDays(1)).build();
+        ArchivedNotification oldest = ArchivedNotification.builder().id(UUID.randomUUID()).subject("oldest").createdOn(now.minusDays(3)).build();
+        when(notificationRepository.findFirstHistoryPage(eq(userId), any())).thenReturn(List.of(newest, older));
+        when(archivedRepository.findFirstHistoryPage(eq(userId), any())).thenReturn(List.of(archived, oldest));
+
+        HistoryPage page = notificationService.getNotificationHistoryPage(userId, null, 3, true);
+
+        assertEquals(List.of("newest", "archived", "older"), page.getNotifications().stream().map(Notification::getSubject).toList());
+        assertEquals(older.getId(), page.getNext().getId());
+    }
+
+    @Test
+    void testHistoryPageWithoutArchive_DoesNotReadTheArchive() {
+        when(notificationRepository.findFirstHistoryPage(eq(userId), any())).thenReturn(List.of());
+
+        notificationService.getNotificationHistoryPage(userId, null, 3, false);
+
+        verifyNoInteractions(archivedRepository);
+    }
+
+    @Test
+    void testRetryFailedNotifications_OnlySchedulesImmediateRetry() {
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+        when(retryService.scheduleImmediateRetry(userId)).thenReturn(3);
+
+        int scheduled = notificationService.retryFailedNotifications(userId);
+
+        assertEquals(3, scheduled);
+        verifyNoInteractions(notificationDispatcher);
+    }
+
+    @Test
+    void testRetryFailedNotifications_WhenDisabled_ShouldThrowException() {
+        preference.setEnabled(false);
+        when(preferenceRepository.findNotificationPreferenceByUserId(userId)).thenReturn(Optional.of(preference));
+
+        assertThrows(IllegalArgumentException.class, () -> notificationService.retryFailedNotifications(userId));
+
+        verifyNoInteractions(retryService);
+    }
 }
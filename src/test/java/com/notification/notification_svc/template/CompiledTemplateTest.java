@@ -0,0 +1,47 @@
+package com.notification.notification_svc.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledTemplateTest {
+
+    @Test
+    void rendersPlaceholdersBetweenLiterals() {
+        CompiledTemplate template = CompiledTemplate.compile("Hi {{ name }}, order {{order}} is {{status}}. Bye {{name}}");
+
+        assertEquals("Hi Ana, order 42 is shipped. Bye Ana", template.render(Map.of("name", "Ana", "order", "42", "status", "shipped", "unused", "x")));
+        assertEquals(List.of("name", "order", "status"), List.copyOf(template.getVariables()));
+    }
+
+    @Test
+    void templateWithoutPlaceholdersRendersToItsSource() {
+        String source = "Nothing to fill in";
+
+        assertSame(source, CompiledTemplate.compile(source).render(Map.of()));
+    }
+
+    @Test
+    void placeholderAtTheEdgesAndSideBySide() {
+        CompiledTemplate template = CompiledTemplate.compile("{{a}}{{b}}");
+
+        assertEquals("12", template.render(Map.of("a", "1", "b", "2")));
+    }
+
+    @Test
+    void missingVariableIsRejected() {
+        CompiledTemplate template = CompiledTemplate.compile("Hi {{name}}");
+
+        assertThrows(IllegalArgumentException.class, () -> template.render(Map.of()));
+    }
+
+    @Test
+    void malformedPlaceholdersAreRejectedAtCompileTime() {
+        assertThrows(IllegalArgumentException.class, () -> CompiledTemplate.compile("Hi {{name"));
+        assertThrows(IllegalArgumentException.class, () -> CompiledTemplate.compile("Hi {{ }}"));
+        assertThrows(IllegalArgumentException.class, () -> CompiledTemplate.compile("Hi {{a {{b}}"));
+    }
+}
@@ -0,0 +1,147 @@
+package com.notification.notification_svc.web;
+
+import com.notification.notification_svc.NotificationSvcApplication;
+import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.service.NotificationService;
+import com.notification.notification_svc.web.dto.UpsertNotificationPreference;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drives synchronous POST requests with 5k in flight at once against the platform-thread Tomcat
+ * pool and, on a Java 21 runtime, against virtual threads. SMTP is replaced by a sender that only
+ * sleeps, so the run measures how well each mode overlaps blocking I/O. Run with
+ * {@code mvn test -Pbenchmark}, or {@code mvn test -Pbenchmark,java21} on Java 21.
+ */
+@Tag("benchmark")
+public class ConcurrentRequestsBenchmarkTest {
+
+    private static final int IN_FLIGHT = 5_000;
+    private static final int REQUESTS = 20_000;
+    private static final int USERS = 100;
+    private static final Duration SMTP_LATENCY = Duration.ofMillis(50);
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        Result platform = run(false);
+        System.out.println("platform threads: " + platform);
+
+        if (Runtime.version().feature() < 21) {
+            System.out.println("virtual threads: skipped, Java 21 is required");
+            return;
+        }
+
+        Result virtual = run(true);
+        System.out.println("virtual threads: " + virtual);
+        System.out.printf("virtual/platform throughput: %.1fx%n", virtual.throughput() / platform.throughput());
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(NotificationSvcApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory().registerSingleton("mailSender", new SleepingMailSender()))
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads + ";DB_CLOSE_DELAY=-1;MODE=MYSQL",
+                        "--notification.mail.pool.enabled=false",
+                        "--server.tomcat.max-connections=" + (IN_FLIGHT * 2),
+                        "--server.tomcat.accept-count=" + IN_FLIGHT,
+                        "--logging.level.root=WARN",
+                        "--spring.jmx.enabled=false")) {
+
+            NotificationService notificationService = context.getBean(NotificationService.class);
+            List<UUID> userIds = new ArrayList<>();
+            for (int i = 0; i < USERS; i++) {
+                UUID userId = UUID.randomUUID();
+                notificationService.upsertPreference(UpsertNotificationPreference.builder()
+                        .userId(userId)
+                        .type(NotificationType.EMAIL)
+                        .contactInfo("user" + i + "@example.com")
+                        .notificationEnabled(true)
+                        .build());
+                userIds.add(userId);
+            }
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return drive(URI.create("http://localhost:" + port + "/api/v1/notifications"), userIds);
+        }
+    }
+
+    private Result drive(URI uri, List<UUID> userIds) throws Exception {
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(32);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+
+        Semaphore inFlight = new Semaphore(IN_FLIGHT);
+        long[] latencies = new long[REQUESTS];
+        AtomicInteger errors = new AtomicInteger();
+        List<CompletableFuture<?>> futures = new ArrayList<>(REQUESTS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            int request = i;
+            String body = "{\"userId\":\"%s\",\"subject\":\"Load\",\"body\":\"Load test\"}".formatted(userIds.get(i % userIds.size()));
+            inFlight.acquire();
+            long sentAt = System.nanoTime();
+            futures.add(client.sendAsync(HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        latencies[request] = System.nanoTime() - sentAt;
+                        if (failure != null || response.statusCode() >= 300) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).handle((ignored, failure) -> null).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        clientExecutor.shutdownNow();
+
+        assertEquals(0, errors.get(), "failed requests");
+        Arrays.sort(latencies);
+        return new Result(REQUESTS / seconds, latencies[REQUESTS / 2] / 1_000_000, latencies[REQUESTS * 99 / 100] / 1_000_000);
+    }
+
+    private record Result(double throughput, long p50Millis, long p99Millis) {
+        @Override
+        public String toString() {
+            return "%.0f req/s, p50 %d ms, p99 %d ms".formatted(throughput, p50Millis, p99Millis);
+        }
+    }
+
+    private static class SleepingMailSender extends JavaMailSenderImpl {
+        @Override
+        public void send(SimpleMailMessage... simpleMessages) {
+            try {
+                Thread.sleep(SMTP_LATENCY.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -4,11 +4,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.notification.notification_svc.model.Notification;
 import com.notification.notification_svc.model.NotificationPreference;
 import com.notification.notification_svc.model.NotificationStatus;
+import com.notification.notification_svc.model.NotificationTemplate;
 import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.service.BulkAcceptResult;
+import com.notification.notification_svc.service.DispatchBackpressureException;
+import com.notification.notification_svc.service.HistoryCursor;
+import com.notification.notification_svc.service.HistoryPage;
 import com.notification.notification_svc.service.NotificationService;
+import com.notification.notification_svc.service.NotificationSummary;
+import com.notification.notification_svc.web.dto.BulkNotificationRequest;
 import com.notification.notification_svc.web.dto.NotificationPreferenceResponse;
+import com.notification.notification_svc.web.dto.NotificationRequest;
 import com.notification.notification_svc.web.dto.NotificationResponse;
 import com.notification.notification_svc.web.dto.UpsertNotificationPreference;
+import com.notification.notification_svc.web.dto.UpsertNotificationTemplate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,11 +28,17 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -107,9 +122,51 @@ public class NotificationControllerApiTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("enabled").isNotEmpty())
                 .andExpect(MockMvcResultMatchers.jsonPath("contactInfo").isNotEmpty());
     }
+    @Test
+    void postTemplate_returns201WithTheStoredTemplate() throws Exception {
+        UpsertNotificationTemplate requestDto = UpsertNotificationTemplate.builder()
+                .id("welcome")
+                .subject("Welcome, {{name}}")
+                .body("Hi {{name}}")
+                .build();
+        when(notificationService.upsertTemplate(any())).thenReturn(NotificationTemplate.builder()
+                .id("welcome")
+                .subject(requestDto.getSubject())
+                .body(requestDto.getBody())
+                .updatedOn(LocalDateTime.now())
+                .build());
+
+        mockMvc.perform(post("/api/v1/notifications/templates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(requestDto)))
+                .andExpect(status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("id").value("welcome"))
+                .andExpect(MockMvcResultMatchers.jsonPath("body").value("Hi {{name}}"));
+    }
+
+    @Test
+    void getNotificationSummary_returnsCountsPerStatusAndTheLastSendTime() throws Exception {
+        Map<NotificationStatus, Long> counts = new EnumMap<>(NotificationStatus.class);
+        for (NotificationStatus status : NotificationStatus.values()) {
+            counts.put(status, 0L);
+        }
+        counts.put(NotificationStatus.SUCCEEDED, 7L);
+        counts.put(NotificationStatus.FAILED, 2L);
+        when(notificationService.getNotificationSummary(userId)).thenReturn(new NotificationSummary(userId, counts, LocalDateTime.now()));
+
+        mockMvc.perform(get("/api/v1/notifications/summary").param("userId", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("userId").value(userId.toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("counts.SUCCEEDED").value(7))
+                .andExpect(MockMvcResultMatchers.jsonPath("counts.FAILED").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("counts.BUFFERED").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("total").value(9))
+                .andExpect(MockMvcResultMatchers.jsonPath("lastSentAt").isNotEmpty());
+    }
+
     @Test
     void getNotificationHistory_ShouldReturnListOfNotifications() throws Exception {
-        when(notificationService.getNotificationHistory(userId))
+        when(notificationService.getNotificationHistory(userId, false))
                 .thenReturn(List.of(
                         Notification.builder()
                                 .subject("Test1")
@@ -140,6 +197,18 @@ public class NotificationControllerApiTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].type").isNotEmpty());
     }
 
+    @Test
+    void getNotificationHistory_withIncludeArchived_readsTheArchive() throws Exception {
+        when(notificationService.getNotificationHistory(userId, true)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/v1/notifications")
+                        .param("userId", userId.toString())
+                        .param("includeArchived", "true"))
+                .andExpect(status().isOk());
+
+        verify(notificationService).getNotificationHistory(userId, true);
+    }
+
     @Test
     void changeNotificationPreference_ShouldReturnUpdatedPreference() throws Exception {
         when(notificationService.changeNotificationPreference(userId, true))
@@ -160,4 +229,155 @@ public class NotificationControllerApiTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("userId").isNotEmpty())
                 .andExpect(MockMvcResultMatchers.jsonPath("enabled").isNotEmpty());
     }
+
+    @Test
+    void postNotification_whenAcceptedForAsyncDispatch_returns202() throws Exception {
+        UUID notificationId = UUID.randomUUID();
+        when(notificationService.sendNotification(any()))
+                .thenReturn(Notification.builder()
+                        .id(notificationId)
+                        .userId(userId)
+                        .subject("Test subject")
+                        .body("Test body")
+                        .type(NotificationType.EMAIL)
+                        .status(NotificationStatus.PENDING)
+                        .createdOn(LocalDateTime.now())
+                        .updatedOn(LocalDateTime.now())
+                        .build());
+
+        NotificationRequest requestDto = NotificationRequest.builder()
+                .userId(userId)
+                .subject("Test subject")
+                .body("Test body")
+                .build();
+
+        mockMvc.perform(post("/api/v1/notifications")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(requestDto)))
+                .andExpect(status().isAccepted())
+                .andExpect(MockMvcResultMatchers.jsonPath("id").value(notificationId.toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("status").value("PENDING"));
+    }
+
+    @Test
+    void postNotification_withIdempotencyKeyHeader_passesKeyToService() throws Exception {
+        when(notificationService.sendNotification(any()))
+                .thenReturn(Notification.builder()
+                        .userId(userId)
+                        .idempotencyKey("order-42")
+                        .status(NotificationStatus.SUCCEEDED)
+                        .build());
+
+        NotificationRequest requestDto = NotificationRequest.builder()
+                .userId(userId)
+                .subject("Test subject")
+                .body("Test body")
+                .build();
+
+        mockMvc.perform(post("/api/v1/notifications")
+                        .header("Idempotency-Key", "order-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(requestDto)))
+                .andExpect(status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("idempotencyKey").value("order-42"));
+
+        verify(notificationService).sendNotification(argThat(request -> "order-42".equals(request.getIdempotencyKey())));
+    }
+
+    @Test
+    void postNotification_whenRequestIsInvalid_returns400WithMessage() throws Exception {
+        when(notificationService.sendNotification(any()))
+                .thenThrow(new IllegalArgumentException("Notification must have a subject and a body, or a templateId."));
+
+        NotificationRequest requestDto = NotificationRequest.builder()
+                .userId(userId)
+                .subject("Test subject")
+                .build();
+
+        mockMvc.perform(post("/api/v1/notifications")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(requestDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("status").value(400))
+                .andExpect(MockMvcResultMatchers.jsonPath("message").value("Notification must have a subject and a body, or a templateId."));
+    }
+
+    @Test
+    void postBulkNotification_returns202WithPerItemSummaryInRequestOrder() throws Exception {
+        UUID skippedUserId = UUID.randomUUID();
+        UUID notificationId = UUID.randomUUID();
+        when(notificationService.sendBulkNotification(any()))
+                .thenReturn(new BulkAcceptResult(List.of(
+                        BulkAcceptResult.Item.skipped(0, skippedUserId, "Notification preference for user id %s was not found.".formatted(skippedUserId)),
+                        BulkAcceptResult.Item.accepted(1, Notification.builder().id(notificationId).userId(userId).status(NotificationStatus.PENDING).build()))));
+
+        BulkNotificationRequest requestDto = BulkNotificationRequest.builder()
+                .subject("Campaign")
+                .body("Campaign body")
+                .userIds(List.of(skippedUserId, userId))
+                .build();
+
+        mockMvc.perform(post("/api/v1/notifications/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(requestDto)))
+                .andExpect(status().isAccepted())
+                .andExpect(MockMvcResultMatchers.jsonPath("accepted").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("skipped").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].index").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].outcome").value("SKIPPED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].status").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].reason").isNotEmpty())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].index").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].outcome").value("ACCEPTED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].notificationId").value(notificationId.toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].status").value("PENDING"));
+    }
+
+    @Test
+    void getNotificationHistoryPage_returnsItemsAndNextCursor() throws Exception {
+        Notification last = Notification.builder()
+                .id(UUID.randomUUID())
+                .subject("Test subject")
+                .type(NotificationType.EMAIL)
+                .status(NotificationStatus.SUCCEEDED)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build();
+        when(notificationService.getNotificationHistoryPage(any(), any(), any(), anyBoolean()))
+                .thenReturn(new HistoryPage(List.of(last), HistoryCursor.after(last)));
+
+        mockMvc.perform(get("/api/v1/notifications/page")
+                        .param("userId", userId.toString())
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].subject").value("Test subject"))
+                .andExpect(MockMvcResultMatchers.jsonPath("nextCursor").value(HistoryCursor.after(last).encode()));
+    }
+
+    @Test
+    void clearNotificationHistory_returnsNumberOfClearedRows() throws Exception {
+        when(notificationService.clearNotifications(userId)).thenReturn(42);
+
+        mockMvc.perform(delete("/api/v1/notifications")
+                        .param("userId", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("cleared").value(42));
+    }
+
+    @Test
+    void postBulkNotification_whenDispatchIsSaturated_returns429WithRetryAfter() throws Exception {
+        when(notificationService.sendBulkNotification(any())).thenThrow(new DispatchBackpressureException(Duration.ofSeconds(5)));
+
+        BulkNotificationRequest requestDto = BulkNotificationRequest.builder()
+                .subject("Campaign")
+                .body("Campaign body")
+                .userIds(List.of(userId))
+                .build();
+
+        mockMvc.perform(post("/api/v1/notifications/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(requestDto)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "5"));
+    }
 }
@@ -0,0 +1,157 @@
+package com.notification.notification_svc.webhook;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.notification_svc.channel.SendResult;
+import com.notification.notification_svc.config.ChannelProperties;
+import com.notification.notification_svc.config.TemplateProperties;
+import com.notification.notification_svc.config.WebhookProperties;
+import com.notification.notification_svc.model.Notification;
+import com.notification.notification_svc.model.NotificationType;
+import com.notification.notification_svc.service.NotificationMetrics;
+import com.notification.notification_svc.service.TemplateRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebhookChannelSenderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Map<String, List<JsonNode>> received = new ConcurrentHashMap<>();
+    // Holds the slow endpoint until the test is over, far past the channel timeout.
+    private final CountDownLatch releaseSlow = new CountDownLatch(1);
+    private HttpServer server;
+    private WebhookChannelSender sender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/ok", exchange -> answer(exchange, 204, Duration.ZERO));
+        server.createContext("/broken", exchange -> answer(exchange, 500, Duration.ZERO));
+        server.createContext("/slow", exchange -> {
+            try {
+                releaseSlow.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            answer(exchange, 204, Duration.ZERO);
+        });
+        server.start();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebhookProperties properties = new WebhookProperties();
+        properties.setMaxBatchSize(2);
+        ChannelProperties channelProperties = new ChannelProperties();
+        channelProperties.getWebhook().setTimeout(Duration.ofSeconds(2));
+        sender = new WebhookChannelSender(new TemplateRegistry(null, new TemplateProperties(), meterRegistry), new NotificationMetrics(meterRegistry),
+                objectMapper, properties, channelProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseSlow.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void notificationsForTheSameEndpointArePostedTogetherUpToTheBatchSize() {
+        List<Notification> notifications = List.of(
+                notification("/ok", "first"),
+                notification("/ok", "second"),
+                notification("/ok", "third"));
+
+        SendResult result = sender.send(notifications);
+
+        assertTrue(result.attempted());
+        assertTrue(result.failed().isEmpty());
+        List<JsonNode> requests = received.get("/ok");
+        assertEquals(2, requests.size());
+        assertEquals(3, requests.stream().mapToInt(request -> request.get("notifications").size()).sum());
+        assertTrue(requests.stream().anyMatch(request -> request.get("notifications").size() == 2));
+        JsonNode first = requests.stream()
+                .flatMap(request -> StreamSupport.stream(request.get("notifications").spliterator(), false))
+                .filter(item -> item.get("subject").asText().equals("first"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(notifications.get(0).getId().toString(), first.get("id").asText());
+        assertEquals("Body of first", first.get("body").asText());
+    }
+
+    @Test
+    void onlyTheNotificationsOfAFailingEndpointFail() {
+        Notification delivered = notification("/ok", "delivered");
+        Notification rejected = notification("/broken", "rejected");
+
+        SendResult result = sender.send(List.of(delivered, rejected));
+
+        assertFalse(result.isFailed(delivered));
+        assertTrue(result.isFailed(rejected));
+    }
+
+    @Test
+    void slowEndpointFailsAfterTheChannelTimeoutWithoutHoldingUpTheOthers() {
+        Notification slow = notification("/slow", "slow");
+        Notification fast = notification("/ok", "fast");
+
+        long start = System.nanoTime();
+        SendResult result = sender.send(List.of(slow, fast));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(10)) < 0);
+        assertTrue(result.isFailed(slow));
+        assertFalse(result.isFailed(fast));
+    }
+
+    @Test
+    void invalidEndpointFailsItsNotifications() {
+        Notification invalid = notification(null, "invalid");
+        invalid.setContactInfo("not a url");
+
+        SendResult result = sender.send(List.of(invalid));
+
+        assertTrue(result.isFailed(invalid));
+    }
+
+    private Notification notification(String path, String subject) {
+        return Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .type(NotificationType.WEBHOOK)
+                .contactInfo(path == null ? null : "http://localhost:" + server.getAddress().getPort() + path)
+                .subject(subject)
+                .body("Body of " + subject)
+                .createdOn(LocalDateTime.now())
+                .build();
+    }
+
+    private void answer(HttpExchange exchange, int status, Duration delay) throws IOException {
+        try (exchange) {
+            received.computeIfAbsent(exchange.getRequestURI().getPath(), ignored -> new CopyOnWriteArrayList<>())
+                    .add(objectMapper.readTree(exchange.getRequestBody()));
+            Thread.sleep(delay.toMillis());
+            exchange.sendResponseHeaders(status, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}